@@ -1,15 +1,23 @@
 package dev.pallux.amethysttools;
 
+import dev.pallux.amethysttools.api.AmethystToolsAPI;
+import dev.pallux.amethysttools.api.AmethystToolsService;
 import dev.pallux.amethysttools.commands.AToolsCommand;
 import dev.pallux.amethysttools.listeners.*;
 import dev.pallux.amethysttools.managers.*;
+import dev.pallux.amethysttools.storage.AuditLog;
 import dev.pallux.amethysttools.utils.MessageUtil;
 import net.milkbowl.vault.economy.Economy;
 import org.bukkit.Bukkit;
+import org.bukkit.event.HandlerList;
 import org.bukkit.plugin.RegisteredServiceProvider;
+import org.bukkit.plugin.ServicePriority;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.logging.Level;
 
 public final class AmethystTools extends JavaPlugin {
@@ -18,9 +26,23 @@ public final class AmethystTools extends JavaPlugin {
     private Economy economy;
     private ConfigManager configManager;
     private MessageManager messageManager;
+    private AuditLog auditLog;
+    private ToolStats toolStats;
+    private MaterialTable materialTable;
     private ToolManager toolManager;
+    private HeldToolCache heldToolCache;
+    private ToolEventRouter toolEventRouter;
+    private HeldToolListener heldToolListener;
+    private DeliveryManager deliveryManager;
+    private ToolSweeper toolSweeper;
+    private DuplicateTracker duplicateTracker;
+    private PlayerDataScanner playerDataScanner;
     private CooldownManager cooldownManager;
     private EconomyIntegrationManager economyIntegrationManager;
+    private AmethystToolsService apiService;
+    private BukkitTask saveTask;
+    private BukkitTask snapshotTask;
+    private BukkitTask statsTask;
 
     @Override
     public void onEnable() {
@@ -35,7 +57,15 @@ public final class AmethystTools extends JavaPlugin {
 
         // Now initialize managers that depend on config
         messageManager = new MessageManager(this);
+        setupAuditLog();
+        toolStats = new ToolStats(this);
+        materialTable = new MaterialTable(this);
         toolManager = new ToolManager(this);
+        heldToolCache = new HeldToolCache(toolManager);
+        deliveryManager = new DeliveryManager(this);
+        toolSweeper = new ToolSweeper(this);
+        duplicateTracker = new DuplicateTracker(this);
+        playerDataScanner = new PlayerDataScanner(this);
         economyIntegrationManager = new EconomyIntegrationManager(this);
 
         // Setup Vault economy
@@ -51,6 +81,16 @@ public final class AmethystTools extends JavaPlugin {
 
         // Start timer task
         startTimerTask();
+        startSweeperTask();
+
+        // Start periodic registry snapshots
+        startSaveTask();
+        startStatsTask();
+
+        // Expose the public API to other plugins
+        apiService = new AmethystToolsService(this);
+        getServer().getServicesManager().register(AmethystToolsAPI.class, apiService, this, ServicePriority.Normal);
+        startSnapshotTask();
 
         getLogger().info("AmethystTools has been enabled!");
         getLogger().info("Author: Pallux");
@@ -59,22 +99,57 @@ public final class AmethystTools extends JavaPlugin {
 
     @Override
     public void onDisable() {
+        getServer().getServicesManager().unregisterAll(this);
+        if (playerDataScanner != null) {
+            playerDataScanner.shutdown();
+        }
+        if (deliveryManager != null) {
+            deliveryManager.shutdown();
+        }
+        // Stats are saved through the tool store, so before it closes
+        if (toolStats != null) {
+            toolStats.save();
+        }
         if (toolManager != null) {
-            toolManager.saveAllTools();
+            toolManager.shutdown();
+        }
+        if (auditLog != null) {
+            auditLog.close();
         }
         getLogger().info("AmethystTools has been disabled!");
     }
 
     private void registerListeners() {
-        getServer().getPluginManager().registerEvents(new TreeChopperListener(this), this);
-        getServer().getPluginManager().registerEvents(new SellAxeListener(this), this);
-        getServer().getPluginManager().registerEvents(new PickaxeListener(this), this);
-        getServer().getPluginManager().registerEvents(new BucketListener(this), this);
-        getServer().getPluginManager().registerEvents(new TorchListener(this), this);
-        getServer().getPluginManager().registerEvents(new RocketListener(this), this);
+        toolEventRouter = new ToolEventRouter(this);
+        heldToolListener = new HeldToolListener(this);
+        wireToolListeners();
         getServer().getPluginManager().registerEvents(new ToolProtectionListener(this), this);
     }
 
+    /**
+     * Registers the ability listeners for the enabled tools only, again on every reload
+     */
+    private void wireToolListeners() {
+        HandlerList.unregisterAll(heldToolListener);
+        heldToolCache.clear();
+        if (toolEventRouter.wire()) {
+            // The held tool cache is only read by the router
+            getServer().getPluginManager().registerEvents(heldToolListener, this);
+        }
+    }
+
+    private void setupAuditLog() {
+        auditLog = new AuditLog(new File(getDataFolder(), "audit"), getLogger(),
+                configManager.getAuditSegmentBytes(), configManager.getAuditMaxSegments());
+        if (!configManager.isAuditEnabled()) return;
+
+        try {
+            auditLog.open();
+        } catch (IOException e) {
+            getLogger().log(Level.SEVERE, "Could not open the audit log, tool history will not be recorded", e);
+        }
+    }
+
     private boolean setupEconomy() {
         if (getServer().getPluginManager().getPlugin("Vault") == null) {
             return false;
@@ -96,11 +171,68 @@ public final class AmethystTools extends JavaPlugin {
         }.runTaskTimer(this, 20L, 20L); // Run every second
     }
 
+    private void startSweeperTask() {
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                toolSweeper.tick();
+            }
+        }.runTaskTimer(this, 1L, 1L);
+    }
+
+    private void startSaveTask() {
+        if (saveTask != null) {
+            saveTask.cancel();
+        }
+
+        long interval = Math.max(1, configManager.getSaveInterval()) * 20L;
+        saveTask = new BukkitRunnable() {
+            @Override
+            public void run() {
+                toolManager.saveAllTools();
+            }
+        }.runTaskTimer(this, interval, interval);
+    }
+
+    private void startStatsTask() {
+        if (statsTask != null) {
+            statsTask.cancel();
+        }
+
+        long interval = configManager.getStatsSaveInterval() * 20L;
+        statsTask = new BukkitRunnable() {
+            @Override
+            public void run() {
+                toolStats.save();
+            }
+        }.runTaskTimerAsynchronously(this, interval, interval);
+    }
+
+    private void startSnapshotTask() {
+        if (snapshotTask != null) {
+            snapshotTask.cancel();
+        }
+
+        long interval = configManager.getApiSnapshotInterval();
+        snapshotTask = new BukkitRunnable() {
+            @Override
+            public void run() {
+                apiService.publish();
+            }
+        }.runTaskTimer(this, interval, interval);
+    }
+
     public void reload() {
         configManager.loadConfigs();
+        toolManager.reloadSettings();
+        materialTable.load();
+        wireToolListeners();
         if (economyIntegrationManager != null) {
             economyIntegrationManager.reload();
         }
+        startSaveTask();
+        startStatsTask();
+        startSnapshotTask();
         getLogger().info("AmethystTools has been reloaded!");
     }
 
@@ -121,10 +253,42 @@ public final class AmethystTools extends JavaPlugin {
         return messageManager;
     }
 
+    public AuditLog getAuditLog() {
+        return auditLog;
+    }
+
+    public ToolStats getToolStats() {
+        return toolStats;
+    }
+
     public ToolManager getToolManager() {
         return toolManager;
     }
 
+    public MaterialTable getMaterialTable() {
+        return materialTable;
+    }
+
+    public HeldToolCache getHeldToolCache() {
+        return heldToolCache;
+    }
+
+    public DeliveryManager getDeliveryManager() {
+        return deliveryManager;
+    }
+
+    public ToolSweeper getToolSweeper() {
+        return toolSweeper;
+    }
+
+    public DuplicateTracker getDuplicateTracker() {
+        return duplicateTracker;
+    }
+
+    public PlayerDataScanner getPlayerDataScanner() {
+        return playerDataScanner;
+    }
+
     public CooldownManager getCooldownManager() {
         return cooldownManager;
     }
@@ -132,4 +296,8 @@ public final class AmethystTools extends JavaPlugin {
     public EconomyIntegrationManager getEconomyIntegrationManager() {
         return economyIntegrationManager;
     }
+
+    public AmethystToolsAPI getApi() {
+        return apiService;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,61 @@
+package dev.pallux.amethysttools.api;
+
+import dev.pallux.amethysttools.models.ToolType;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.UUID;
+
+/**
+ * Public API of AmethystTools, registered with Bukkit's ServicesManager:
+ * <pre>
+ * AmethystToolsAPI api = Bukkit.getServicesManager().load(AmethystToolsAPI.class);
+ * </pre>
+ * Every method may be called from any thread. Registry data is served from immutable
+ * snapshots that are republished shortly after the registry changes.
+ */
+public interface AmethystToolsAPI {
+
+    /**
+     * Bumped whenever a method is added or changes meaning
+     */
+    int API_VERSION = 2;
+
+    /**
+     * @return The API version implemented by the running plugin
+     */
+    int getApiVersion();
+
+    /**
+     * @return The latest published snapshot of the tool registry, never null
+     */
+    ToolSnapshot getSnapshot();
+
+    /**
+     * @return The number of tools owned by a player, from the latest snapshot
+     */
+    int getToolCount(UUID playerUUID);
+
+    /**
+     * @return The number of registered tools of a type, from the latest snapshot
+     */
+    int getToolCount(ToolType toolType);
+
+    /**
+     * Identifies an Amethyst tool item by reading its data in place, without copying the item meta
+     * @return The tool, or null if the item is not an Amethyst tool or its data is forged.
+     * The owner is taken from the latest snapshot.
+     */
+    ToolInfo classify(ItemStack item);
+
+    /**
+     * @return The usage stats of a tool, or null if it was never used or no longer exists
+     * @since 2
+     */
+    ToolUsage getToolUsage(UUID toolUUID);
+
+    /**
+     * @return Everything a player did with tools, or null if they never used one
+     * @since 2
+     */
+    ToolUsage getPlayerUsage(UUID playerUUID);
+}
@@ -0,0 +1,92 @@
+package dev.pallux.amethysttools.api;
+
+import dev.pallux.amethysttools.AmethystTools;
+import dev.pallux.amethysttools.managers.ToolManager;
+import dev.pallux.amethysttools.managers.ToolStats;
+import dev.pallux.amethysttools.models.ToolHandle;
+import dev.pallux.amethysttools.models.ToolType;
+import dev.pallux.amethysttools.storage.ToolRegistry;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.UUID;
+
+/**
+ * Implementation of {@link AmethystToolsAPI}. A snapshot is published epoch-style: the main
+ * thread copies the registry into a new immutable {@link ToolSnapshot} when it has changed and
+ * swaps it in with a single volatile write, readers just load the reference.
+ */
+public class AmethystToolsService implements AmethystToolsAPI {
+
+    private final ToolManager toolManager;
+    private final ToolStats toolStats;
+    private volatile ToolSnapshot snapshot;
+    private long publishedModCount = -1;
+    private long publishedLifetime;
+
+    public AmethystToolsService(AmethystTools plugin) {
+        this.toolManager = plugin.getToolManager();
+        this.toolStats = plugin.getToolStats();
+        publish();
+    }
+
+    /**
+     * Publishes a new snapshot if the registry changed since the last one. Main thread only.
+     */
+    public void publish() {
+        ToolRegistry registry = toolManager.getRegistry();
+        long modCount = registry.getModCount();
+        long lifetime = toolManager.getLifetimeMillis();
+        if (modCount == publishedModCount && lifetime == publishedLifetime) return;
+
+        ToolSnapshot previous = snapshot;
+        snapshot = ToolSnapshot.capture(registry, lifetime, previous != null ? previous.getEpoch() + 1 : 1);
+        publishedModCount = modCount;
+        publishedLifetime = lifetime;
+    }
+
+    @Override
+    public int getApiVersion() {
+        return API_VERSION;
+    }
+
+    @Override
+    public ToolSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    @Override
+    public int getToolCount(UUID playerUUID) {
+        return snapshot.countOwnedBy(playerUUID);
+    }
+
+    @Override
+    public int getToolCount(ToolType toolType) {
+        return snapshot.count(toolType);
+    }
+
+    @Override
+    public ToolInfo classify(ItemStack item) {
+        // readTool reads the data container view in place and never clones the meta. Off the main
+        // thread the snapshot stands in for the registry to vouch for unsigned tools
+        ToolSnapshot current = snapshot;
+        ToolHandle handle = toolManager.readTool(item, current::contains);
+        if (handle == null || handle.isForged() || handle.getToolUUID() == null) return null;
+
+        ToolInfo registered = current.getTool(handle.getToolUUID());
+        return new ToolInfo(handle.getToolUUID(), handle.getToolType(), handle.getCreationTime(),
+                handle.getCreationTime() + toolManager.getLifetimeMillis(),
+                registered != null ? registered.ownerUUID() : null);
+    }
+
+    @Override
+    public ToolUsage getToolUsage(UUID toolUUID) {
+        long[] stats = toolStats.getToolStats(toolUUID);
+        return stats != null ? ToolUsage.of(stats) : null;
+    }
+
+    @Override
+    public ToolUsage getPlayerUsage(UUID playerUUID) {
+        long[] stats = toolStats.getPlayerStats(playerUUID);
+        return stats != null ? ToolUsage.of(stats) : null;
+    }
+}
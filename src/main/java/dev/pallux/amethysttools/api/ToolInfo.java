@@ -0,0 +1,14 @@
+package dev.pallux.amethysttools.api;
+
+import dev.pallux.amethysttools.models.ToolType;
+
+import java.util.UUID;
+
+/**
+ * Immutable description of a tool, safe to keep and pass between threads
+ * @param creationTime When the tool was created (ms)
+ * @param expiresAt When the tool self-destructs (ms)
+ * @param ownerUUID The owner, or null if the tool has none yet
+ */
+public record ToolInfo(UUID toolUUID, ToolType toolType, long creationTime, long expiresAt, UUID ownerUUID) {
+}
@@ -0,0 +1,235 @@
+package dev.pallux.amethysttools.api;
+
+import dev.pallux.amethysttools.models.ToolType;
+import dev.pallux.amethysttools.storage.ToolRegistry;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Immutable copy of the tool registry at one point in time. Snapshots are never modified
+ * after they are published, so any number of threads can read them without locking.
+ * The columns and the owner index are built as primitive arrays, nothing is allocated per tool,
+ * and {@link ToolInfo}s are only created on access.
+ */
+public final class ToolSnapshot {
+
+    private static final ToolType[] TYPES = ToolType.values();
+
+    private final long epoch;
+    private final long timestamp;
+    private final long lifetimeMillis;
+    private final int size;
+    private final long[] toolMost;
+    private final long[] toolLeast;
+    private final long[] ownerMost;
+    private final long[] ownerLeast;
+    private final long[] creationTimes;
+    private final byte[] types;
+    // Open addressing table of slot + 1, 0 marks an empty bucket
+    private final int[] index;
+    // Owners as groups: an open addressing table of group + 1 by owner, and the slots of
+    // group g in ownedSlots from groupStart[g] until groupStart[g + 1]
+    private final int[] ownerIndex;
+    private final long[] groupMost;
+    private final long[] groupLeast;
+    private final int[] groupStart;
+    private final int[] ownedSlots;
+    private int groups;
+    private final int[] countsByType;
+
+    private ToolSnapshot(long epoch, long timestamp, long lifetimeMillis, int size) {
+        this.epoch = epoch;
+        this.timestamp = timestamp;
+        this.lifetimeMillis = lifetimeMillis;
+        this.size = size;
+        this.toolMost = new long[size];
+        this.toolLeast = new long[size];
+        this.ownerMost = new long[size];
+        this.ownerLeast = new long[size];
+        this.creationTimes = new long[size];
+        this.types = new byte[size];
+        this.index = new int[Integer.highestOneBit(Math.max(8, size * 2 - 1)) << 1];
+        this.ownerIndex = new int[index.length];
+        this.groupMost = new long[size];
+        this.groupLeast = new long[size];
+        this.groupStart = new int[size + 1];
+        this.ownedSlots = new int[size];
+        this.countsByType = new int[TYPES.length];
+    }
+
+    /**
+     * Copies a registry. Must run on the thread that owns the registry.
+     */
+    static ToolSnapshot capture(ToolRegistry registry, long lifetimeMillis, long epoch) {
+        int size = registry.size();
+        ToolSnapshot snapshot = new ToolSnapshot(epoch, System.currentTimeMillis(), lifetimeMillis, size);
+        int[] groupOf = new int[size];
+
+        for (int slot = 0; slot < size; slot++) {
+            snapshot.toolMost[slot] = registry.getToolMost(slot);
+            snapshot.toolLeast[slot] = registry.getToolLeast(slot);
+            snapshot.ownerMost[slot] = registry.getOwnerMost(slot);
+            snapshot.ownerLeast[slot] = registry.getOwnerLeast(slot);
+            snapshot.creationTimes[slot] = registry.getCreationTime(slot);
+            int ordinal = registry.getTypeOrdinal(slot);
+            snapshot.types[slot] = (byte) ordinal;
+            if (ordinal >= 0 && ordinal < TYPES.length) {
+                snapshot.countsByType[ordinal]++;
+            }
+            snapshot.insert(slot);
+
+            groupOf[slot] = snapshot.ownerMost[slot] != 0L || snapshot.ownerLeast[slot] != 0L
+                    ? snapshot.group(snapshot.ownerMost[slot], snapshot.ownerLeast[slot])
+                    : -1;
+            if (groupOf[slot] >= 0) {
+                snapshot.groupStart[groupOf[slot] + 1]++;
+            }
+        }
+
+        // Counts to offsets, then place each owned slot in its group, in slot order
+        for (int group = 0; group < snapshot.groups; group++) {
+            snapshot.groupStart[group + 1] += snapshot.groupStart[group];
+        }
+        int[] fill = Arrays.copyOf(snapshot.groupStart, snapshot.groups);
+        for (int slot = 0; slot < size; slot++) {
+            if (groupOf[slot] >= 0) {
+                snapshot.ownedSlots[fill[groupOf[slot]]++] = slot;
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * @return Increases with every published snapshot, equal epochs mean identical contents
+     */
+    public long getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * @return When this snapshot was taken (ms)
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Whether the tool was registered when the snapshot was taken
+     */
+    public boolean contains(UUID toolUUID) {
+        return slotOf(toolUUID.getMostSignificantBits(), toolUUID.getLeastSignificantBits()) >= 0;
+    }
+
+    /**
+     * @return The tool, or null if it was not registered when the snapshot was taken
+     */
+    public ToolInfo getTool(UUID toolUUID) {
+        int slot = slotOf(toolUUID.getMostSignificantBits(), toolUUID.getLeastSignificantBits());
+        return slot >= 0 ? info(slot) : null;
+    }
+
+    /**
+     * @return Every tool, as an unmodifiable list that creates entries on access
+     */
+    public List<ToolInfo> getTools() {
+        return new AbstractList<>() {
+            @Override
+            public ToolInfo get(int slot) {
+                if (slot < 0 || slot >= size) throw new IndexOutOfBoundsException(slot);
+                return info(slot);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    public List<ToolInfo> getToolsOwnedBy(UUID playerUUID) {
+        int group = findGroup(playerUUID.getMostSignificantBits(), playerUUID.getLeastSignificantBits());
+        if (group < 0) return Collections.emptyList();
+
+        List<ToolInfo> tools = new ArrayList<>(groupStart[group + 1] - groupStart[group]);
+        for (int i = groupStart[group]; i < groupStart[group + 1]; i++) {
+            tools.add(info(ownedSlots[i]));
+        }
+        return Collections.unmodifiableList(tools);
+    }
+
+    public int countOwnedBy(UUID playerUUID) {
+        int group = findGroup(playerUUID.getMostSignificantBits(), playerUUID.getLeastSignificantBits());
+        return group >= 0 ? groupStart[group + 1] - groupStart[group] : 0;
+    }
+
+    public int count(ToolType toolType) {
+        return countsByType[toolType.ordinal()];
+    }
+
+    private ToolInfo info(int slot) {
+        int ordinal = types[slot];
+        boolean owned = ownerMost[slot] != 0L || ownerLeast[slot] != 0L;
+        return new ToolInfo(new UUID(toolMost[slot], toolLeast[slot]),
+                ordinal >= 0 && ordinal < TYPES.length ? TYPES[ordinal] : null,
+                creationTimes[slot], creationTimes[slot] + lifetimeMillis,
+                owned ? new UUID(ownerMost[slot], ownerLeast[slot]) : null);
+    }
+
+    private void insert(int slot) {
+        int mask = index.length - 1;
+        int bucket = hash(toolMost[slot], toolLeast[slot]) & mask;
+        while (index[bucket] != 0) {
+            bucket = (bucket + 1) & mask;
+        }
+        index[bucket] = slot + 1;
+    }
+
+    /**
+     * @return The group of an owner, added if it is new
+     */
+    private int group(long most, long least) {
+        int mask = ownerIndex.length - 1;
+        int bucket = hash(most, least) & mask;
+        for (; ownerIndex[bucket] != 0; bucket = (bucket + 1) & mask) {
+            int group = ownerIndex[bucket] - 1;
+            if (groupMost[group] == most && groupLeast[group] == least) return group;
+        }
+        int group = groups++;
+        groupMost[group] = most;
+        groupLeast[group] = least;
+        ownerIndex[bucket] = group + 1;
+        return group;
+    }
+
+    private int findGroup(long most, long least) {
+        int mask = ownerIndex.length - 1;
+        for (int bucket = hash(most, least) & mask; ownerIndex[bucket] != 0; bucket = (bucket + 1) & mask) {
+            int group = ownerIndex[bucket] - 1;
+            if (groupMost[group] == most && groupLeast[group] == least) return group;
+        }
+        return -1;
+    }
+
+    private int slotOf(long most, long least) {
+        int mask = index.length - 1;
+        for (int bucket = hash(most, least) & mask; index[bucket] != 0; bucket = (bucket + 1) & mask) {
+            int slot = index[bucket] - 1;
+            if (toolMost[slot] == most && toolLeast[slot] == least) return slot;
+        }
+        return -1;
+    }
+
+    private static int hash(long most, long least) {
+        long hash = (most ^ Long.rotateLeft(least, 32)) * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32);
+    }
+}
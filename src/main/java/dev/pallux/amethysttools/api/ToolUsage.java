@@ -0,0 +1,17 @@
+package dev.pallux.amethysttools.api;
+
+import dev.pallux.amethysttools.models.ToolStat;
+
+/**
+ * Usage stats of a tool or player at the time they were read
+ * @param moneyEarned Money earned with Sell Axes, in the server currency
+ */
+public record ToolUsage(long uses, long blocksBroken, long treesFelled, long fluidDrained, long itemsSold,
+                        double moneyEarned) {
+
+    static ToolUsage of(long[] stats) {
+        return new ToolUsage(stats[ToolStat.USES.ordinal()], stats[ToolStat.BLOCKS_BROKEN.ordinal()],
+                stats[ToolStat.TREES_FELLED.ordinal()], stats[ToolStat.FLUID_DRAINED.ordinal()],
+                stats[ToolStat.ITEMS_SOLD.ordinal()], stats[ToolStat.MONEY_EARNED.ordinal()] / 100.0);
+    }
+}
@@ -0,0 +1,73 @@
+package dev.pallux.amethysttools.api.event;
+
+import dev.pallux.amethysttools.models.ToolType;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.player.PlayerEvent;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.UUID;
+
+/**
+ * Called before an Amethyst tool uses its ability. Cancelling it stops the ability,
+ * the vanilla action underneath (e.g. breaking the clicked block) is left alone.
+ * Only called when something listens for it.
+ */
+public class AmethystToolUseEvent extends PlayerEvent implements Cancellable {
+
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    private final ToolType toolType;
+    private final UUID toolUUID;
+    private final ItemStack tool;
+    private boolean cancelled;
+
+    public AmethystToolUseEvent(Player player, ToolType toolType, UUID toolUUID, ItemStack tool) {
+        super(player);
+        this.toolType = toolType;
+        this.toolUUID = toolUUID;
+        this.tool = tool;
+    }
+
+    public ToolType getToolType() {
+        return toolType;
+    }
+
+    public UUID getToolUUID() {
+        return toolUUID;
+    }
+
+    /**
+     * @return The tool item itself, not a copy
+     */
+    public ItemStack getTool() {
+        return tool;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public void setCancelled(boolean cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    /**
+     * @return true if any plugin listens for this event, checked before building one
+     */
+    public static boolean hasListeners() {
+        return HANDLERS.getRegisteredListeners().length > 0;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+}
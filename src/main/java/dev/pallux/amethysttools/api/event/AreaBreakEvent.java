@@ -0,0 +1,150 @@
+package dev.pallux.amethysttools.api.event;
+
+import dev.pallux.amethysttools.models.ToolType;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.player.PlayerEvent;
+
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+/**
+ * Called once for a whole area ability (tree chopping, 3x3x3 mining, water draining) before
+ * any block is changed, instead of one event per block. The blocks are passed as packed
+ * positions, see {@link #pack(int, int, int)}. Listeners may remove positions with
+ * {@link #removeIf(LongPredicate)}, cancelling stops the whole ability.
+ * Only called when something listens for it.
+ */
+public class AreaBreakEvent extends PlayerEvent implements Cancellable {
+
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    // Same layout as Minecraft's block positions: 26 bits x, 26 bits z, 12 bits y
+    private static final int XZ_BITS = 26;
+    private static final int Y_BITS = 12;
+    private static final long XZ_MASK = (1L << XZ_BITS) - 1;
+    private static final long Y_MASK = (1L << Y_BITS) - 1;
+
+    private final ToolType toolType;
+    private final World world;
+    private final Block origin;
+    private long[] positions;
+    private int size;
+    private boolean cancelled;
+
+    /**
+     * @param positions Packed positions, owned by the event from now on
+     */
+    public AreaBreakEvent(Player player, ToolType toolType, Block origin, long[] positions, int size) {
+        super(player);
+        this.toolType = toolType;
+        this.world = origin.getWorld();
+        this.origin = origin;
+        this.positions = positions;
+        this.size = size;
+    }
+
+    public ToolType getToolType() {
+        return toolType;
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    /**
+     * @return The block the player clicked or broke
+     */
+    public Block getOrigin() {
+        return origin;
+    }
+
+    public int getBlockCount() {
+        return size;
+    }
+
+    /**
+     * @return The packed position at an index
+     */
+    public long getPosition(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index);
+        return positions[index];
+    }
+
+    /**
+     * @return A copy of the packed positions
+     */
+    public long[] getPositions() {
+        return Arrays.copyOf(positions, size);
+    }
+
+    public Block getBlock(int index) {
+        long position = getPosition(index);
+        return world.getBlockAt(unpackX(position), unpackY(position), unpackZ(position));
+    }
+
+    /**
+     * Removes every position matching the filter, e.g. blocks inside a protected region
+     * @return The number of positions removed
+     */
+    public int removeIf(LongPredicate filter) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (!filter.test(positions[i])) {
+                positions[kept++] = positions[i];
+            }
+        }
+        int removed = size - kept;
+        size = kept;
+        return removed;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public void setCancelled(boolean cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    public static long pack(int x, int y, int z) {
+        return ((x & XZ_MASK) << (XZ_BITS + Y_BITS)) | ((z & XZ_MASK) << Y_BITS) | (y & Y_MASK);
+    }
+
+    public static long pack(Block block) {
+        return pack(block.getX(), block.getY(), block.getZ());
+    }
+
+    public static int unpackX(long position) {
+        return (int) (position >> (XZ_BITS + Y_BITS));
+    }
+
+    public static int unpackY(long position) {
+        return (int) (position << (64 - Y_BITS) >> (64 - Y_BITS));
+    }
+
+    public static int unpackZ(long position) {
+        return (int) (position << (64 - XZ_BITS - Y_BITS) >> (64 - XZ_BITS));
+    }
+
+    /**
+     * @return true if any plugin listens for this event, checked before building one
+     */
+    public static boolean hasListeners() {
+        return HANDLERS.getRegisteredListeners().length > 0;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+}
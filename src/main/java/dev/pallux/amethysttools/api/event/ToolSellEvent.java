@@ -0,0 +1,74 @@
+package dev.pallux.amethysttools.api.event;
+
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.player.PlayerEvent;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Called before a Sell Axe sells the contents of a container. The value paid out can be
+ * changed, cancelling leaves the container untouched. Only called when something listens for it.
+ */
+public class ToolSellEvent extends PlayerEvent implements Cancellable {
+
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    private final Block container;
+    private final ItemStack[] contents;
+    private double value;
+    private boolean cancelled;
+
+    public ToolSellEvent(Player player, Block container, ItemStack[] contents, double value) {
+        super(player);
+        this.container = container;
+        this.contents = contents;
+        this.value = value;
+    }
+
+    public Block getContainer() {
+        return container;
+    }
+
+    /**
+     * @return The container contents being sold, slots may be null. Do not modify.
+     */
+    public ItemStack[] getContents() {
+        return contents;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    public void setValue(double value) {
+        this.value = Math.max(0, value);
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public void setCancelled(boolean cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    /**
+     * @return true if any plugin listens for this event, checked before building one
+     */
+    public static boolean hasListeners() {
+        return HANDLERS.getRegisteredListeners().length > 0;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+}
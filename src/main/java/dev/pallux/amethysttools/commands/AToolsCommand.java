@@ -1,29 +1,41 @@
 package dev.pallux.amethysttools.commands;
 
 import dev.pallux.amethysttools.AmethystTools;
+import dev.pallux.amethysttools.managers.DeliveryManager;
 import dev.pallux.amethysttools.managers.MessageManager;
 import dev.pallux.amethysttools.managers.ToolManager;
-import dev.pallux.amethysttools.models.ToolType;
+import dev.pallux.amethysttools.managers.ToolStats;
+import dev.pallux.amethysttools.models.AmethystTool;
+import dev.pallux.amethysttools.models.ToolDefinition;
+import dev.pallux.amethysttools.storage.AuditLog;
 import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
 import org.bukkit.entity.Player;
-import org.bukkit.inventory.ItemStack;
 
 import java.util.*;
+import java.util.logging.Level;
 
 public class AToolsCommand implements CommandExecutor, TabCompleter {
 
     private final AmethystTools plugin;
     private final MessageManager messageManager;
     private final ToolManager toolManager;
+    private final DeliveryManager deliveryManager;
+
+    // Upper bound for the optional amount argument of /atools give
+    private static final int MAX_GIVE_AMOUNT = 64;
+    // Number of events shown by /atools history
+    private static final int HISTORY_LIMIT = 10;
 
     public AToolsCommand(AmethystTools plugin) {
         this.plugin = plugin;
         this.messageManager = plugin.getMessageManager();
         this.toolManager = plugin.getToolManager();
+        this.deliveryManager = plugin.getDeliveryManager();
     }
 
     @Override
@@ -39,6 +51,9 @@ public class AToolsCommand implements CommandExecutor, TabCompleter {
             case "give" -> handleGiveCommand(sender, args);
             case "reload" -> handleReloadCommand(sender);
             case "destroy" -> handleDestroyCommand(sender, args);
+            case "scan" -> handleScanCommand(sender);
+            case "history" -> handleHistoryCommand(sender, args);
+            case "stats" -> handleStatsCommand(sender, args);
             case "help" -> messageManager.sendHelp(sender);
             default -> messageManager.sendHelp(sender);
         }
@@ -57,41 +72,127 @@ public class AToolsCommand implements CommandExecutor, TabCompleter {
             return;
         }
 
-        String playerName = args[1];
+        String targetArg = args[1];
         String itemName = args[2].toLowerCase().replace("_", "-");
 
-        Player target = Bukkit.getPlayer(playerName);
-        if (target == null) {
-            messageManager.sendPlayerNotFound(sender);
-            return;
-        }
-
-        ToolType toolType = getToolTypeFromString(itemName);
-        if (toolType == null) {
+        ToolDefinition tool = getToolFromString(itemName);
+        if (tool == null) {
             messageManager.sendInvalidItem(sender);
             return;
         }
 
-        if (!plugin.getConfigManager().isToolEnabled(toolType.getConfigName())) {
+        if (!tool.enabled()) {
             messageManager.sendMessage(sender, "general.invalid-item");
             return;
         }
 
-        // Check if player's inventory has space
-        if (target.getInventory().firstEmpty() == -1) {
-            messageManager.sendInventoryFull(sender, target.getName());
+        int amount = 1;
+        if (args.length >= 4) {
+            try {
+                amount = Math.max(1, Math.min(MAX_GIVE_AMOUNT, Integer.parseInt(args[3])));
+            } catch (NumberFormatException e) {
+                messageManager.sendMessage(sender, "commands.help.give");
+                return;
+            }
+        }
+
+        Map<UUID, String> recipients = resolveRecipients(targetArg);
+        if (recipients.isEmpty()) {
+            messageManager.sendPlayerNotFound(sender);
             return;
         }
 
-        ItemStack tool = toolManager.createTool(toolType);
-        target.getInventory().addItem(tool);
+        // Apply the per-player tool limit before anything is created
+        int maxTools = plugin.getConfigManager().getMaxToolsPerPlayer();
+        List<UUID> owners = new ArrayList<>();
+        int limited = 0;
+        for (Map.Entry<UUID, String> recipient : recipients.entrySet()) {
+            int allowed = amount;
+            if (maxTools > 0) {
+                // Queued tools are already registered to their owner and count here too
+                allowed = Math.min(amount, maxTools - toolManager.getToolCount(recipient.getKey()));
+            }
+            if (allowed <= 0) {
+                limited++;
+                if (recipients.size() == 1) {
+                    messageManager.sendToolLimitReached(sender, recipient.getValue(), maxTools);
+                    return;
+                }
+                continue;
+            }
+            for (int i = 0; i < allowed; i++) {
+                owners.add(recipient.getKey());
+            }
+        }
 
-        // Assign tool to player
-        toolManager.assignToolToPlayer(tool, target);
+        List<AmethystTool> issued = toolManager.issueTools(tool, owners);
+        int queued = deliveryManager.deliver(issued);
 
-        String toolDisplayName = messageManager.getItemName(toolType.getConfigName());
-        messageManager.sendGiveSuccess(sender, toolDisplayName, target.getName());
-        messageManager.sendItemReceived(target, toolDisplayName);
+        String toolDisplayName = messageManager.getItemName(tool.key());
+        if (recipients.size() == 1) {
+            String playerName = recipients.values().iterator().next();
+            if (queued == 0) {
+                messageManager.sendGiveSuccess(sender, toolDisplayName, playerName);
+            } else {
+                messageManager.sendGiveQueued(sender, toolDisplayName, playerName);
+            }
+        } else {
+            messageManager.sendBatchGiveSuccess(sender, toolDisplayName, issued.size(),
+                    recipients.size() - limited, queued, limited);
+        }
+    }
+
+    /**
+     * Resolves a give target: "*" for all online players, "group:<name>" for online players
+     * with the group.<name> permission, or a comma separated list of player names and UUIDs.
+     * Names of offline players resolve through the server's profile cache.
+     * @return Recipient UUIDs mapped to a display name, in a stable order
+     */
+    private Map<UUID, String> resolveRecipients(String targetArg) {
+        Map<UUID, String> recipients = new LinkedHashMap<>();
+
+        if (targetArg.equals("*")) {
+            for (Player player : Bukkit.getOnlinePlayers()) {
+                recipients.put(player.getUniqueId(), player.getName());
+            }
+            return recipients;
+        }
+
+        if (targetArg.toLowerCase().startsWith("group:")) {
+            String permission = "group." + targetArg.substring("group:".length()).toLowerCase();
+            for (Player player : Bukkit.getOnlinePlayers()) {
+                if (player.hasPermission(permission)) {
+                    recipients.put(player.getUniqueId(), player.getName());
+                }
+            }
+            return recipients;
+        }
+
+        for (String target : targetArg.split(",")) {
+            if (target.isEmpty()) continue;
+
+            Player online = Bukkit.getPlayerExact(target);
+            if (online != null) {
+                recipients.put(online.getUniqueId(), online.getName());
+                continue;
+            }
+
+            try {
+                UUID uuid = UUID.fromString(target);
+                OfflinePlayer offline = Bukkit.getOfflinePlayer(uuid);
+                recipients.put(uuid, offline.getName() != null ? offline.getName() : target);
+                continue;
+            } catch (IllegalArgumentException ignored) {
+                // Not a UUID, try the profile cache
+            }
+
+            OfflinePlayer cached = Bukkit.getOfflinePlayerIfCached(target);
+            if (cached != null) {
+                recipients.put(cached.getUniqueId(), cached.getName() != null ? cached.getName() : target);
+            }
+        }
+
+        return recipients;
     }
 
     private void handleReloadCommand(CommandSender sender) {
@@ -134,16 +235,105 @@ public class AToolsCommand implements CommandExecutor, TabCompleter {
         messageManager.sendDestroySuccess(sender, uuidString);
     }
 
-    private ToolType getToolTypeFromString(String input) {
-        return switch (input) {
-            case "tree-chopper", "treechopper", "axe" -> ToolType.TREE_CHOPPER;
-            case "sell-axe", "sellaxe", "sell" -> ToolType.SELL_AXE;
-            case "pickaxe", "pick" -> ToolType.PICKAXE;
-            case "bucket" -> ToolType.BUCKET;
-            case "torch" -> ToolType.TORCH;
-            case "rocket" -> ToolType.ROCKET;
-            default -> null;
+    private void handleScanCommand(CommandSender sender) {
+        if (!sender.hasPermission("atools.scan") && !sender.hasPermission("atools.op")) {
+            messageManager.sendNoPermission(sender);
+            return;
+        }
+
+        if (!plugin.getPlayerDataScanner().start(sender)) {
+            messageManager.sendMessage(sender, "commands.scan.already-running");
+        }
+    }
+
+    private void handleHistoryCommand(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("atools.history") && !sender.hasPermission("atools.op")) {
+            messageManager.sendNoPermission(sender);
+            return;
+        }
+
+        if (args.length < 2) {
+            messageManager.sendMessage(sender, "commands.help.history");
+            return;
+        }
+
+        AuditLog auditLog = plugin.getAuditLog();
+        if (!auditLog.isOpen()) {
+            messageManager.sendMessage(sender, "commands.history.disabled");
+            return;
+        }
+
+        // Either a tool UUID, a player UUID or the name of a player who has joined before
+        UUID target;
+        String targetName = args[1];
+        try {
+            target = UUID.fromString(args[1]);
+        } catch (IllegalArgumentException e) {
+            OfflinePlayer player = Bukkit.getOfflinePlayerIfCached(args[1]);
+            if (player == null) {
+                messageManager.sendPlayerNotFound(sender);
+                return;
+            }
+            target = player.getUniqueId();
+            targetName = player.getName() != null ? player.getName() : args[1];
+        }
+
+        String name = targetName;
+        auditLog.query(target, HISTORY_LIMIT).whenComplete((events, error) -> {
+            if (!plugin.isEnabled()) return;
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                if (error != null) {
+                    plugin.getLogger().log(Level.WARNING, "Could not search the audit log", error);
+                    messageManager.sendHistory(sender, name, List.of());
+                    return;
+                }
+                messageManager.sendHistory(sender, name, events);
+            });
+        });
+    }
+
+    private void handleStatsCommand(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("atools.stats") && !sender.hasPermission("atools.op")) {
+            messageManager.sendNoPermission(sender);
+            return;
+        }
+
+        if (args.length < 2) {
+            messageManager.sendMessage(sender, "commands.help.stats");
+            return;
+        }
+
+        // Either a tool UUID, a player UUID or the name of a player who has joined before
+        ToolStats toolStats = plugin.getToolStats();
+        long[] stats;
+        String targetName = args[1];
+        try {
+            UUID target = UUID.fromString(args[1]);
+            stats = toolStats.getToolStats(target);
+            if (stats == null) {
+                stats = toolStats.getPlayerStats(target);
+            }
+        } catch (IllegalArgumentException e) {
+            OfflinePlayer player = Bukkit.getOfflinePlayerIfCached(args[1]);
+            if (player == null) {
+                messageManager.sendPlayerNotFound(sender);
+                return;
+            }
+            stats = toolStats.getPlayerStats(player.getUniqueId());
+            targetName = player.getName() != null ? player.getName() : args[1];
+        }
+
+        messageManager.sendStats(sender, targetName, stats);
+    }
+
+    private ToolDefinition getToolFromString(String input) {
+        String key = switch (input) {
+            case "treechopper", "axe" -> "tree-chopper";
+            case "sellaxe", "sell" -> "sell-axe";
+            case "pick" -> "pickaxe";
+            default -> input;
         };
+        return toolManager.getDefinitions().get(key);
     }
 
     @Override
@@ -152,7 +342,7 @@ public class AToolsCommand implements CommandExecutor, TabCompleter {
 
         if (args.length == 1) {
             // First argument - subcommands
-            List<String> subCommands = Arrays.asList("give", "reload", "destroy", "help");
+            List<String> subCommands = Arrays.asList("give", "reload", "destroy", "scan", "history", "stats", "help");
             for (String subCommand : subCommands) {
                 if (subCommand.toLowerCase().startsWith(args[0].toLowerCase())) {
                     if (hasPermissionForSubCommand(sender, subCommand)) {
@@ -164,7 +354,16 @@ public class AToolsCommand implements CommandExecutor, TabCompleter {
             String subCommand = args[0].toLowerCase();
 
             if ("give".equals(subCommand)) {
-                // Second argument for give - player names
+                // Second argument for give - player names or a batch target
+                if ("*".startsWith(args[1])) {
+                    completions.add("*");
+                }
+                for (Player player : Bukkit.getOnlinePlayers()) {
+                    if (player.getName().toLowerCase().startsWith(args[1].toLowerCase())) {
+                        completions.add(player.getName());
+                    }
+                }
+            } else if ("history".equals(subCommand) || "stats".equals(subCommand)) {
                 for (Player player : Bukkit.getOnlinePlayers()) {
                     if (player.getName().toLowerCase().startsWith(args[1].toLowerCase())) {
                         completions.add(player.getName());
@@ -174,18 +373,13 @@ public class AToolsCommand implements CommandExecutor, TabCompleter {
                 // Second argument for destroy - UUIDs (we could show active tool UUIDs if needed)
                 completions.add("<uuid>");
             }
+        } else if (args.length == 4 && "give".equals(args[0].toLowerCase())) {
+            completions.add("<amount>");
         } else if (args.length == 3 && "give".equals(args[0].toLowerCase())) {
             // Third argument for give - item types
-            List<String> items = Arrays.asList(
-                    "tree-chopper", "sell-axe", "pickaxe",
-                    "bucket", "torch", "rocket"
-            );
-            for (String item : items) {
-                if (item.toLowerCase().startsWith(args[2].toLowerCase())) {
-                    ToolType toolType = getToolTypeFromString(item);
-                    if (toolType != null && plugin.getConfigManager().isToolEnabled(toolType.getConfigName())) {
-                        completions.add(item);
-                    }
+            for (ToolDefinition tool : toolManager.getDefinitions().getAll()) {
+                if (tool.enabled() && tool.key().startsWith(args[2].toLowerCase())) {
+                    completions.add(tool.key());
                 }
             }
         }
@@ -199,6 +393,9 @@ public class AToolsCommand implements CommandExecutor, TabCompleter {
             case "give" -> sender.hasPermission("atools.give") || sender.hasPermission("atools.op");
             case "reload" -> sender.hasPermission("atools.reload") || sender.hasPermission("atools.op");
             case "destroy" -> sender.hasPermission("atools.destroy") || sender.hasPermission("atools.op");
+            case "scan" -> sender.hasPermission("atools.scan") || sender.hasPermission("atools.op");
+            case "history" -> sender.hasPermission("atools.history") || sender.hasPermission("atools.op");
+            case "stats" -> sender.hasPermission("atools.stats") || sender.hasPermission("atools.op");
             case "help" -> true; // Help is available to everyone
             default -> false;
         };
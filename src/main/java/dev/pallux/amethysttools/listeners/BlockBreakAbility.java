@@ -0,0 +1,16 @@
+package dev.pallux.amethysttools.listeners;
+
+import dev.pallux.amethysttools.models.ToolDefinition;
+import dev.pallux.amethysttools.models.ToolHandle;
+import org.bukkit.entity.Player;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * An ability triggered by breaking a block, called by {@link ToolEventRouter} with the
+ * tool in the player's main hand already decoded and checked for revocation
+ */
+interface BlockBreakAbility {
+
+    void onBlockBreak(BlockBreakEvent event, Player player, ItemStack item, ToolHandle handle, ToolDefinition tool);
+}
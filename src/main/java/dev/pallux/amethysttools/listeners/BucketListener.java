@@ -4,20 +4,22 @@ import dev.pallux.amethysttools.AmethystTools;
 import dev.pallux.amethysttools.managers.ConfigManager;
 import dev.pallux.amethysttools.managers.MessageManager;
 import dev.pallux.amethysttools.managers.ToolManager;
-import dev.pallux.amethysttools.models.ToolType;
+import dev.pallux.amethysttools.models.ToolDefinition;
+import dev.pallux.amethysttools.models.ToolHandle;
+import dev.pallux.amethysttools.models.ToolStat;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.EventPriority;
-import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.inventory.ItemStack;
 
 import java.util.*;
 
-public class BucketListener implements Listener {
+/**
+ * Flood drain ability (Bucket), dispatched by {@link ToolEventRouter}
+ */
+public class BucketListener implements InteractAbility {
 
     private final AmethystTools plugin;
     private final ToolManager toolManager;
@@ -31,29 +33,24 @@ public class BucketListener implements Listener {
         this.configManager = plugin.getConfigManager();
     }
 
-    @EventHandler(priority = EventPriority.NORMAL)
-    public void onPlayerInteract(PlayerInteractEvent event) {
-        Player player = event.getPlayer();
-        ItemStack item = event.getItem();
-
-        if (item == null) return;
-
-        // Check if it's an Amethyst Bucket
-        if (!toolManager.isAmethystTool(item) ||
-                toolManager.getToolType(item) != ToolType.BUCKET) {
-            return;
-        }
-
+    @Override
+    public void onPlayerInteract(PlayerInteractEvent event, Player player, ItemStack item, ToolHandle handle, ToolDefinition tool) {
         Block clickedBlock = event.getClickedBlock();
         if (clickedBlock == null) return;
 
         // Only work on right-click
-        if (!event.getAction().toString().contains("RIGHT_CLICK")) {
+        if (!event.getAction().isRightClick()) {
+            return;
+        }
+
+        // Check if clicking on the fluid this bucket drains
+        Material fluid = tool.fluid();
+        if (clickedBlock.getType() != fluid) {
             return;
         }
 
-        // Check if clicking on water
-        if (clickedBlock.getType() != Material.WATER) {
+        // Let other plugins veto the use
+        if (!ToolEvents.callUse(player, handle, item)) {
             return;
         }
 
@@ -61,8 +58,8 @@ public class BucketListener implements Listener {
         event.setCancelled(true);
 
         // Find water blocks to drain
-        Set<Block> waterBlocks = findWaterBlocks(clickedBlock);
-        int drainAmount = configManager.getBucketDrainAmount();
+        Set<Block> waterBlocks = findWaterBlocks(clickedBlock, fluid, tool.amount());
+        int drainAmount = tool.amount();
 
         if (waterBlocks.isEmpty()) {
             Map<String, String> placeholders = new HashMap<>();
@@ -80,10 +77,16 @@ public class BucketListener implements Listener {
             blocksToRemove = blocksToRemove.subList(0, drainAmount);
         }
 
+        // Let other plugins protect parts of the water
+        Collection<Block> drained = ToolEvents.callAreaBreak(player, handle, clickedBlock, blocksToRemove);
+        if (drained == null) {
+            return;
+        }
+
         // Remove water blocks
         int removedCount = 0;
-        for (Block waterBlock : blocksToRemove) {
-            if (waterBlock.getType() == Material.WATER) {
+        for (Block waterBlock : drained) {
+            if (waterBlock.getType() == fluid) {
                 waterBlock.setType(Material.AIR);
                 removedCount++;
             }
@@ -91,6 +94,8 @@ public class BucketListener implements Listener {
 
         // Send success message
         if (removedCount > 0) {
+            toolManager.recordUse(player, handle, removedCount, ToolStat.FLUID_DRAINED, removedCount);
+
             Map<String, String> placeholders = new HashMap<>();
             placeholders.put("amount", String.valueOf(removedCount));
             messageManager.sendMessage(player, "tools.bucket.success", placeholders);
@@ -107,22 +112,22 @@ public class BucketListener implements Listener {
         }
     }
 
-    private Set<Block> findWaterBlocks(Block startBlock) {
+    private Set<Block> findWaterBlocks(Block startBlock, Material fluid, int drainAmount) {
         Set<Block> waterBlocks = new HashSet<>();
         Set<Block> visited = new HashSet<>();
         Queue<Block> queue = new LinkedList<>();
 
-        if (startBlock.getType() == Material.WATER) {
+        if (startBlock.getType() == fluid) {
             queue.add(startBlock);
             visited.add(startBlock);
         }
 
-        int maxBlocks = configManager.getBucketDrainAmount() * 3; // Search more than needed
+        int maxBlocks = drainAmount * 3; // Search more than needed
 
         while (!queue.isEmpty() && waterBlocks.size() < maxBlocks) {
             Block current = queue.poll();
 
-            if (current.getType() == Material.WATER) {
+            if (current.getType() == fluid) {
                 waterBlocks.add(current);
 
                 // Check all 6 adjacent blocks (not diagonal)
@@ -136,7 +141,7 @@ public class BucketListener implements Listener {
                 };
 
                 for (Block neighbor : adjacent) {
-                    if (!visited.contains(neighbor) && neighbor.getType() == Material.WATER) {
+                    if (!visited.contains(neighbor) && neighbor.getType() == fluid) {
                         visited.add(neighbor);
                         queue.add(neighbor);
                     }
@@ -148,7 +153,7 @@ public class BucketListener implements Listener {
                         if (x == 0 && z == 0) continue; // Skip center
 
                         Block diagonal = current.getRelative(x, 0, z);
-                        if (!visited.contains(diagonal) && diagonal.getType() == Material.WATER) {
+                        if (!visited.contains(diagonal) && diagonal.getType() == fluid) {
                             visited.add(diagonal);
                             queue.add(diagonal);
                         }
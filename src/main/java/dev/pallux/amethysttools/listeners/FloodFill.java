@@ -0,0 +1,179 @@
+package dev.pallux.amethysttools.listeners;
+
+import dev.pallux.amethysttools.api.event.AreaBreakEvent;
+import org.bukkit.Material;
+import org.bukkit.World;
+
+import java.util.Arrays;
+
+/**
+ * Breadth-first search state over packed block positions ({@link AreaBreakEvent#pack}), so no
+ * Block is created per probed position. The visited set, queue and results are plain arrays that
+ * are reused between searches: keep one instance per thread and {@link #reset} it before each use.
+ */
+final class FloodFill {
+
+    // x = -2^25 lies outside the world border, so no real position packs to this
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    // Open addressing set of visited positions
+    private long[] visited = filled(4096);
+    private int visitedCount;
+    // Ring buffer, head and tail only grow and are masked on access
+    private long[] queue = new long[1024];
+    private int head;
+    private int tail;
+    private long[] found = new long[256];
+    private int foundCount;
+
+    private World world;
+    private int minY;
+    private int maxY;
+    private int chunkX;
+    private int chunkZ;
+    private boolean chunkKnown;
+    private boolean chunkLoaded;
+
+    /**
+     * Starts a new search in a world, or releases the world when it is null
+     */
+    void reset(World world) {
+        clearVisited();
+        head = 0;
+        tail = 0;
+        foundCount = 0;
+        chunkKnown = false;
+        this.world = world;
+        if (world != null) {
+            minY = world.getMinHeight();
+            maxY = world.getMaxHeight();
+        }
+    }
+
+    /**
+     * Forgets the visited positions but keeps the results, to start another pass over them
+     */
+    void clearVisited() {
+        if (visitedCount > 0) {
+            Arrays.fill(visited, EMPTY);
+            visitedCount = 0;
+        }
+    }
+
+    /**
+     * Drops the positions still queued, for seeding another pass
+     */
+    void clearQueue() {
+        head = tail;
+    }
+
+    /**
+     * Marks a position as visited
+     * @return Whether it was not visited before
+     */
+    boolean visit(long position) {
+        if ((visitedCount + 1) * 2 > visited.length) {
+            growVisited();
+        }
+        int mask = visited.length - 1;
+        int slot = hash(position) & mask;
+        while (visited[slot] != EMPTY) {
+            if (visited[slot] == position) return false;
+            slot = (slot + 1) & mask;
+        }
+        visited[slot] = position;
+        visitedCount++;
+        return true;
+    }
+
+    void offer(long position) {
+        if (tail - head == queue.length) {
+            growQueue();
+        }
+        queue[tail++ & (queue.length - 1)] = position;
+    }
+
+    long poll() {
+        return queue[head++ & (queue.length - 1)];
+    }
+
+    /**
+     * @return The number of queued positions, which is the size of the current level when
+     * read before polling it
+     */
+    int queued() {
+        return tail - head;
+    }
+
+    void found(long position) {
+        if (foundCount == found.length) {
+            found = Arrays.copyOf(found, found.length * 2);
+        }
+        found[foundCount++] = position;
+    }
+
+    long found(int index) {
+        return found[index];
+    }
+
+    int foundCount() {
+        return foundCount;
+    }
+
+    /**
+     * Reads a block type without loading chunks, whether the chunk is loaded is only looked up
+     * once per chunk in a row of reads
+     * @return The type, or {@link Material#VOID_AIR} outside the world or in an unloaded chunk
+     */
+    Material typeAt(int x, int y, int z) {
+        if (y < minY || y >= maxY) return Material.VOID_AIR;
+
+        int cx = x >> 4;
+        int cz = z >> 4;
+        if (!chunkKnown || cx != chunkX || cz != chunkZ) {
+            chunkX = cx;
+            chunkZ = cz;
+            chunkKnown = true;
+            chunkLoaded = world.isChunkLoaded(cx, cz);
+        }
+        return chunkLoaded ? world.getType(x, y, z) : Material.VOID_AIR;
+    }
+
+    private void growVisited() {
+        long[] old = visited;
+        visited = filled(old.length * 2);
+        visitedCount = 0;
+        int mask = visited.length - 1;
+        for (long position : old) {
+            if (position == EMPTY) continue;
+            int slot = hash(position) & mask;
+            while (visited[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            visited[slot] = position;
+            visitedCount++;
+        }
+    }
+
+    private void growQueue() {
+        long[] grown = new long[queue.length * 2];
+        int size = tail - head;
+        for (int i = 0; i < size; i++) {
+            grown[i] = queue[(head + i) & (queue.length - 1)];
+        }
+        queue = grown;
+        head = 0;
+        tail = size;
+    }
+
+    private static long[] filled(int length) {
+        long[] array = new long[length];
+        Arrays.fill(array, EMPTY);
+        return array;
+    }
+
+    private static int hash(long position) {
+        long hash = position * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32);
+    }
+}
@@ -0,0 +1,16 @@
+package dev.pallux.amethysttools.listeners;
+
+import dev.pallux.amethysttools.models.ToolDefinition;
+import dev.pallux.amethysttools.models.ToolHandle;
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.PlayerInteractEvent;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * An ability triggered by clicking with the tool, called by {@link ToolEventRouter} with the
+ * used item already decoded and checked for revocation
+ */
+interface InteractAbility {
+
+    void onPlayerInteract(PlayerInteractEvent event, Player player, ItemStack item, ToolHandle handle, ToolDefinition tool);
+}
@@ -1,72 +1,75 @@
 package dev.pallux.amethysttools.listeners;
 
 import dev.pallux.amethysttools.AmethystTools;
-import dev.pallux.amethysttools.managers.ConfigManager;
+import dev.pallux.amethysttools.managers.MaterialTable;
 import dev.pallux.amethysttools.managers.MessageManager;
 import dev.pallux.amethysttools.managers.ToolManager;
-import dev.pallux.amethysttools.models.ToolType;
+import dev.pallux.amethysttools.models.ToolDefinition;
+import dev.pallux.amethysttools.models.ToolHandle;
+import dev.pallux.amethysttools.models.ToolStat;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.block.Block;
 import org.bukkit.enchantments.Enchantment;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.EventPriority;
-import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockBreakEvent;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 
 import java.util.*;
 
-public class PickaxeListener implements Listener {
+/**
+ * Area break ability (Pickaxe), dispatched by {@link ToolEventRouter}
+ */
+public class PickaxeListener implements BlockBreakAbility {
 
     private final AmethystTools plugin;
     private final ToolManager toolManager;
     private final MessageManager messageManager;
-    private final ConfigManager configManager;
+    private final MaterialTable materials;
 
     public PickaxeListener(AmethystTools plugin) {
         this.plugin = plugin;
         this.toolManager = plugin.getToolManager();
         this.messageManager = plugin.getMessageManager();
-        this.configManager = plugin.getConfigManager();
+        this.materials = plugin.getMaterialTable();
     }
 
-    @EventHandler(priority = EventPriority.NORMAL)
-    public void onBlockBreak(BlockBreakEvent event) {
-        Player player = event.getPlayer();
-        ItemStack item = player.getInventory().getItemInMainHand();
-
-        // Check if it's an Amethyst Pickaxe
-        if (!toolManager.isAmethystTool(item) ||
-                toolManager.getToolType(item) != ToolType.PICKAXE) {
-            return;
-        }
-
+    @Override
+    public void onBlockBreak(BlockBreakEvent event, Player player, ItemStack item, ToolHandle handle, ToolDefinition tool) {
         Block block = event.getBlock();
 
         // Check if block can be mined with a pickaxe
-        if (!canMineWithPickaxe(block.getType())) {
+        if (!materials.is(block.getType(), MaterialTable.PICKAXE_MINEABLE)) {
             return;
         }
 
         // Check if block is blacklisted
-        if (isBlockBlacklisted(block.getType())) {
+        if (tool.blacklist().contains(block.getType())) {
             Map<String, String> placeholders = new HashMap<>();
             messageManager.sendMessage(player, "tools.pickaxe.blacklisted", placeholders);
             event.setCancelled(true);
             return;
         }
 
+        // Get the blocks to mine in the cube around the broken block (3x3x3 by default)
+        List<Block> area = getBlocksToMine(block, tool);
+
+        // Let other plugins veto the use or protect parts of the area
+        if (!ToolEvents.callUse(player, handle, item)) {
+            return;
+        }
+        Collection<Block> blocksToMine = ToolEvents.callAreaBreak(player, handle, block, area);
+        if (blocksToMine == null) {
+            return;
+        }
+
         // Cancel the original event
         event.setCancelled(true);
 
-        // Get the blocks to mine in 3x3x3 area
-        List<Block> blocksToMine = getBlocksToMine(block, player);
-
         // Mine all blocks
         mineBlocks(player, blocksToMine, item);
+        toolManager.recordUse(player, handle, blocksToMine.size(), ToolStat.BLOCKS_BROKEN, blocksToMine.size());
 
         // Send success message
         Map<String, String> placeholders = new HashMap<>();
@@ -74,78 +77,17 @@ public class PickaxeListener implements Listener {
         messageManager.sendMessage(player, "tools.pickaxe.success", placeholders);
     }
 
-    private boolean canMineWithPickaxe(Material material) {
-        // Check if the material can be mined with a pickaxe
-        return switch (material) {
-            case STONE, COBBLESTONE, GRANITE, DIORITE, ANDESITE,
-                 DEEPSLATE, COBBLED_DEEPSLATE, NETHERRACK, BLACKSTONE,
-                 COAL_ORE, IRON_ORE, GOLD_ORE, DIAMOND_ORE, EMERALD_ORE,
-                 LAPIS_ORE, REDSTONE_ORE, COPPER_ORE, NETHER_GOLD_ORE,
-                 NETHER_QUARTZ_ORE, ANCIENT_DEBRIS,
-                 DEEPSLATE_COAL_ORE, DEEPSLATE_IRON_ORE, DEEPSLATE_GOLD_ORE,
-                 DEEPSLATE_DIAMOND_ORE, DEEPSLATE_EMERALD_ORE, DEEPSLATE_LAPIS_ORE,
-                 DEEPSLATE_REDSTONE_ORE, DEEPSLATE_COPPER_ORE,
-                 SANDSTONE, RED_SANDSTONE, PRISMARINE, DARK_PRISMARINE,
-                 PRISMARINE_BRICKS, SEA_LANTERN, MAGMA_BLOCK,
-                 OBSIDIAN, CRYING_OBSIDIAN, RESPAWN_ANCHOR,
-                 STONE_BRICKS, MOSSY_STONE_BRICKS, CRACKED_STONE_BRICKS,
-                 CHISELED_STONE_BRICKS, SMOOTH_STONE, POLISHED_GRANITE,
-                 POLISHED_DIORITE, POLISHED_ANDESITE, BRICKS, NETHER_BRICKS,
-                 RED_NETHER_BRICKS, CHISELED_NETHER_BRICKS, CRACKED_NETHER_BRICKS,
-                 BASALT, SMOOTH_BASALT, POLISHED_BASALT,
-                 TUFF, CALCITE, AMETHYST_BLOCK, BUDDING_AMETHYST -> true;
-            default -> false;
-        };
-    }
-
-    private boolean isBlockBlacklisted(Material material) {
-        List<String> blacklist = configManager.getBlacklistedBlocks();
-        return blacklist.contains(material.name());
-    }
-
-    private List<Block> getBlocksToMine(Block centerBlock, Player player) {
+    private List<Block> getBlocksToMine(Block centerBlock, ToolDefinition tool) {
         List<Block> blocks = new ArrayList<>();
-        Location center = centerBlock.getLocation();
-
-        // Get player's facing direction to determine mining orientation
-        float yaw = player.getLocation().getYaw();
-        boolean miningVertically = Math.abs(player.getLocation().getPitch()) > 45;
-
-        if (miningVertically) {
-            // Mining up/down - use XZ plane
-            for (int x = -1; x <= 1; x++) {
-                for (int z = -1; z <= 1; z++) {
-                    for (int y = -1; y <= 1; y++) {
-                        Block block = center.clone().add(x, y, z).getBlock();
-                        if (shouldMineBlock(block)) {
-                            blocks.add(block);
-                        }
-                    }
-                }
-            }
-        } else {
-            // Mining horizontally - adjust based on facing direction
-            int[] xRange, yRange, zRange;
-
-            if ((yaw >= -45 && yaw <= 45) || (yaw >= 135 || yaw <= -135)) {
-                // Facing North/South - mine in X and Y directions
-                xRange = new int[]{-1, 0, 1};
-                yRange = new int[]{-1, 0, 1};
-                zRange = new int[]{-1, 0, 1};
-            } else {
-                // Facing East/West - mine in Z and Y directions
-                xRange = new int[]{-1, 0, 1};
-                yRange = new int[]{-1, 0, 1};
-                zRange = new int[]{-1, 0, 1};
-            }
-
-            for (int x : xRange) {
-                for (int y : yRange) {
-                    for (int z : zRange) {
-                        Block block = center.clone().add(x, y, z).getBlock();
-                        if (shouldMineBlock(block)) {
-                            blocks.add(block);
-                        }
+        int radius = tool.radius();
+
+        // The area is a cube, so the facing direction does not matter
+        for (int x = -radius; x <= radius; x++) {
+            for (int y = -radius; y <= radius; y++) {
+                for (int z = -radius; z <= radius; z++) {
+                    Block block = centerBlock.getRelative(x, y, z);
+                    if (shouldMineBlock(block, tool)) {
+                        blocks.add(block);
                     }
                 }
             }
@@ -154,24 +96,14 @@ public class PickaxeListener implements Listener {
         return blocks;
     }
 
-    private boolean shouldMineBlock(Block block) {
+    private boolean shouldMineBlock(Block block, ToolDefinition tool) {
         Material type = block.getType();
 
-        // Don't mine air or liquid
-        if (type == Material.AIR || type == Material.WATER || type == Material.LAVA) {
-            return false;
-        }
-
-        // Don't mine blacklisted blocks
-        if (isBlockBlacklisted(type)) {
-            return false;
-        }
-
-        // Only mine blocks that can be mined with a pickaxe
-        return canMineWithPickaxe(type);
+        // Only mine blocks that can be mined with a pickaxe, which excludes air and liquids
+        return materials.is(type, MaterialTable.PICKAXE_MINEABLE) && !tool.blacklist().contains(type);
     }
 
-    private void mineBlocks(Player player, List<Block> blocks, ItemStack tool) {
+    private void mineBlocks(Player player, Collection<Block> blocks, ItemStack tool) {
         int fortuneLevel = 0;
         int silkTouchLevel = 0;
 
@@ -201,7 +133,7 @@ public class PickaxeListener implements Listener {
                 drops = block.getDrops(tool);
 
                 // Apply fortune multiplier for applicable blocks
-                if (fortuneLevel > 0 && isFortuneApplicable(blockType)) {
+                if (fortuneLevel > 0 && materials.is(blockType, MaterialTable.FORTUNE)) {
                     Random random = new Random();
                     Collection<ItemStack> fortuneDrops = new ArrayList<>();
 
@@ -239,14 +171,4 @@ public class PickaxeListener implements Listener {
             }
         }
     }
-
-    private boolean isFortuneApplicable(Material material) {
-        return switch (material) {
-            case COAL_ORE, DEEPSLATE_COAL_ORE, DIAMOND_ORE, DEEPSLATE_DIAMOND_ORE,
-                 EMERALD_ORE, DEEPSLATE_EMERALD_ORE, LAPIS_ORE, DEEPSLATE_LAPIS_ORE,
-                 REDSTONE_ORE, DEEPSLATE_REDSTONE_ORE, NETHER_QUARTZ_ORE,
-                 NETHER_GOLD_ORE, COPPER_ORE, DEEPSLATE_COPPER_ORE -> true;
-            default -> false;
-        };
-    }
 }
\ No newline at end of file
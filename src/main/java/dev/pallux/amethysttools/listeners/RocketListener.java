@@ -5,7 +5,8 @@ import dev.pallux.amethysttools.managers.ConfigManager;
 import dev.pallux.amethysttools.managers.CooldownManager;
 import dev.pallux.amethysttools.managers.MessageManager;
 import dev.pallux.amethysttools.managers.ToolManager;
-import dev.pallux.amethysttools.models.ToolType;
+import dev.pallux.amethysttools.models.ToolDefinition;
+import dev.pallux.amethysttools.models.ToolHandle;
 import org.bukkit.Color;
 import org.bukkit.FireworkEffect;
 import org.bukkit.Location;
@@ -13,9 +14,6 @@ import org.bukkit.Particle;
 import org.bukkit.entity.EntityType;
 import org.bukkit.entity.Firework;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.EventPriority;
-import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.FireworkMeta;
@@ -26,7 +24,10 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Random;
 
-public class RocketListener implements Listener {
+/**
+ * Boost ability (Rocket), dispatched by {@link ToolEventRouter}
+ */
+public class RocketListener implements InteractAbility {
 
     private final AmethystTools plugin;
     private final ToolManager toolManager;
@@ -44,21 +45,10 @@ public class RocketListener implements Listener {
         this.cooldownManager = plugin.getCooldownManager();
     }
 
-    @EventHandler(priority = EventPriority.NORMAL)
-    public void onPlayerInteract(PlayerInteractEvent event) {
-        Player player = event.getPlayer();
-        ItemStack item = event.getItem();
-
-        if (item == null) return;
-
-        // Check if it's an Amethyst Rocket
-        if (!toolManager.isAmethystTool(item) ||
-                toolManager.getToolType(item) != ToolType.ROCKET) {
-            return;
-        }
-
+    @Override
+    public void onPlayerInteract(PlayerInteractEvent event, Player player, ItemStack item, ToolHandle handle, ToolDefinition tool) {
         // Only work on right-click
-        if (!event.getAction().toString().contains("RIGHT_CLICK")) {
+        if (!event.getAction().isRightClick()) {
             return;
         }
 
@@ -85,8 +75,9 @@ public class RocketListener implements Listener {
         launchPlayer(player);
 
         // Set cooldown
-        int cooldown = configManager.getRocketCooldown();
+        int cooldown = tool.cooldown();
         cooldownManager.setCooldown(player, COOLDOWN_KEY, cooldown);
+        toolManager.recordUse(player, handle, 1);
 
         // Send success message
         Map<String, String> placeholders = new HashMap<>();
@@ -4,14 +4,13 @@ import dev.pallux.amethysttools.AmethystTools;
 import dev.pallux.amethysttools.managers.EconomyIntegrationManager;
 import dev.pallux.amethysttools.managers.MessageManager;
 import dev.pallux.amethysttools.managers.ToolManager;
-import dev.pallux.amethysttools.models.ToolType;
+import dev.pallux.amethysttools.models.ToolDefinition;
+import dev.pallux.amethysttools.models.ToolHandle;
+import dev.pallux.amethysttools.models.ToolStat;
 import org.bukkit.Material;
 import org.bukkit.block.Block;
 import org.bukkit.block.Chest;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.EventPriority;
-import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockBreakEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
@@ -20,7 +19,10 @@ import java.text.DecimalFormat;
 import java.util.HashMap;
 import java.util.Map;
 
-public class SellAxeListener implements Listener {
+/**
+ * Sell ability (Sell Axe), dispatched by {@link ToolEventRouter}
+ */
+public class SellAxeListener implements BlockBreakAbility {
 
     private final AmethystTools plugin;
     private final ToolManager toolManager;
@@ -36,17 +38,8 @@ public class SellAxeListener implements Listener {
         this.moneyFormat = new DecimalFormat("#,##0.00");
     }
 
-    @EventHandler(priority = EventPriority.NORMAL)
-    public void onBlockBreak(BlockBreakEvent event) {
-        Player player = event.getPlayer();
-        ItemStack item = player.getInventory().getItemInMainHand();
-
-        // Check if it's an Amethyst Sell Axe
-        if (!toolManager.isAmethystTool(item) ||
-                toolManager.getToolType(item) != ToolType.SELL_AXE) {
-            return;
-        }
-
+    @Override
+    public void onBlockBreak(BlockBreakEvent event, Player player, ItemStack item, ToolHandle handle, ToolDefinition tool) {
         Block block = event.getBlock();
 
         // Check if the broken block is a chest
@@ -75,6 +68,15 @@ public class SellAxeListener implements Listener {
             return;
         }
 
+        // Let other plugins veto the use or adjust the payout
+        if (!ToolEvents.callUse(player, handle, item)) {
+            return;
+        }
+        totalValue = ToolEvents.callSell(player, block, contents, totalValue);
+        if (totalValue <= 0) {
+            return;
+        }
+
         // Create a copy of items to sell
         ItemStack[] itemsToSell = new ItemStack[contents.length];
         int itemCount = 0;
@@ -102,6 +104,9 @@ public class SellAxeListener implements Listener {
             // Drop the chest item
             block.getWorld().dropItemNaturally(block.getLocation(), new ItemStack(block.getType()));
 
+            toolManager.recordUse(player, handle, itemCount, ToolStat.ITEMS_SOLD, itemCount);
+            toolManager.addStat(player, handle, ToolStat.MONEY_EARNED, Math.round(totalValue * 100));
+
             // Send success message
             Map<String, String> placeholders = new HashMap<>();
             placeholders.put("amount", moneyFormat.format(totalValue));
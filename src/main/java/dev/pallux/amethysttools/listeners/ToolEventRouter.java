@@ -0,0 +1,148 @@
+package dev.pallux.amethysttools.listeners;
+
+import dev.pallux.amethysttools.AmethystTools;
+import dev.pallux.amethysttools.managers.HeldToolCache;
+import dev.pallux.amethysttools.managers.ToolManager;
+import dev.pallux.amethysttools.models.Ability;
+import dev.pallux.amethysttools.models.ToolDefinition;
+import dev.pallux.amethysttools.models.ToolHandle;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.player.PlayerInteractEvent;
+import org.bukkit.inventory.EquipmentSlot;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.PluginManager;
+
+/**
+ * The only listener for the events that trigger abilities. The tool is looked up once per event,
+ * from the {@link HeldToolCache} so players without a tool in hand cost a map lookup, and handed
+ * to the handler registered for its ability, found by ability ordinal.
+ * <p>
+ * Events are registered by {@link #wire} for the abilities of enabled tools only, so an event
+ * no enabled tool reacts to never reaches the plugin.
+ */
+public class ToolEventRouter implements Listener {
+
+    private static final Ability[] ABILITIES = Ability.values();
+
+    private final AmethystTools plugin;
+    private final ToolManager toolManager;
+    private final HeldToolCache heldTools;
+    private final BlockBreakAbility[] allBreakHandlers;
+    private final InteractAbility[] allInteractHandlers;
+    // Handlers of abilities with at least one enabled tool, null entries are not wired
+    private BlockBreakAbility[] breakHandlers;
+    private InteractAbility[] interactHandlers;
+
+    public ToolEventRouter(AmethystTools plugin) {
+        this.plugin = plugin;
+        this.toolManager = plugin.getToolManager();
+        this.heldTools = plugin.getHeldToolCache();
+        this.allBreakHandlers = new BlockBreakAbility[ABILITIES.length];
+        this.allInteractHandlers = new InteractAbility[ABILITIES.length];
+        this.breakHandlers = new BlockBreakAbility[ABILITIES.length];
+        this.interactHandlers = new InteractAbility[ABILITIES.length];
+
+        allBreakHandlers[Ability.FELL.ordinal()] = new TreeChopperListener(plugin);
+        allBreakHandlers[Ability.SELL.ordinal()] = new SellAxeListener(plugin);
+        allBreakHandlers[Ability.AREA_BREAK.ordinal()] = new PickaxeListener(plugin);
+        allInteractHandlers[Ability.FLOOD_DRAIN.ordinal()] = new BucketListener(plugin);
+        allInteractHandlers[Ability.PLACE.ordinal()] = new TorchListener(plugin);
+        allInteractHandlers[Ability.BOOST.ordinal()] = new RocketListener(plugin);
+    }
+
+    /**
+     * Unregisters the router and registers it again for the events of the currently enabled
+     * tools. Call after the tool definitions were (re)loaded.
+     * @return Whether any event was registered
+     */
+    public boolean wire() {
+        HandlerList.unregisterAll(this);
+
+        boolean[] enabled = new boolean[ABILITIES.length];
+        for (ToolDefinition tool : toolManager.getDefinitions().getAll()) {
+            if (tool.enabled()) {
+                enabled[tool.ability().ordinal()] = true;
+            }
+        }
+
+        BlockBreakAbility[] breaks = new BlockBreakAbility[ABILITIES.length];
+        InteractAbility[] interacts = new InteractAbility[ABILITIES.length];
+        boolean anyBreak = false;
+        boolean anyInteract = false;
+        for (int i = 0; i < ABILITIES.length; i++) {
+            if (!enabled[i]) continue;
+            breaks[i] = allBreakHandlers[i];
+            interacts[i] = allInteractHandlers[i];
+            anyBreak |= breaks[i] != null;
+            anyInteract |= interacts[i] != null;
+        }
+        breakHandlers = breaks;
+        interactHandlers = interacts;
+
+        PluginManager pluginManager = plugin.getServer().getPluginManager();
+        if (anyBreak) {
+            pluginManager.registerEvent(BlockBreakEvent.class, this, EventPriority.NORMAL, (listener, event) -> {
+                if (event instanceof BlockBreakEvent breakEvent) onBlockBreak(breakEvent);
+            }, plugin);
+        }
+        if (anyInteract) {
+            pluginManager.registerEvent(PlayerInteractEvent.class, this, EventPriority.NORMAL, (listener, event) -> {
+                if (event instanceof PlayerInteractEvent interactEvent) onPlayerInteract(interactEvent);
+            }, plugin);
+        }
+        return anyBreak || anyInteract;
+    }
+
+    private void onBlockBreak(BlockBreakEvent event) {
+        Player player = event.getPlayer();
+        if (heldTools.get(player, EquipmentSlot.HAND) == null) return;
+
+        ItemStack item = player.getInventory().getItemInMainHand();
+        ToolHandle handle = heldTools.verify(player, EquipmentSlot.HAND, item);
+        if (handle == null) return;
+
+        ToolDefinition tool = toolManager.getDefinition(handle);
+        BlockBreakAbility handler = tool != null && tool.enabled() ? breakHandlers[tool.ability().ordinal()] : null;
+        if (handler == null) return;
+
+        // Expired or destroyed copies are removed on use
+        if (toolManager.purgeIfRevoked(player, EquipmentSlot.HAND, handle)) {
+            event.setCancelled(true);
+            return;
+        }
+
+        handler.onBlockBreak(event, player, item, handle, tool);
+    }
+
+    private void onPlayerInteract(PlayerInteractEvent event) {
+        Player player = event.getPlayer();
+        EquipmentSlot hand = event.getHand();
+        ItemStack item = event.getItem();
+
+        ToolHandle handle;
+        if (hand != null) {
+            if (heldTools.get(player, hand) == null) return;
+            handle = heldTools.verify(player, hand, item);
+        } else {
+            // Physical interactions are not tied to a hand
+            handle = toolManager.readTool(item);
+        }
+        if (handle == null) return;
+
+        ToolDefinition tool = toolManager.getDefinition(handle);
+        InteractAbility handler = tool != null && tool.enabled() ? interactHandlers[tool.ability().ordinal()] : null;
+        if (handler == null) return;
+
+        // Expired or destroyed copies are removed on use
+        if (toolManager.purgeIfRevoked(player, hand, handle)) {
+            event.setCancelled(true);
+            return;
+        }
+
+        handler.onPlayerInteract(event, player, item, handle, tool);
+    }
+}
@@ -0,0 +1,75 @@
+package dev.pallux.amethysttools.listeners;
+
+import dev.pallux.amethysttools.api.event.AmethystToolUseEvent;
+import dev.pallux.amethysttools.api.event.AreaBreakEvent;
+import dev.pallux.amethysttools.api.event.ToolSellEvent;
+import dev.pallux.amethysttools.models.ToolHandle;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Fires the public tool events. Events are only built when a plugin listens for them,
+ * so without listeners this costs one array length check per ability use.
+ */
+final class ToolEvents {
+
+    private ToolEvents() {
+    }
+
+    /**
+     * @return false if a listener vetoed the use
+     */
+    static boolean callUse(Player player, ToolHandle handle, ItemStack tool) {
+        if (!AmethystToolUseEvent.hasListeners()) return true;
+
+        AmethystToolUseEvent event = new AmethystToolUseEvent(player, handle.getToolType(), handle.getToolUUID(), tool);
+        Bukkit.getPluginManager().callEvent(event);
+        return !event.isCancelled();
+    }
+
+    /**
+     * @return The blocks left after listeners filtered them, the given blocks if nobody listens,
+     * or null if the ability was cancelled
+     */
+    static Collection<Block> callAreaBreak(Player player, ToolHandle handle, Block origin, Collection<Block> blocks) {
+        if (!AreaBreakEvent.hasListeners()) return blocks;
+
+        long[] positions = new long[blocks.size()];
+        int size = 0;
+        for (Block block : blocks) {
+            positions[size++] = AreaBreakEvent.pack(block);
+        }
+
+        AreaBreakEvent event = new AreaBreakEvent(player, handle.getToolType(), origin, positions, size);
+        Bukkit.getPluginManager().callEvent(event);
+        if (event.isCancelled()) return null;
+        if (event.getBlockCount() == size) return blocks;
+
+        World world = origin.getWorld();
+        List<Block> remaining = new ArrayList<>(event.getBlockCount());
+        for (int i = 0; i < event.getBlockCount(); i++) {
+            long position = event.getPosition(i);
+            remaining.add(world.getBlockAt(AreaBreakEvent.unpackX(position),
+                    AreaBreakEvent.unpackY(position), AreaBreakEvent.unpackZ(position)));
+        }
+        return remaining;
+    }
+
+    /**
+     * @return The value to pay out, or a negative value if the sale was cancelled
+     */
+    static double callSell(Player player, Block container, ItemStack[] contents, double value) {
+        if (!ToolSellEvent.hasListeners()) return value;
+
+        ToolSellEvent event = new ToolSellEvent(player, container, contents, value);
+        Bukkit.getPluginManager().callEvent(event);
+        return event.isCancelled() ? -1 : event.getValue();
+    }
+}
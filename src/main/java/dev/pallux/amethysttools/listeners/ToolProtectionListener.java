@@ -1,48 +1,80 @@
 package dev.pallux.amethysttools.listeners;
 
 import dev.pallux.amethysttools.AmethystTools;
+import dev.pallux.amethysttools.managers.DuplicateTracker;
 import dev.pallux.amethysttools.managers.MessageManager;
 import dev.pallux.amethysttools.managers.ToolManager;
+import dev.pallux.amethysttools.models.ToolHandle;
 import dev.pallux.amethysttools.utils.MessageUtil;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntityPickupItemEvent;
 import org.bukkit.event.entity.ItemDespawnEvent;
 import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.inventory.InventoryOpenEvent;
 import org.bukkit.event.inventory.InventoryPickupItemEvent;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerDropItemEvent;
 import org.bukkit.event.player.PlayerItemHeldEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.EntitiesLoadEvent;
+import org.bukkit.inventory.BlockInventoryHolder;
+import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ToolProtectionListener implements Listener {
 
     private final AmethystTools plugin;
     private final ToolManager toolManager;
     private final MessageManager messageManager;
+    private final DuplicateTracker duplicateTracker;
+    // Players who moved a tool since their inventory was last opened
+    private final Set<UUID> pendingOwnerUpdates;
 
     public ToolProtectionListener(AmethystTools plugin) {
         this.plugin = plugin;
         this.toolManager = plugin.getToolManager();
         this.messageManager = plugin.getMessageManager();
+        this.duplicateTracker = plugin.getDuplicateTracker();
+        this.pendingOwnerUpdates = ConcurrentHashMap.newKeySet();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerPreLogin(AsyncPlayerPreLoginEvent event) {
+        // Keep the offline scanner from rewriting a file the server is about to load
+        plugin.getPlayerDataScanner().onPreLogin(event.getUniqueId());
     }
 
     @EventHandler(priority = EventPriority.MONITOR)
     public void onPlayerJoin(PlayerJoinEvent event) {
         Player player = event.getPlayer();
 
+        // Drop copies of tools that expired or were destroyed while the player was away
+        toolManager.purgeRevoked(player.getInventory());
+        toolManager.purgeRevoked(player.getEnderChest());
+
         // Update any AmethystTools in the player's inventory with current owner
         for (ItemStack item : player.getInventory().getContents()) {
             if (item != null && toolManager.isAmethystTool(item)) {
                 toolManager.assignToolToPlayer(item, player);
+                duplicateTracker.observe(toolManager.readTool(item), player);
             }
         }
+
+        // Hand out tools that were issued while the player was offline or had a full inventory
+        plugin.getDeliveryManager().deliverPending(player);
     }
 
     @EventHandler(priority = EventPriority.MONITOR)
@@ -51,9 +83,11 @@ public class ToolProtectionListener implements Listener {
         ItemStack item = player.getInventory().getItem(event.getNewSlot());
 
         if (item != null && toolManager.isAmethystTool(item)) {
-            // Update lore with current timer when player holds the tool
+            // Update lore with current stats and timer when player holds the tool
+            toolManager.refreshStats(item, toolManager.readTool(item));
             updateToolLore(item);
             toolManager.assignToolToPlayer(item, player);
+            duplicateTracker.observe(toolManager.readTool(item), player);
         }
     }
 
@@ -63,16 +97,76 @@ public class ToolProtectionListener implements Listener {
 
         ItemStack item = event.getCurrentItem();
         if (item != null && toolManager.isAmethystTool(item)) {
-            // Update tool ownership when moved in inventory
-            toolManager.assignToolToPlayer(item, player);
+            // Ownership is settled once the inventory closes
+            pendingOwnerUpdates.add(player.getUniqueId());
             updateToolLore(item);
+
+            // The clicked slot is either in a container or in the player's own inventory
+            Inventory clicked = event.getClickedInventory();
+            if (clicked != null && clicked.getHolder(false) instanceof BlockInventoryHolder holder) {
+                duplicateTracker.observe(toolManager.readTool(item), holder.getBlock());
+            } else {
+                duplicateTracker.observe(toolManager.readTool(item), player);
+            }
         }
 
         // Also check cursor item
         ItemStack cursor = event.getCursor();
         if (cursor != null && toolManager.isAmethystTool(cursor)) {
-            toolManager.assignToolToPlayer(cursor, player);
+            pendingOwnerUpdates.add(player.getUniqueId());
             updateToolLore(cursor);
+            duplicateTracker.observe(toolManager.readTool(cursor), player);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onInventoryOpen(InventoryOpenEvent event) {
+        // Containers may hold stale copies of revoked tools
+        toolManager.purgeRevoked(event.getInventory());
+        duplicateTracker.observeContents(event.getInventory());
+    }
+
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onEntityPickupItem(EntityPickupItemEvent event) {
+        ItemStack item = event.getItem().getItemStack();
+        ToolHandle handle = toolManager.readTool(item);
+
+        if (toolManager.isRevoked(handle)) {
+            event.setCancelled(true);
+            event.getItem().remove();
+            return;
+        }
+
+        duplicateTracker.observeTransfer(handle, event.getItem(), event.getEntity());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onInventoryClose(InventoryCloseEvent event) {
+        if (event.getPlayer() instanceof Player player) {
+            applyPendingOwnerUpdate(player);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        applyPendingOwnerUpdate(event.getPlayer());
+    }
+
+    private void applyPendingOwnerUpdate(Player player) {
+        if (!pendingOwnerUpdates.remove(player.getUniqueId())) return;
+
+        // Claim every tool the player ended up holding, including the cursor
+        for (ItemStack item : player.getInventory().getContents()) {
+            if (item != null && toolManager.isAmethystTool(item)) {
+                toolManager.assignToolToPlayer(item, player);
+                duplicateTracker.observe(toolManager.readTool(item), player);
+            }
+        }
+
+        ItemStack cursor = player.getItemOnCursor();
+        if (toolManager.isAmethystTool(cursor)) {
+            toolManager.assignToolToPlayer(cursor, player);
+            duplicateTracker.observe(toolManager.readTool(cursor), player);
         }
     }
 
@@ -84,30 +178,49 @@ public class ToolProtectionListener implements Listener {
             // Update lore before dropping
             updateToolLore(item);
             event.getItemDrop().setItemStack(item);
+            duplicateTracker.observeTransfer(toolManager.readTool(item), event.getPlayer(), event.getItemDrop());
         }
     }
 
     @EventHandler(priority = EventPriority.HIGH)
     public void onItemDespawn(ItemDespawnEvent event) {
-        ItemStack item = event.getEntity().getItemStack();
+        ToolHandle handle = toolManager.readTool(event.getEntity().getItemStack());
+        if (handle == null) return;
 
-        if (toolManager.isAmethystTool(item)) {
-            // Prevent AmethystTools from despawning due to item despawn
-            // They should only be destroyed by the timer system
+        // Live tools should only be destroyed by the timer system,
+        // expired or unknown ones are left to despawn normally
+        if (toolManager.isLive(handle)) {
             event.setCancelled(true);
 
             if (plugin.getConfigManager().isDebugEnabled()) {
-                UUID toolUUID = toolManager.getToolUUID(item);
-                plugin.getLogger().info("Prevented AmethystTool from despawning: " + toolUUID);
+                plugin.getLogger().info("Prevented AmethystTool from despawning: " + handle.getToolUUID());
             }
         }
     }
 
     @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent event) {
+        plugin.getToolSweeper().enqueue(event.getChunk());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntitiesLoad(EntitiesLoadEvent event) {
+        // Entities load separately from the chunk itself, so sweep again once they are in
+        plugin.getToolSweeper().enqueue(event.getChunk());
+    }
+
+    @EventHandler(priority = EventPriority.HIGH)
     public void onInventoryPickupItem(InventoryPickupItemEvent event) {
         ItemStack item = event.getItem().getItemStack();
+        ToolHandle handle = toolManager.readTool(item);
 
-        if (toolManager.isAmethystTool(item)) {
+        if (toolManager.isRevoked(handle)) {
+            event.setCancelled(true);
+            event.getItem().remove();
+            return;
+        }
+
+        if (handle != null) {
             // Update lore when picked up by hoppers/droppers
             updateToolLore(item);
             event.getItem().setItemStack(item);
@@ -115,7 +228,8 @@ public class ToolProtectionListener implements Listener {
     }
 
     private void updateToolLore(ItemStack item) {
-        if (!toolManager.isAmethystTool(item)) return;
+        ToolHandle handle = toolManager.readTool(item);
+        if (handle == null) return;
 
         try {
             ItemMeta meta = item.getItemMeta();
@@ -124,10 +238,10 @@ public class ToolProtectionListener implements Listener {
             List<String> currentLore = meta.hasLore() ? meta.getLore() : new ArrayList<>();
             if (currentLore.isEmpty()) return;
 
-            UUID toolUUID = toolManager.getToolUUID(item);
+            UUID toolUUID = handle.getToolUUID();
             if (toolUUID == null) return;
 
-            long remainingTime = toolManager.getRemainingTime(item);
+            long remainingTime = toolManager.getRemainingTime(handle);
             String timeString = MessageUtil.formatTime(remainingTime);
 
             // Update lore lines
@@ -169,7 +283,8 @@ public class ToolProtectionListener implements Listener {
      * Updates tool lore with permission check for UUID visibility
      */
     public void updateToolLoreForPlayer(ItemStack item, Player player) {
-        if (!toolManager.isAmethystTool(item)) return;
+        ToolHandle handle = toolManager.readTool(item);
+        if (handle == null) return;
 
         try {
             ItemMeta meta = item.getItemMeta();
@@ -178,10 +293,10 @@ public class ToolProtectionListener implements Listener {
             List<String> currentLore = meta.hasLore() ? meta.getLore() : new ArrayList<>();
             if (currentLore.isEmpty()) return;
 
-            UUID toolUUID = toolManager.getToolUUID(item);
+            UUID toolUUID = handle.getToolUUID();
             if (toolUUID == null) return;
 
-            long remainingTime = toolManager.getRemainingTime(item);
+            long remainingTime = toolManager.getRemainingTime(handle);
             String timeString = MessageUtil.formatTime(remainingTime);
             boolean hasUuidPermission = player != null &&
                     (player.hasPermission("atools.uuid") || player.hasPermission("atools.op"));
@@ -3,16 +3,15 @@ package dev.pallux.amethysttools.listeners;
 import dev.pallux.amethysttools.AmethystTools;
 import dev.pallux.amethysttools.managers.ConfigManager;
 import dev.pallux.amethysttools.managers.CooldownManager;
+import dev.pallux.amethysttools.managers.MaterialTable;
 import dev.pallux.amethysttools.managers.MessageManager;
 import dev.pallux.amethysttools.managers.ToolManager;
-import dev.pallux.amethysttools.models.ToolType;
+import dev.pallux.amethysttools.models.ToolDefinition;
+import dev.pallux.amethysttools.models.ToolHandle;
 import org.bukkit.Material;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.EventPriority;
-import org.bukkit.event.Listener;
 import org.bukkit.event.block.Action;
 import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.inventory.ItemStack;
@@ -21,13 +20,17 @@ import org.bukkit.block.data.Directional;
 import java.util.HashMap;
 import java.util.Map;
 
-public class TorchListener implements Listener {
+/**
+ * Place ability (Torch), dispatched by {@link ToolEventRouter}
+ */
+public class TorchListener implements InteractAbility {
 
     private final AmethystTools plugin;
     private final ToolManager toolManager;
     private final MessageManager messageManager;
     private final ConfigManager configManager;
     private final CooldownManager cooldownManager;
+    private final MaterialTable materials;
 
     private static final String COOLDOWN_KEY = "torch";
 
@@ -37,21 +40,11 @@ public class TorchListener implements Listener {
         this.messageManager = plugin.getMessageManager();
         this.configManager = plugin.getConfigManager();
         this.cooldownManager = plugin.getCooldownManager();
+        this.materials = plugin.getMaterialTable();
     }
 
-    @EventHandler(priority = EventPriority.NORMAL)
-    public void onPlayerInteract(PlayerInteractEvent event) {
-        Player player = event.getPlayer();
-        ItemStack item = event.getItem();
-
-        if (item == null) return;
-
-        // Check if it's an Amethyst Torch
-        if (!toolManager.isAmethystTool(item) ||
-                toolManager.getToolType(item) != ToolType.TORCH) {
-            return;
-        }
-
+    @Override
+    public void onPlayerInteract(PlayerInteractEvent event, Player player, ItemStack item, ToolHandle handle, ToolDefinition tool) {
         // Only work on right-click
         if (event.getAction() != Action.RIGHT_CLICK_BLOCK &&
                 event.getAction() != Action.RIGHT_CLICK_AIR) {
@@ -80,8 +73,9 @@ public class TorchListener implements Listener {
         // Place torch
         if (placeTorch(targetBlock)) {
             // Set cooldown
-            int cooldown = configManager.getTorchCooldown();
+            int cooldown = tool.cooldown();
             cooldownManager.setCooldown(player, COOLDOWN_KEY, cooldown);
+            toolManager.recordUse(player, handle, 1);
 
             // Send success message
             Map<String, String> placeholders = new HashMap<>();
@@ -132,7 +126,7 @@ public class TorchListener implements Listener {
 
     private boolean canPlaceTorchAt(Block block, BlockFace attachedFace) {
         // Check if the target block is air or replaceable
-        if (block.getType() != Material.AIR && !isReplaceable(block.getType())) {
+        if (!materials.is(block.getType(), MaterialTable.REPLACEABLE)) {
             return false;
         }
 
@@ -140,31 +134,7 @@ public class TorchListener implements Listener {
         Block attachedBlock = block.getRelative(attachedFace);
 
         // Torches can be placed on most solid blocks
-        return isSolidBlock(attachedBlock.getType()) && !isBlacklisted(attachedBlock.getType());
-    }
-
-    private boolean isReplaceable(Material material) {
-        return switch (material) {
-            case AIR, WATER, LAVA, TALL_GRASS, SHORT_GRASS, FERN, LARGE_FERN,
-                 DEAD_BUSH, VINE, SNOW, FIRE -> true;
-            default -> false;
-        };
-    }
-
-    private boolean isSolidBlock(Material material) {
-        return switch (material) {
-            case AIR, WATER, LAVA, FIRE, SOUL_FIRE, CAMPFIRE, SOUL_CAMPFIRE -> false;
-            default -> material.isSolid();
-        };
-    }
-
-    private boolean isBlacklisted(Material material) {
-        return switch (material) {
-            case MAGMA_BLOCK, ICE, PACKED_ICE, BLUE_ICE, FROSTED_ICE,
-                 SLIME_BLOCK, HONEY_BLOCK, SPAWNER, END_PORTAL, END_GATEWAY,
-                 NETHER_PORTAL, BARRIER, STRUCTURE_VOID -> true;
-            default -> false;
-        };
+        return materials.is(attachedBlock.getType(), MaterialTable.TORCH_ATTACHABLE);
     }
 
     private boolean placeTorch(Block block) {
@@ -192,7 +162,7 @@ public class TorchListener implements Listener {
     private Material getTorchType(Block block) {
         // Check if we can place a standing torch (on top of a block)
         Block below = block.getRelative(BlockFace.DOWN);
-        if (isSolidBlock(below.getType())) {
+        if (materials.is(below.getType(), MaterialTable.TORCH_ATTACHABLE)) {
             return Material.TORCH;
         }
 
@@ -200,7 +170,7 @@ public class TorchListener implements Listener {
         BlockFace[] faces = {BlockFace.NORTH, BlockFace.SOUTH, BlockFace.EAST, BlockFace.WEST};
         for (BlockFace face : faces) {
             Block adjacent = block.getRelative(face);
-            if (isSolidBlock(adjacent.getType())) {
+            if (materials.is(adjacent.getType(), MaterialTable.TORCH_ATTACHABLE)) {
                 return Material.WALL_TORCH;
             }
         }
@@ -215,7 +185,7 @@ public class TorchListener implements Listener {
 
         for (BlockFace face : faces) {
             Block adjacent = block.getRelative(face);
-            if (isSolidBlock(adjacent.getType())) {
+            if (materials.is(adjacent.getType(), MaterialTable.TORCH_ATTACHABLE)) {
                 // The torch should face the opposite direction of the solid block
                 try {
                     org.bukkit.block.data.BlockData data = block.getBlockData();
@@ -1,141 +1,127 @@
 package dev.pallux.amethysttools.listeners;
 
 import dev.pallux.amethysttools.AmethystTools;
+import dev.pallux.amethysttools.api.event.AreaBreakEvent;
+import dev.pallux.amethysttools.managers.MaterialTable;
 import dev.pallux.amethysttools.managers.MessageManager;
 import dev.pallux.amethysttools.managers.ToolManager;
-import dev.pallux.amethysttools.models.ToolType;
+import dev.pallux.amethysttools.models.ToolDefinition;
+import dev.pallux.amethysttools.models.ToolHandle;
+import dev.pallux.amethysttools.models.ToolStat;
 import org.bukkit.Location;
 import org.bukkit.Material;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.enchantments.Enchantment;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.EventPriority;
-import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockBreakEvent;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 
 import java.util.*;
 
-public class TreeChopperListener implements Listener {
+/**
+ * Fell ability (Tree Chopper), dispatched by {@link ToolEventRouter}
+ */
+public class TreeChopperListener implements BlockBreakAbility {
 
     private final AmethystTools plugin;
     private final ToolManager toolManager;
     private final MessageManager messageManager;
+    private final MaterialTable materials;
 
-    private static final Set<Material> LOG_TYPES = Set.of(
-            Material.OAK_LOG, Material.BIRCH_LOG, Material.SPRUCE_LOG,
-            Material.JUNGLE_LOG, Material.ACACIA_LOG, Material.DARK_OAK_LOG,
-            Material.MANGROVE_LOG, Material.CHERRY_LOG,
-            Material.WARPED_STEM, Material.CRIMSON_STEM,
-            Material.STRIPPED_OAK_LOG, Material.STRIPPED_BIRCH_LOG,
-            Material.STRIPPED_SPRUCE_LOG, Material.STRIPPED_JUNGLE_LOG,
-            Material.STRIPPED_ACACIA_LOG, Material.STRIPPED_DARK_OAK_LOG,
-            Material.STRIPPED_MANGROVE_LOG, Material.STRIPPED_CHERRY_LOG,
-            Material.STRIPPED_WARPED_STEM, Material.STRIPPED_CRIMSON_STEM
-    );
-
-    private static final Set<Material> LEAF_TYPES = Set.of(
-            Material.OAK_LEAVES, Material.BIRCH_LEAVES, Material.SPRUCE_LEAVES,
-            Material.JUNGLE_LEAVES, Material.ACACIA_LEAVES, Material.DARK_OAK_LEAVES,
-            Material.MANGROVE_LEAVES, Material.CHERRY_LEAVES,
-            Material.WARPED_WART_BLOCK, Material.NETHER_WART_BLOCK
-    );
+    private static final ThreadLocal<FloodFill> SEARCH = ThreadLocal.withInitial(FloodFill::new);
+    private static final int MAX_LOGS = 1000;
+    private static final int LEAF_RADIUS = 5;
+    private static final int LEAF_DISTANCE = 4;
 
     public TreeChopperListener(AmethystTools plugin) {
         this.plugin = plugin;
         this.toolManager = plugin.getToolManager();
         this.messageManager = plugin.getMessageManager();
+        this.materials = plugin.getMaterialTable();
     }
 
-    @EventHandler(priority = EventPriority.NORMAL)
-    public void onBlockBreak(BlockBreakEvent event) {
-        Player player = event.getPlayer();
-        ItemStack item = player.getInventory().getItemInMainHand();
-
-        // Check if it's an Amethyst Tree Chopper
-        if (!toolManager.isAmethystTool(item) ||
-                toolManager.getToolType(item) != ToolType.TREE_CHOPPER) {
-            return;
-        }
-
+    @Override
+    public void onBlockBreak(BlockBreakEvent event, Player player, ItemStack item, ToolHandle handle, ToolDefinition tool) {
         Block block = event.getBlock();
 
         // Check if the broken block is a log
-        if (!LOG_TYPES.contains(block.getType())) {
+        if (!materials.is(block.getType(), MaterialTable.LOG)) {
             return;
         }
 
         // Find and chop the entire tree
-        Set<Block> treeBlocks = findTreeBlocks(block);
+        List<Block> treeBlocks = findTreeBlocks(block);
 
         if (treeBlocks.isEmpty()) {
             return;
         }
 
+        // Let other plugins veto the use or protect parts of the tree
+        if (!ToolEvents.callUse(player, handle, item)) {
+            return;
+        }
+        Collection<Block> blocksToChop = ToolEvents.callAreaBreak(player, handle, block, treeBlocks);
+        if (blocksToChop == null) {
+            return;
+        }
+
         // Cancel the original event
         event.setCancelled(true);
 
         // Chop the entire tree
-        chopTree(player, treeBlocks, item);
+        chopTree(player, blocksToChop, item);
+        toolManager.recordUse(player, handle, blocksToChop.size(), ToolStat.TREES_FELLED, 1);
+        toolManager.addStat(player, handle, ToolStat.BLOCKS_BROKEN, blocksToChop.size());
 
         // Send success message
         Map<String, String> placeholders = new HashMap<>();
         messageManager.sendMessage(player, "tools.tree-chopper.success", placeholders);
     }
 
-    private Set<Block> findTreeBlocks(Block startBlock) {
-        Set<Block> treeBlocks = new HashSet<>();
-        Set<Block> visited = new HashSet<>();
-        Queue<Block> queue = new LinkedList<>();
-
-        queue.add(startBlock);
-        visited.add(startBlock);
-
-        while (!queue.isEmpty() && treeBlocks.size() < 1000) { // Limit to prevent lag
-            Block current = queue.poll();
-
-            if (LOG_TYPES.contains(current.getType())) {
-                treeBlocks.add(current);
-
-                // Check surrounding blocks
-                for (int x = -1; x <= 1; x++) {
-                    for (int y = -1; y <= 1; y++) {
-                        for (int z = -1; z <= 1; z++) {
-                            if (x == 0 && y == 0 && z == 0) continue;
-
-                            Block neighbor = current.getRelative(x, y, z);
-
-                            if (!visited.contains(neighbor)) {
-                                visited.add(neighbor);
-
-                                if (LOG_TYPES.contains(neighbor.getType())) {
-                                    queue.add(neighbor);
-                                }
-                            }
-                        }
-                    }
-                }
+    private List<Block> findTreeBlocks(Block startBlock) {
+        FloodFill search = SEARCH.get();
+        World world = startBlock.getWorld();
+        search.reset(world);
+        try {
+            findLogs(search, startBlock);
+            findConnectedLeaves(search, startBlock);
+
+            List<Block> treeBlocks = new ArrayList<>(search.foundCount());
+            for (int i = 0; i < search.foundCount(); i++) {
+                long position = search.found(i);
+                treeBlocks.add(world.getBlockAt(AreaBreakEvent.unpackX(position),
+                        AreaBreakEvent.unpackY(position), AreaBreakEvent.unpackZ(position)));
             }
+            return treeBlocks;
+        } finally {
+            search.reset(null);
         }
-
-        // Also find connected leaves
-        findConnectedLeaves(treeBlocks, startBlock.getLocation(), 5); // 5 block radius for leaves
-
-        return treeBlocks;
     }
 
-    private void findConnectedLeaves(Set<Block> treeBlocks, Location center, int radius) {
-        for (int x = -radius; x <= radius; x++) {
-            for (int y = -radius; y <= radius; y++) {
-                for (int z = -radius; z <= radius; z++) {
-                    Block block = center.clone().add(x, y, z).getBlock();
-
-                    if (LEAF_TYPES.contains(block.getType())) {
-                        // Check if this leaf is connected to any log block
-                        if (isLeafConnectedToTree(block, treeBlocks, 4)) {
-                            treeBlocks.add(block);
+    private void findLogs(FloodFill search, Block startBlock) {
+        long start = AreaBreakEvent.pack(startBlock);
+        search.visit(start);
+        search.offer(start);
+
+        // Only logs are queued, every polled position is part of the tree
+        while (search.queued() > 0 && search.foundCount() < MAX_LOGS) { // Limit to prevent lag
+            long current = search.poll();
+            search.found(current);
+
+            int x = AreaBreakEvent.unpackX(current);
+            int y = AreaBreakEvent.unpackY(current);
+            int z = AreaBreakEvent.unpackZ(current);
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    for (int dz = -1; dz <= 1; dz++) {
+                        if (dx == 0 && dy == 0 && dz == 0) continue;
+
+                        long neighbor = AreaBreakEvent.pack(x + dx, y + dy, z + dz);
+                        if (search.visit(neighbor)
+                                && materials.is(search.typeAt(x + dx, y + dy, z + dz), MaterialTable.LOG)) {
+                            search.offer(neighbor);
                         }
                     }
                 }
@@ -143,53 +129,56 @@ public class TreeChopperListener implements Listener {
         }
     }
 
-    private boolean isLeafConnectedToTree(Block leaf, Set<Block> logBlocks, int maxDistance) {
-        Set<Block> visited = new HashSet<>();
-        Queue<Block> queue = new LinkedList<>();
-        queue.add(leaf);
-        visited.add(leaf);
-
-        int distance = 0;
-
-        while (!queue.isEmpty() && distance <= maxDistance) {
-            int queueSize = queue.size();
-
-            for (int i = 0; i < queueSize; i++) {
-                Block current = queue.poll();
-
-                // Check if we've reached a log block
-                if (logBlocks.contains(current)) {
-                    return true;
-                }
-
-                // Check surrounding blocks
-                for (int x = -1; x <= 1; x++) {
-                    for (int y = -1; y <= 1; y++) {
-                        for (int z = -1; z <= 1; z++) {
-                            if (x == 0 && y == 0 && z == 0) continue;
-
-                            Block neighbor = current.getRelative(x, y, z);
-
-                            if (!visited.contains(neighbor)) {
-                                visited.add(neighbor);
+    /**
+     * Adds the leaves near the start block that connect to the tree's logs through at most
+     * {@link #LEAF_DISTANCE} log or leaf blocks, searching outwards from all logs at once
+     */
+    private void findConnectedLeaves(FloodFill search, Block startBlock) {
+        int logCount = search.foundCount();
+        // The log search stops at MAX_LOGS with positions still queued, which are not tree logs
+        search.clearVisited();
+        search.clearQueue();
+        for (int i = 0; i < logCount; i++) {
+            search.visit(search.found(i));
+            search.offer(search.found(i));
+        }
 
-                                if (LOG_TYPES.contains(neighbor.getType()) ||
-                                        LEAF_TYPES.contains(neighbor.getType())) {
-                                    queue.add(neighbor);
-                                }
+        int startX = startBlock.getX();
+        int startY = startBlock.getY();
+        int startZ = startBlock.getZ();
+        for (int distance = 1; distance <= LEAF_DISTANCE && search.queued() > 0; distance++) {
+            for (int remaining = search.queued(); remaining > 0; remaining--) {
+                long current = search.poll();
+                int x = AreaBreakEvent.unpackX(current);
+                int y = AreaBreakEvent.unpackY(current);
+                int z = AreaBreakEvent.unpackZ(current);
+
+                for (int dx = -1; dx <= 1; dx++) {
+                    for (int dy = -1; dy <= 1; dy++) {
+                        for (int dz = -1; dz <= 1; dz++) {
+                            if (dx == 0 && dy == 0 && dz == 0) continue;
+
+                            long neighbor = AreaBreakEvent.pack(x + dx, y + dy, z + dz);
+                            if (!search.visit(neighbor)) continue;
+
+                            Material type = search.typeAt(x + dx, y + dy, z + dz);
+                            if (!materials.is(type, MaterialTable.LOG | MaterialTable.LEAF)) continue;
+
+                            search.offer(neighbor);
+                            if (materials.is(type, MaterialTable.LEAF)
+                                    && Math.abs(x + dx - startX) <= LEAF_RADIUS
+                                    && Math.abs(y + dy - startY) <= LEAF_RADIUS
+                                    && Math.abs(z + dz - startZ) <= LEAF_RADIUS) {
+                                search.found(neighbor);
                             }
                         }
                     }
                 }
             }
-
-            distance++;
         }
-
-        return false;
     }
 
-    private void chopTree(Player player, Set<Block> treeBlocks, ItemStack tool) {
+    private void chopTree(Player player, Collection<Block> treeBlocks, ItemStack tool) {
         int fortuneLevel = 0;
         ItemMeta meta = tool.getItemMeta();
         if (meta != null && meta.hasEnchant(Enchantment.FORTUNE)) {
@@ -205,7 +194,7 @@ public class TreeChopperListener implements Listener {
             Collection<ItemStack> drops = block.getDrops(tool);
 
             // Apply fortune to logs (not leaves, as they don't benefit from fortune)
-            if (LOG_TYPES.contains(blockType) && fortuneLevel > 0) {
+            if (materials.is(blockType, MaterialTable.LOG) && fortuneLevel > 0) {
                 // Fortune increases drop chances
                 Random random = new Random();
                 for (ItemStack drop : new ArrayList<>(drops)) {
@@ -1,6 +1,8 @@
 package dev.pallux.amethysttools.managers;
 
 import dev.pallux.amethysttools.AmethystTools;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.MemoryConfiguration;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 
@@ -8,7 +10,9 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import java.util.logging.Level;
 
 public class ConfigManager {
@@ -104,10 +108,6 @@ public class ConfigManager {
         return config.getString("economy.integration", "EconomyShopGUI");
     }
 
-    public boolean isToolEnabled(String tool) {
-        return config.getBoolean("tools." + tool + ".enabled", true);
-    }
-
     public String getToolName(String tool) {
         return config.getString("tools." + tool + ".name", "&7Unknown Tool");
     }
@@ -116,20 +116,17 @@ public class ConfigManager {
         return config.getStringList("tools." + tool + ".lore");
     }
 
-    public List<String> getBlacklistedBlocks() {
-        return config.getStringList("tools.pickaxe.blacklisted-blocks");
-    }
-
-    public int getBucketDrainAmount() {
-        return config.getInt("tools.bucket.drain-amount", 27);
+    public Set<String> getToolKeys() {
+        ConfigurationSection tools = config.getConfigurationSection("tools");
+        return tools != null ? tools.getKeys(false) : Collections.emptySet();
     }
 
-    public int getTorchCooldown() {
-        return config.getInt("tools.torch.cooldown", 5);
-    }
-
-    public int getRocketCooldown() {
-        return config.getInt("tools.rocket.cooldown", 2);
+    /**
+     * @return The settings of a tool, empty if the tool is not in the config
+     */
+    public ConfigurationSection getToolSection(String tool) {
+        ConfigurationSection section = config.getConfigurationSection("tools." + tool);
+        return section != null ? section : new MemoryConfiguration();
     }
 
     public int getSaveInterval() {
@@ -139,4 +136,94 @@ public class ConfigManager {
     public int getMaxToolsPerPlayer() {
         return config.getInt("advanced.max-tools-per-player", 10);
     }
-}
\ No newline at end of file
+
+    public boolean isSweeperEnabled() {
+        return config.getBoolean("advanced.sweeper.enabled", true);
+    }
+
+    public int getSweeperBudgetMicros() {
+        return Math.max(50, config.getInt("advanced.sweeper.budget-micros", 500));
+    }
+
+    public boolean isDuplicateDetectionEnabled() {
+        return config.getBoolean("advanced.duplicates.enabled", true);
+    }
+
+    public int getDuplicateWindowTicks() {
+        return config.getInt("advanced.duplicates.window-ticks", 100);
+    }
+
+    public boolean isDuplicateQuarantineEnabled() {
+        return config.getBoolean("advanced.duplicates.quarantine", false);
+    }
+
+    public String getStorageType() {
+        return config.getString("advanced.storage.type", "journal");
+    }
+
+    public String getSqlUrl() {
+        String url = config.getString("advanced.storage.sql.url", "");
+        if (url == null || url.isEmpty()) {
+            // Default to a local SQLite file, mainly useful for trying the backend out
+            return "jdbc:sqlite:" + new File(new File(plugin.getDataFolder(), "data"), "tools.db").getAbsolutePath();
+        }
+        return url;
+    }
+
+    public String getSqlUsername() {
+        return config.getString("advanced.storage.sql.username", "");
+    }
+
+    public String getSqlPassword() {
+        return config.getString("advanced.storage.sql.password", "");
+    }
+
+    public int getSqlPoolSize() {
+        return config.getInt("advanced.storage.sql.pool-size", 4);
+    }
+
+    public int getSqlPollInterval() {
+        return Math.max(1, config.getInt("advanced.storage.sql.poll-interval", 2));
+    }
+
+    public boolean isAuditEnabled() {
+        return config.getBoolean("advanced.audit.enabled", true);
+    }
+
+    public boolean isAuditUseEnabled() {
+        return config.getBoolean("advanced.audit.log-ability-use", true);
+    }
+
+    public long getAuditSegmentBytes() {
+        return Math.max(1, config.getInt("advanced.audit.segment-size-mb", 16)) * 1024L * 1024L;
+    }
+
+    public int getAuditMaxSegments() {
+        return Math.max(1, config.getInt("advanced.audit.max-segments", 32));
+    }
+
+    public boolean isRemoveForgedEnabled() {
+        return config.getBoolean("advanced.security.remove-forged", false);
+    }
+
+    public int getScannerThreads() {
+        int threads = config.getInt("advanced.scanner.threads", 0);
+        return threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    }
+
+    public int getApiSnapshotInterval() {
+        return Math.max(1, config.getInt("advanced.api.snapshot-interval-ticks", 20));
+    }
+
+    public int getStatsSaveInterval() {
+        return Math.max(1, config.getInt("advanced.stats.save-interval", 60));
+    }
+
+    public String getStatsLoreLine() {
+        return config.getString("advanced.stats.lore-line", "");
+    }
+
+    public List<String> getTorchBlacklist() {
+        return config.getStringList("advanced.blocks.torch-blacklist");
+    }
+}
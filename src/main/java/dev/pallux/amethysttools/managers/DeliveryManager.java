@@ -0,0 +1,186 @@
+package dev.pallux.amethysttools.managers;
+
+import dev.pallux.amethysttools.AmethystTools;
+import dev.pallux.amethysttools.models.AmethystTool;
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * Hands out issued tools and keeps a persisted per-player queue of tools that
+ * could not be delivered yet (offline recipient or full inventory).
+ */
+public class DeliveryManager {
+
+    private final AmethystTools plugin;
+    private final ToolManager toolManager;
+    private final MessageManager messageManager;
+    private final File pendingFile;
+    private final Map<UUID, List<UUID>> pendingDeliveries;
+    private final AtomicLong saveVersion;
+    private long writtenVersion;
+
+    public DeliveryManager(AmethystTools plugin) {
+        this.plugin = plugin;
+        this.toolManager = plugin.getToolManager();
+        this.messageManager = plugin.getMessageManager();
+        this.pendingFile = new File(new File(plugin.getDataFolder(), "data"), "pending-deliveries.yml");
+        this.pendingDeliveries = new ConcurrentHashMap<>();
+        this.saveVersion = new AtomicLong();
+
+        loadPending();
+    }
+
+    /**
+     * Puts tools into their owners' inventories, queueing whatever does not fit
+     * @param tools Freshly issued tools, each already assigned to its recipient
+     * @return The number of tools that were queued instead of delivered
+     */
+    public int deliver(List<AmethystTool> tools) {
+        Map<UUID, List<AmethystTool>> byOwner = new LinkedHashMap<>();
+        for (AmethystTool tool : tools) {
+            byOwner.computeIfAbsent(tool.getOwnerUUID(), k -> new ArrayList<>()).add(tool);
+        }
+
+        int queued = 0;
+        for (Map.Entry<UUID, List<AmethystTool>> entry : byOwner.entrySet()) {
+            Player player = Bukkit.getPlayer(entry.getKey());
+            List<AmethystTool> undelivered = player != null ? giveTo(player, entry.getValue()) : entry.getValue();
+
+            if (player != null && undelivered.size() < entry.getValue().size()) {
+                AmethystTool first = entry.getValue().get(0);
+                String toolKey = toolManager.getDefinitions().resolve(first.getToolType(), first.getToolUUID()).key();
+                messageManager.sendItemReceived(player, messageManager.getItemName(toolKey));
+            }
+
+            if (!undelivered.isEmpty()) {
+                List<UUID> pending = pendingDeliveries.computeIfAbsent(entry.getKey(), k -> new ArrayList<>());
+                for (AmethystTool tool : undelivered) {
+                    pending.add(tool.getToolUUID());
+                }
+                queued += undelivered.size();
+            }
+        }
+
+        if (queued > 0) {
+            savePending();
+        }
+        return queued;
+    }
+
+    /**
+     * Delivers as many queued tools as fit into the player's inventory.
+     * Tools that were destroyed or expired in the meantime are dropped from the queue.
+     * @param player The player that joined
+     */
+    public void deliverPending(Player player) {
+        List<UUID> pending = pendingDeliveries.remove(player.getUniqueId());
+        if (pending == null) return;
+
+        List<AmethystTool> tools = new ArrayList<>(pending.size());
+        for (UUID toolUUID : pending) {
+            AmethystTool tool = toolManager.getToolByUUID(toolUUID);
+            if (tool != null) {
+                tools.add(tool);
+            }
+        }
+
+        List<AmethystTool> undelivered = giveTo(player, tools);
+        if (!undelivered.isEmpty()) {
+            List<UUID> remaining = new ArrayList<>(undelivered.size());
+            undelivered.forEach(tool -> remaining.add(tool.getToolUUID()));
+            pendingDeliveries.put(player.getUniqueId(), remaining);
+        }
+
+        int delivered = tools.size() - undelivered.size();
+        if (delivered > 0) {
+            messageManager.sendPendingDelivered(player, delivered, undelivered.size());
+        }
+        savePending();
+    }
+
+    public int getPendingCount(UUID playerUUID) {
+        List<UUID> pending = pendingDeliveries.get(playerUUID);
+        return pending != null ? pending.size() : 0;
+    }
+
+    private List<AmethystTool> giveTo(Player player, List<AmethystTool> tools) {
+        List<AmethystTool> undelivered = new ArrayList<>();
+
+        for (AmethystTool tool : tools) {
+            ItemStack item = toolManager.createItem(tool);
+            // Tools never stack, so any leftover is the whole item
+            if (!player.getInventory().addItem(item).isEmpty()) {
+                undelivered.add(tool);
+            }
+        }
+
+        return undelivered;
+    }
+
+    private void loadPending() {
+        if (!pendingFile.exists()) return;
+
+        YamlConfiguration data = YamlConfiguration.loadConfiguration(pendingFile);
+        for (String key : data.getKeys(false)) {
+            try {
+                List<UUID> tools = new ArrayList<>();
+                for (String toolUUID : data.getStringList(key)) {
+                    tools.add(UUID.fromString(toolUUID));
+                }
+                if (!tools.isEmpty()) {
+                    pendingDeliveries.put(UUID.fromString(key), tools);
+                }
+            } catch (IllegalArgumentException e) {
+                plugin.getLogger().warning("Skipping invalid pending delivery entry: " + key);
+            }
+        }
+    }
+
+    /**
+     * Serializes the queue on the calling thread and writes it asynchronously
+     */
+    private void savePending() {
+        String contents = serializePending();
+        long version = saveVersion.incrementAndGet();
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> writePending(contents, version));
+    }
+
+    /**
+     * Writes the queue synchronously (called on disable)
+     */
+    public void shutdown() {
+        writePending(serializePending(), saveVersion.incrementAndGet());
+    }
+
+    private String serializePending() {
+        YamlConfiguration data = new YamlConfiguration();
+        for (Map.Entry<UUID, List<UUID>> entry : pendingDeliveries.entrySet()) {
+            data.set(entry.getKey().toString(), entry.getValue().stream().map(UUID::toString).toList());
+        }
+        return data.saveToString();
+    }
+
+    private void writePending(String contents, long version) {
+        synchronized (pendingFile) {
+            // An older save finishing late must not overwrite a newer one
+            if (version <= writtenVersion) return;
+            try {
+                Files.writeString(pendingFile.toPath(), contents, StandardCharsets.UTF_8);
+                writtenVersion = version;
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.SEVERE, "Could not save pending deliveries!", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package dev.pallux.amethysttools.managers;
+
+import dev.pallux.amethysttools.AmethystTools;
+import dev.pallux.amethysttools.models.ToolHandle;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Item;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.BlockInventoryHolder;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Remembers where each tool was last seen so that two copies of the same tool can be caught.
+ * The index is a fixed-size open-addressing table: updates are O(1) and memory does not grow,
+ * the oldest entry in a probe window is simply overwritten when the table is busy.
+ */
+public class DuplicateTracker {
+
+    private static final int CAPACITY = 1 << 14;
+    private static final int MASK = CAPACITY - 1;
+    private static final int MAX_PROBES = 8;
+
+    private static final byte KIND_ENTITY = 1;
+    private static final byte KIND_BLOCK = 2;
+
+    private final AmethystTools plugin;
+    private final ToolManager toolManager;
+    private final ConfigManager configManager;
+
+    // Parallel arrays keyed by tool UUID, a zero tick marks a free slot
+    private final long[] toolMost;
+    private final long[] toolLeast;
+    private final long[] locationHigh;
+    private final long[] locationLow;
+    private final byte[] kinds;
+    private final int[] ticks;
+
+    // Block locations store an index into this list instead of the world UUID
+    private final List<UUID> worlds;
+    private int flagged;
+
+    public DuplicateTracker(AmethystTools plugin) {
+        this.plugin = plugin;
+        this.toolManager = plugin.getToolManager();
+        this.configManager = plugin.getConfigManager();
+        this.toolMost = new long[CAPACITY];
+        this.toolLeast = new long[CAPACITY];
+        this.locationHigh = new long[CAPACITY];
+        this.locationLow = new long[CAPACITY];
+        this.kinds = new byte[CAPACITY];
+        this.ticks = new int[CAPACITY];
+        this.worlds = new ArrayList<>();
+    }
+
+    /**
+     * Records a tool as held by an entity (player inventory or dropped item)
+     */
+    public void observe(ToolHandle handle, Entity holder) {
+        if (handle == null || handle.getToolUUID() == null) return;
+
+        UUID holderUUID = holder.getUniqueId();
+        record(handle.getToolUUID(), KIND_ENTITY, holderUUID.getMostSignificantBits(), holderUUID.getLeastSignificantBits(), null);
+    }
+
+    /**
+     * Records a tool as stored in a container block
+     */
+    public void observe(ToolHandle handle, Block block) {
+        if (handle == null || handle.getToolUUID() == null) return;
+
+        record(handle.getToolUUID(), KIND_BLOCK, packPosition(block), worldIndex(block.getWorld()), null);
+    }
+
+    /**
+     * Records a tool moving from a known entity, such as a dropped item being picked up.
+     * The source still holds the tool while the event runs, so it is not treated as a copy.
+     */
+    public void observeTransfer(ToolHandle handle, Entity from, Entity to) {
+        if (handle == null || handle.getToolUUID() == null) return;
+
+        UUID toUUID = to.getUniqueId();
+        record(handle.getToolUUID(), KIND_ENTITY, toUUID.getMostSignificantBits(), toUUID.getLeastSignificantBits(), from.getUniqueId());
+    }
+
+    /**
+     * Records every tool in an inventory, if the inventory belongs to a container block
+     */
+    public void observeContents(Inventory inventory) {
+        if (!(inventory.getHolder(false) instanceof BlockInventoryHolder holder)) return;
+
+        Block block = holder.getBlock();
+        for (ItemStack item : inventory.getContents()) {
+            observe(toolManager.readTool(item), block);
+        }
+    }
+
+    public int getFlaggedCount() {
+        return flagged;
+    }
+
+    private void record(UUID toolUUID, byte kind, long high, long low, UUID expectedSource) {
+        if (!configManager.isDuplicateDetectionEnabled()) return;
+
+        long most = toolUUID.getMostSignificantBits();
+        long least = toolUUID.getLeastSignificantBits();
+        int tick = Bukkit.getCurrentTick() + 1;
+        int slot = findSlot(most, least, tick);
+
+        boolean known = ticks[slot] != 0 && toolMost[slot] == most && toolLeast[slot] == least;
+        if (known && (kinds[slot] != kind || locationHigh[slot] != high || locationLow[slot] != low)
+                && tick - ticks[slot] <= configManager.getDuplicateWindowTicks()
+                && !isSource(slot, expectedSource)
+                && stillHolds(kinds[slot], locationHigh[slot], locationLow[slot], toolUUID)) {
+            flag(toolUUID, kinds[slot], locationHigh[slot], locationLow[slot], kind, high, low);
+        }
+
+        toolMost[slot] = most;
+        toolLeast[slot] = least;
+        kinds[slot] = kind;
+        locationHigh[slot] = high;
+        locationLow[slot] = low;
+        ticks[slot] = tick;
+    }
+
+    /**
+     * Finds the slot holding this tool, or the slot to overwrite (free, or else the stalest in the window)
+     */
+    private int findSlot(long most, long least, int tick) {
+        int start = (int) mix(most ^ least) & MASK;
+        int victim = start;
+        int victimAge = -1;
+
+        for (int i = 0; i < MAX_PROBES; i++) {
+            int slot = (start + i) & MASK;
+            if (ticks[slot] == 0) return slot;
+            if (toolMost[slot] == most && toolLeast[slot] == least) return slot;
+
+            int age = tick - ticks[slot];
+            if (age > victimAge) {
+                victim = slot;
+                victimAge = age;
+            }
+        }
+
+        return victim;
+    }
+
+    private boolean isSource(int slot, UUID source) {
+        return source != null && kinds[slot] == KIND_ENTITY
+                && locationHigh[slot] == source.getMostSignificantBits()
+                && locationLow[slot] == source.getLeastSignificantBits();
+    }
+
+    /**
+     * Checks whether the previous location still holds a copy of the tool.
+     * Locations that can no longer be inspected (logged out, unloaded) are given the benefit of the doubt.
+     */
+    private boolean stillHolds(byte kind, long high, long low, UUID toolUUID) {
+        if (kind == KIND_ENTITY) {
+            Entity entity = Bukkit.getEntity(new UUID(high, low));
+            if (entity instanceof Player player) {
+                return contains(player.getInventory(), toolUUID) || holds(player.getItemOnCursor(), toolUUID);
+            }
+            if (entity instanceof Item item) {
+                return item.isValid() && holds(item.getItemStack(), toolUUID);
+            }
+            return false;
+        }
+
+        int index = (int) low;
+        World world = index < worlds.size() ? Bukkit.getWorld(worlds.get(index)) : null;
+        if (world == null) return false;
+
+        int x = (int) (high >> 38);
+        int y = (int) (high << 52 >> 52);
+        int z = (int) (high << 26 >> 38);
+        if (!world.isChunkLoaded(x >> 4, z >> 4)) return false;
+
+        return world.getBlockAt(x, y, z).getState(false) instanceof BlockInventoryHolder holder
+                && contains(holder.getInventory(), toolUUID);
+    }
+
+    private boolean contains(Inventory inventory, UUID toolUUID) {
+        for (ItemStack item : inventory.getContents()) {
+            if (holds(item, toolUUID)) return true;
+        }
+        return false;
+    }
+
+    private boolean holds(ItemStack item, UUID toolUUID) {
+        ToolHandle handle = toolManager.readTool(item);
+        return handle != null && toolUUID.equals(handle.getToolUUID());
+    }
+
+    private void flag(UUID toolUUID, byte oldKind, long oldHigh, long oldLow, byte newKind, long newHigh, long newLow) {
+        flagged++;
+        plugin.getLogger().warning("Duplicate AmethystTool detected: " + toolUUID + " is held by both "
+                + describe(oldKind, oldHigh, oldLow) + " and " + describe(newKind, newHigh, newLow));
+
+        if (configManager.isDuplicateQuarantineEnabled()) {
+            // Revoking the tool strips every copy, the original owner can be reissued one
+            toolManager.destroyTool(toolUUID);
+        }
+    }
+
+    private String describe(byte kind, long high, long low) {
+        if (kind == KIND_ENTITY) {
+            UUID uuid = new UUID(high, low);
+            Entity entity = Bukkit.getEntity(uuid);
+            return entity instanceof Player player ? player.getName() : "entity " + uuid;
+        }
+
+        int index = (int) low;
+        String world = index < worlds.size() ? worlds.get(index).toString() : "?";
+        return "container at " + (int) (high >> 38) + "," + (int) (high << 52 >> 52) + "," + (int) (high << 26 >> 38) + " in " + world;
+    }
+
+    private int worldIndex(World world) {
+        UUID worldUUID = world.getUID();
+        int index = worlds.indexOf(worldUUID);
+        if (index < 0) {
+            worlds.add(worldUUID);
+            index = worlds.size() - 1;
+        }
+        return index;
+    }
+
+    // Same layout as a vanilla BlockPos: 26 bits x, 26 bits z, 12 bits y
+    private static long packPosition(Block block) {
+        return ((long) (block.getX() & 0x3FFFFFF) << 38)
+                | ((long) (block.getZ() & 0x3FFFFFF) << 12)
+                | (block.getY() & 0xFFF);
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
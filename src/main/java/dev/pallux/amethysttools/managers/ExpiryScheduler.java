@@ -0,0 +1,126 @@
+package dev.pallux.amethysttools.managers;
+
+import dev.pallux.amethysttools.storage.ToolRegistry;
+
+/**
+ * Fires timer warnings and expirations straight from the registry columns. The lifetime is the
+ * same for every tool, so creation order is expiry order: expiring is popping the oldest tools,
+ * and each warning stage is a cursor that walks the creation chain as its threshold passes.
+ * Nothing is allocated per tool and polling only touches tools that are due.
+ */
+public class ExpiryScheduler {
+
+    // Warning thresholds before expiry, in milliseconds, from earliest to latest
+    private static final long[] WARNING_OFFSETS = {3_600_000L, 600_000L, 60_000L};
+    private static final String[] WARNING_LABELS = {"1h", "10m", "1m"};
+    private static final int STAGES = WARNING_OFFSETS.length;
+
+    private long lifetimeMillis;
+    // Per stage: tools created up to this time already had the warning
+    private final long[] firedUpTo = new long[STAGES];
+    // Per stage: the first tool past firedUpTo, kept by identity as slots move on removal
+    private final int[] cursorSlot = new int[STAGES];
+    private final long[] cursorMost = new long[STAGES];
+    private final long[] cursorLeast = new long[STAGES];
+
+    /**
+     * Starts over with a lifetime, skipping every warning whose threshold already passed
+     * @param lifetimeMillis The tool lifetime in milliseconds
+     * @param now The current time in milliseconds
+     */
+    public void reset(long lifetimeMillis, long now) {
+        this.lifetimeMillis = lifetimeMillis;
+        for (int stage = 0; stage < STAGES; stage++) {
+            firedUpTo[stage] = threshold(stage, now);
+            cursorSlot[stage] = ToolRegistry.NONE;
+        }
+    }
+
+    public long getLifetimeMillis() {
+        return lifetimeMillis;
+    }
+
+    /**
+     * Fires every warning and expiration that is due. If several thresholds were
+     * crossed since the last poll (e.g. after a lag spike) only the latest warning fires.
+     * @param registry The tools
+     * @param now The current time in milliseconds
+     * @param handler Receives the due events
+     */
+    public void poll(ToolRegistry registry, long now, Handler handler) {
+        int slot;
+        while ((slot = registry.getOldestSlot()) != ToolRegistry.NONE
+                && registry.getCreationTime(slot) + lifetimeMillis <= now) {
+            long most = registry.getToolMost(slot);
+            long least = registry.getToolLeast(slot);
+            handler.onExpired(slot);
+            // A tool the handler did not remove would be popped forever
+            if (registry.resolve(slot, most, least) != ToolRegistry.NONE) break;
+        }
+
+        for (int stage = 0; stage < STAGES; stage++) {
+            long threshold = threshold(stage, now);
+            if (threshold <= firedUpTo[stage]) continue;
+
+            long nextThreshold = stage + 1 < STAGES ? threshold(stage + 1, now) : Long.MIN_VALUE;
+            slot = cursor(registry, stage);
+            while (slot != ToolRegistry.NONE && registry.getCreationTime(slot) <= threshold) {
+                int next = registry.getNewerSlot(slot);
+                if (registry.getCreationTime(slot) > nextThreshold) {
+                    handler.onWarning(slot, WARNING_LABELS[stage]);
+                }
+                slot = next;
+            }
+
+            firedUpTo[stage] = threshold;
+            cursorSlot[stage] = slot;
+            if (slot != ToolRegistry.NONE) {
+                cursorMost[stage] = registry.getToolMost(slot);
+                cursorLeast[stage] = registry.getToolLeast(slot);
+            }
+        }
+    }
+
+    /**
+     * @return The oldest tool a stage has not warned yet
+     */
+    private int cursor(ToolRegistry registry, int stage) {
+        long fired = firedUpTo[stage];
+        int slot = cursorSlot[stage] != ToolRegistry.NONE
+                ? registry.resolve(cursorSlot[stage], cursorMost[stage], cursorLeast[stage])
+                : ToolRegistry.NONE;
+
+        if (slot == ToolRegistry.NONE) {
+            // Gone or never set, start over from the oldest tool
+            slot = registry.getOldestSlot();
+        } else {
+            // Tools added since with an older creation time (migrated or remote) land before the cursor
+            int older;
+            while ((older = registry.getOlderSlot(slot)) != ToolRegistry.NONE
+                    && registry.getCreationTime(older) > fired) {
+                slot = older;
+            }
+        }
+
+        while (slot != ToolRegistry.NONE && registry.getCreationTime(slot) <= fired) {
+            slot = registry.getNewerSlot(slot);
+        }
+        return slot;
+    }
+
+    /**
+     * @return The latest creation time for which a stage is due
+     */
+    private long threshold(int stage, long now) {
+        return now - lifetimeMillis + WARNING_OFFSETS[stage];
+    }
+
+    public interface Handler {
+        void onWarning(int slot, String timeLeft);
+
+        /**
+         * Must remove the tool from the registry
+         */
+        void onExpired(int slot);
+    }
+}
@@ -0,0 +1,112 @@
+package dev.pallux.amethysttools.managers;
+
+import dev.pallux.amethysttools.models.ToolHandle;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.EquipmentSlot;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Remembers the decoded tool in each online player's main and off hand, so events from players
+ * without a tool in hand can be dismissed without looking at their items. An entry is valid while
+ * the held slot matches its stamp, anything that may change a hand invalidates it.
+ * Only used from the main thread.
+ */
+public class HeldToolCache {
+
+    private static final int INVALID = -1;
+
+    private final ToolManager toolManager;
+    private final Map<UUID, Entry> entries;
+
+    public HeldToolCache(ToolManager toolManager) {
+        this.toolManager = toolManager;
+        this.entries = new HashMap<>();
+    }
+
+    /**
+     * Cheap check of what a player holds. A tool that reached the hand in a way no event reported yet
+     * is missed until the next inventory event, a tool that left the hand is caught by {@link #verify}.
+     * @return The cached tool in a hand, or null if the player holds none there
+     */
+    public ToolHandle get(Player player, EquipmentSlot hand) {
+        Entry entry = entries.get(player.getUniqueId());
+        if (entry == null) {
+            entry = new Entry();
+            entries.put(player.getUniqueId(), entry);
+        }
+
+        PlayerInventory inventory = player.getInventory();
+        if (entry.heldSlot != inventory.getHeldItemSlot()) {
+            entry.refresh(inventory, toolManager);
+        }
+        return hand == EquipmentSlot.OFF_HAND ? entry.offHand : entry.mainHand;
+    }
+
+    /**
+     * Confirms the cached tool against the item actually in the hand, decoding it again if its material changed
+     * @return The tool in the hand, or null if the item is not a tool
+     */
+    public ToolHandle verify(Player player, EquipmentSlot hand, ItemStack item) {
+        Entry entry = entries.get(player.getUniqueId());
+        Material material = item != null ? item.getType() : Material.AIR;
+        boolean offHand = hand == EquipmentSlot.OFF_HAND;
+        if (entry != null && entry.heldSlot != INVALID && material == (offHand ? entry.offMaterial : entry.mainMaterial)) {
+            return offHand ? entry.offHand : entry.mainHand;
+        }
+
+        ToolHandle handle = toolManager.readTool(item);
+        if (entry != null) {
+            if (offHand) {
+                entry.offMaterial = material;
+                entry.offHand = handle;
+            } else {
+                entry.mainMaterial = material;
+                entry.mainHand = handle;
+            }
+        }
+        return handle;
+    }
+
+    public void invalidate(Player player) {
+        Entry entry = entries.get(player.getUniqueId());
+        if (entry != null) {
+            entry.heldSlot = INVALID;
+        }
+    }
+
+    public void remove(Player player) {
+        entries.remove(player.getUniqueId());
+    }
+
+    /**
+     * Invalidates every entry, e.g. after tool definitions were reloaded
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    private static final class Entry {
+
+        private int heldSlot = INVALID;
+        private Material mainMaterial;
+        private Material offMaterial;
+        private ToolHandle mainHand;
+        private ToolHandle offHand;
+
+        void refresh(PlayerInventory inventory, ToolManager toolManager) {
+            ItemStack main = inventory.getItemInMainHand();
+            ItemStack off = inventory.getItemInOffHand();
+            mainMaterial = main.getType();
+            offMaterial = off.getType();
+            mainHand = toolManager.readTool(main);
+            offHand = toolManager.readTool(off);
+            heldSlot = inventory.getHeldItemSlot();
+        }
+    }
+}
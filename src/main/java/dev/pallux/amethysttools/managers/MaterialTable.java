@@ -0,0 +1,125 @@
+package dev.pallux.amethysttools.managers;
+
+import dev.pallux.amethysttools.AmethystTools;
+import org.bukkit.Material;
+import org.bukkit.Tag;
+
+import java.util.List;
+
+/**
+ * Block classification shared by all abilities: one int of flags per material, indexed by
+ * {@link Material#ordinal()}. Built from Paper's block tags, fixed lists and the config when the plugin loads
+ * and again on reload, so every check in the flood fills and area loops is one array read.
+ */
+public class MaterialTable {
+
+    public static final int LOG = 1;
+    public static final int LEAF = 1 << 1;
+    public static final int PICKAXE_MINEABLE = 1 << 2;
+    public static final int FORTUNE = 1 << 3;
+    public static final int TORCH_ATTACHABLE = 1 << 4;
+    public static final int REPLACEABLE = 1 << 5;
+
+    private static final Material[] MATERIALS = Material.values();
+
+    // Natural stone and ores only: the pickaxe sets blocks to air, which would wipe the contents
+    // or state of blocks such as spawners, beacons and containers that mineable/pickaxe also lists
+    private static final Material[] PICKAXE_BLOCKS = {
+            Material.STONE, Material.COBBLESTONE, Material.GRANITE, Material.DIORITE, Material.ANDESITE,
+            Material.DEEPSLATE, Material.COBBLED_DEEPSLATE, Material.NETHERRACK, Material.BLACKSTONE,
+            Material.COAL_ORE, Material.IRON_ORE, Material.GOLD_ORE, Material.DIAMOND_ORE, Material.EMERALD_ORE,
+            Material.LAPIS_ORE, Material.REDSTONE_ORE, Material.COPPER_ORE, Material.NETHER_GOLD_ORE,
+            Material.NETHER_QUARTZ_ORE, Material.ANCIENT_DEBRIS,
+            Material.DEEPSLATE_COAL_ORE, Material.DEEPSLATE_IRON_ORE, Material.DEEPSLATE_GOLD_ORE,
+            Material.DEEPSLATE_DIAMOND_ORE, Material.DEEPSLATE_EMERALD_ORE, Material.DEEPSLATE_LAPIS_ORE,
+            Material.DEEPSLATE_REDSTONE_ORE, Material.DEEPSLATE_COPPER_ORE,
+            Material.SANDSTONE, Material.RED_SANDSTONE, Material.PRISMARINE, Material.DARK_PRISMARINE,
+            Material.PRISMARINE_BRICKS, Material.SEA_LANTERN, Material.MAGMA_BLOCK,
+            Material.OBSIDIAN, Material.CRYING_OBSIDIAN, Material.RESPAWN_ANCHOR,
+            Material.STONE_BRICKS, Material.MOSSY_STONE_BRICKS, Material.CRACKED_STONE_BRICKS,
+            Material.CHISELED_STONE_BRICKS, Material.SMOOTH_STONE, Material.POLISHED_GRANITE,
+            Material.POLISHED_DIORITE, Material.POLISHED_ANDESITE, Material.BRICKS, Material.NETHER_BRICKS,
+            Material.RED_NETHER_BRICKS, Material.CHISELED_NETHER_BRICKS, Material.CRACKED_NETHER_BRICKS,
+            Material.BASALT, Material.SMOOTH_BASALT, Material.POLISHED_BASALT,
+            Material.TUFF, Material.CALCITE, Material.AMETHYST_BLOCK, Material.BUDDING_AMETHYST
+    };
+
+    private static final Material[] FORTUNE_ORES = {
+            Material.COAL_ORE, Material.DEEPSLATE_COAL_ORE, Material.DIAMOND_ORE, Material.DEEPSLATE_DIAMOND_ORE,
+            Material.EMERALD_ORE, Material.DEEPSLATE_EMERALD_ORE, Material.LAPIS_ORE, Material.DEEPSLATE_LAPIS_ORE,
+            Material.REDSTONE_ORE, Material.DEEPSLATE_REDSTONE_ORE, Material.NETHER_QUARTZ_ORE,
+            Material.NETHER_GOLD_ORE, Material.COPPER_ORE, Material.DEEPSLATE_COPPER_ORE
+    };
+
+    private static final Material[] EXTRA_REPLACEABLE = {
+            Material.AIR, Material.CAVE_AIR, Material.VOID_AIR, Material.WATER, Material.LAVA,
+            Material.SHORT_GRASS, Material.TALL_GRASS, Material.FERN, Material.LARGE_FERN,
+            Material.DEAD_BUSH, Material.VINE, Material.SNOW, Material.FIRE
+    };
+
+    // Solid, but torches cannot stand on them
+    private static final Material[] NOT_ATTACHABLE = {
+            Material.CAMPFIRE, Material.SOUL_CAMPFIRE
+    };
+
+    private final ConfigManager configManager;
+    private volatile int[] flags;
+
+    public MaterialTable(AmethystTools plugin) {
+        this.configManager = plugin.getConfigManager();
+        load();
+    }
+
+    /**
+     * Rebuilds the table from the tags and the config
+     */
+    public void load() {
+        int[] table = new int[MATERIALS.length];
+
+        add(table, Tag.LOGS.getValues(), LOG);
+        add(table, Tag.LEAVES.getValues(), LEAF);
+        add(table, Tag.WART_BLOCKS.getValues(), LEAF);
+        add(table, Tag.REPLACEABLE.getValues(), REPLACEABLE);
+        add(table, EXTRA_REPLACEABLE, REPLACEABLE);
+        add(table, FORTUNE_ORES, FORTUNE);
+        add(table, PICKAXE_BLOCKS, PICKAXE_MINEABLE);
+
+        for (Material material : MATERIALS) {
+            if (!material.isLegacy() && material.isSolid()) {
+                table[material.ordinal()] |= TORCH_ATTACHABLE;
+            }
+        }
+        clear(table, NOT_ATTACHABLE, TORCH_ATTACHABLE);
+        for (String name : configManager.getTorchBlacklist()) {
+            Material material = Material.matchMaterial(name);
+            if (material != null) {
+                table[material.ordinal()] &= ~TORCH_ATTACHABLE;
+            }
+        }
+
+        flags = table;
+    }
+
+    /**
+     * @return Whether the material has the flag, or any of them if several are combined
+     */
+    public boolean is(Material material, int flag) {
+        return (flags[material.ordinal()] & flag) != 0;
+    }
+
+    private static void add(int[] table, Iterable<Material> materials, int flag) {
+        for (Material material : materials) {
+            table[material.ordinal()] |= flag;
+        }
+    }
+
+    private static void add(int[] table, Material[] materials, int flag) {
+        add(table, List.of(materials), flag);
+    }
+
+    private static void clear(int[] table, Material[] materials, int flag) {
+        for (Material material : materials) {
+            table[material.ordinal()] &= ~flag;
+        }
+    }
+}
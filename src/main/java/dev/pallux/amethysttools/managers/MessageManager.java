@@ -1,15 +1,25 @@
 package dev.pallux.amethysttools.managers;
 
 import dev.pallux.amethysttools.AmethystTools;
+import dev.pallux.amethysttools.models.ToolStat;
+import dev.pallux.amethysttools.storage.AuditEvent;
 import dev.pallux.amethysttools.utils.MessageUtil;
+import org.bukkit.Bukkit;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class MessageManager {
 
+    private static final DateTimeFormatter HISTORY_TIME_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+
     private final AmethystTools plugin;
     private final ConfigManager configManager;
 
@@ -78,6 +88,9 @@ public class MessageManager {
         sendMessage(sender, "commands.help.give");
         sendMessage(sender, "commands.help.reload");
         sendMessage(sender, "commands.help.destroy");
+        sendMessage(sender, "commands.help.scan");
+        sendMessage(sender, "commands.help.history");
+        sendMessage(sender, "commands.help.stats");
         sendMessage(sender, "commands.help.help");
         sendMessage(sender, "commands.help.footer");
     }
@@ -89,12 +102,43 @@ public class MessageManager {
         sendMessage(sender, "commands.give.success", placeholders);
     }
 
+    public void sendGiveQueued(CommandSender sender, String item, String player) {
+        Map<String, String> placeholders = new HashMap<>();
+        placeholders.put("item", item);
+        placeholders.put("player", player);
+        sendMessage(sender, "commands.give.queued", placeholders);
+    }
+
+    public void sendBatchGiveSuccess(CommandSender sender, String item, int count, int players, int queued, int limited) {
+        Map<String, String> placeholders = new HashMap<>();
+        placeholders.put("item", item);
+        placeholders.put("count", String.valueOf(count));
+        placeholders.put("players", String.valueOf(players));
+        placeholders.put("queued", String.valueOf(queued));
+        placeholders.put("limited", String.valueOf(limited));
+        sendMessage(sender, "commands.give.batch-success", placeholders);
+    }
+
+    public void sendPendingDelivered(Player player, int delivered, int remaining) {
+        Map<String, String> placeholders = new HashMap<>();
+        placeholders.put("amount", String.valueOf(delivered));
+        placeholders.put("remaining", String.valueOf(remaining));
+        sendMessage(player, "commands.give.pending-delivered", placeholders);
+    }
+
     public void sendInventoryFull(CommandSender sender, String player) {
         Map<String, String> placeholders = new HashMap<>();
         placeholders.put("player", player);
         sendMessage(sender, "commands.give.inventory-full", placeholders);
     }
 
+    public void sendToolLimitReached(CommandSender sender, String player, int max) {
+        Map<String, String> placeholders = new HashMap<>();
+        placeholders.put("player", player);
+        placeholders.put("max", String.valueOf(max));
+        sendMessage(sender, "commands.give.limit-reached", placeholders);
+    }
+
     public void sendItemReceived(Player player, String item) {
         Map<String, String> placeholders = new HashMap<>();
         placeholders.put("item", item);
@@ -117,6 +161,79 @@ public class MessageManager {
         sendMessage(sender, "commands.destroy.invalid-uuid");
     }
 
+    public void sendHistory(CommandSender sender, String target, List<AuditEvent> events) {
+        Map<String, String> placeholders = new HashMap<>();
+        placeholders.put("target", target);
+        if (events.isEmpty()) {
+            sendMessage(sender, "commands.history.empty", placeholders);
+            return;
+        }
+
+        sendMessage(sender, "commands.history.header", placeholders);
+        for (AuditEvent event : events) {
+            Map<String, String> entry = new HashMap<>();
+            entry.put("time", HISTORY_TIME_FORMAT.format(Instant.ofEpochMilli(event.time())));
+            entry.put("event", event.type().name().toLowerCase());
+            entry.put("tool", event.toolType() != null ? getItemName(event.toolType().getConfigName()) : "?");
+            entry.put("uuid", event.toolUUID().toString());
+
+            String player = "-";
+            if (event.playerUUID() != null) {
+                String name = Bukkit.getOfflinePlayer(event.playerUUID()).getName();
+                player = name != null ? name : event.playerUUID().toString();
+            }
+            entry.put("player", player);
+            entry.put("amount", event.type() == AuditEvent.Type.USE ? " x" + event.amount() : "");
+            sendMessage(sender, "commands.history.entry", entry);
+        }
+    }
+
+    /**
+     * @param stats Stats indexed by {@link ToolStat} ordinal, null if there are none
+     */
+    public void sendStats(CommandSender sender, String target, long[] stats) {
+        Map<String, String> placeholders = new HashMap<>();
+        placeholders.put("target", target);
+        if (stats == null) {
+            sendMessage(sender, "commands.stats.empty", placeholders);
+            return;
+        }
+
+        placeholders.putAll(MessageUtil.statPlaceholders(stats));
+        sendMessage(sender, "commands.stats.header", placeholders);
+        sendMessage(sender, "commands.stats.tools", placeholders);
+        sendMessage(sender, "commands.stats.economy", placeholders);
+    }
+
+    public void sendScanStarted(CommandSender sender, int files, int threads) {
+        Map<String, String> placeholders = new HashMap<>();
+        placeholders.put("files", String.valueOf(files));
+        placeholders.put("threads", String.valueOf(threads));
+        sendMessage(sender, "commands.scan.started", placeholders);
+    }
+
+    public void sendScanProgress(CommandSender sender, int scanned, int files, long rate, int removed, int affected) {
+        Map<String, String> placeholders = new HashMap<>();
+        placeholders.put("scanned", String.valueOf(scanned));
+        placeholders.put("files", String.valueOf(files));
+        placeholders.put("rate", String.valueOf(rate));
+        placeholders.put("removed", String.valueOf(removed));
+        placeholders.put("affected", String.valueOf(affected));
+        sendMessage(sender, "commands.scan.progress", placeholders);
+    }
+
+    public void sendScanFinished(CommandSender sender, String time, int scanned, int removed, int affected,
+                                 int skipped, int failed) {
+        Map<String, String> placeholders = new HashMap<>();
+        placeholders.put("time", time);
+        placeholders.put("scanned", String.valueOf(scanned));
+        placeholders.put("removed", String.valueOf(removed));
+        placeholders.put("affected", String.valueOf(affected));
+        placeholders.put("skipped", String.valueOf(skipped));
+        placeholders.put("failed", String.valueOf(failed));
+        sendMessage(sender, "commands.scan.finished", placeholders);
+    }
+
     public void sendCooldownMessage(Player player, String toolType, long remainingTime) {
         Map<String, String> placeholders = new HashMap<>();
         placeholders.put("time", String.valueOf(remainingTime));
@@ -143,7 +260,13 @@ public class MessageManager {
         sendMessage(player, "timer.destroyed", placeholders);
     }
 
+    /**
+     * @return The item name from messages.yml, or the configured tool name for tools without one
+     */
     public String getItemName(String toolType) {
+        if (!configManager.getMessages().contains("item-names." + toolType)) {
+            return configManager.getToolName(toolType);
+        }
         return getMessage("item-names." + toolType);
     }
 }
\ No newline at end of file
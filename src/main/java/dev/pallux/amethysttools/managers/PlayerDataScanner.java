@@ -0,0 +1,445 @@
+package dev.pallux.amethysttools.managers;
+
+import dev.pallux.amethysttools.AmethystTools;
+import dev.pallux.amethysttools.models.ToolHandle;
+import dev.pallux.amethysttools.storage.ToolTombstones;
+import dev.pallux.amethysttools.utils.MessageUtil;
+import dev.pallux.amethysttools.utils.NbtIo;
+import org.bukkit.Bukkit;
+import org.bukkit.NamespacedKey;
+import org.bukkit.World;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * Removes expired and destroyed tools from the data files of offline players, which the
+ * in-game checks only reach once the player logs in again. Files are streamed on a worker
+ * pool; only files that actually hold a dead tool are parsed in full and atomically replaced.
+ */
+public class PlayerDataScanner {
+
+    private static final String VALUES_COMPOUND = "PublicBukkitValues";
+    private static final String CUSTOM_DATA = "minecraft:custom_data";
+    private static final String FILE_SUFFIX = ".dat";
+    private static final long PROGRESS_INTERVAL_TICKS = 100L;
+    private static final long LOGIN_WAIT_MS = 5000L;
+
+    private final AmethystTools plugin;
+    private final ToolManager toolManager;
+    private final MessageManager messageManager;
+    private final String idKey;
+    private final String toolKey;
+    private final String uuidKey;
+    private final String createdKey;
+
+    // Players that were online or logged in during the scan, their files are left alone
+    private final Set<UUID> skipped = ConcurrentHashMap.newKeySet();
+    private final Set<UUID> rewriting = ConcurrentHashMap.newKeySet();
+
+    private volatile Scan current;
+
+    public PlayerDataScanner(AmethystTools plugin) {
+        this.plugin = plugin;
+        this.toolManager = plugin.getToolManager();
+        this.messageManager = plugin.getMessageManager();
+        this.idKey = new NamespacedKey(plugin, "tool_id").toString();
+        this.toolKey = new NamespacedKey(plugin, "amethyst_tool").toString();
+        this.uuidKey = new NamespacedKey(plugin, "tool_uuid").toString();
+        this.createdKey = new NamespacedKey(plugin, "created_time").toString();
+    }
+
+    public boolean isRunning() {
+        return current != null;
+    }
+
+    /**
+     * Starts a scan of the main world's playerdata folder. Must be called on the main thread.
+     * @param sender Receives progress reports
+     * @return false if a scan is already running
+     */
+    public boolean start(CommandSender sender) {
+        if (current != null) return false;
+
+        World world = Bukkit.getWorlds().get(0);
+        File folder = new File(world.getWorldFolder(), "playerdata");
+        int threads = plugin.getConfigManager().getScannerThreads();
+
+        skipped.clear();
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            skipped.add(player.getUniqueId());
+        }
+
+        // The registry is main-thread only, the workers get a copy of everything they need
+        Scan scan = new Scan(sender, folder, threads, new ToolIdSet(toolManager.snapshotToolIds()),
+                toolManager.isRegistryAuthoritative(), toolManager.getTombstones(),
+                toolManager.getLifetimeMillis(), System.currentTimeMillis());
+        current = scan;
+        scan.start();
+        return true;
+    }
+
+    /**
+     * Keeps the scanner away from a player's file while they log in. Called from the async
+     * pre-login event, before the server reads the file.
+     */
+    public void onPreLogin(UUID playerUUID) {
+        if (current == null) return;
+
+        skipped.add(playerUUID);
+        long deadline = System.currentTimeMillis() + LOGIN_WAIT_MS;
+        while (rewriting.contains(playerUUID) && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(5L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Stops a running scan (called on disable). Files are replaced atomically, so an
+     * interrupted scan leaves every file either untouched or fully rewritten.
+     */
+    public void shutdown() {
+        Scan scan = current;
+        if (scan != null) {
+            scan.cancel();
+        }
+    }
+
+    /**
+     * Decides whether the PublicBukkitValues compound of an item belongs to a dead tool
+     */
+    private boolean isDead(Map<String, Object> values, Scan scan) {
+        ToolHandle handle = null;
+        boolean unsigned = true;
+        if (values.get(idKey) instanceof long[] identity) {
+            handle = toolManager.decodeIdentity(identity);
+            if (handle != null && scan.removeForged && toolManager.isForgedIdentity(identity)) return true;
+            unsigned = toolManager.isUnsignedIdentity(identity);
+        } else if (values.get(toolKey) instanceof String) {
+            UUID toolUUID = null;
+            if (values.get(uuidKey) instanceof String uuidString) {
+                try {
+                    toolUUID = UUID.fromString(uuidString);
+                } catch (IllegalArgumentException ignored) {
+                    // Same as in game, a tool without a valid UUID is dead
+                }
+            }
+            long creationTime = values.get(createdKey) instanceof Long created ? created : 0;
+            handle = new ToolHandle(null, toolUUID, creationTime);
+        }
+        if (handle == null) return false;
+
+        UUID toolUUID = handle.getToolUUID();
+        long creationTime = handle.getCreationTime();
+        if (toolUUID == null) return scan.authoritative;
+        if (creationTime > 0 && creationTime + scan.lifetimeMillis <= scan.startedAt) return true;
+        if (scan.tombstones.contains(toolUUID)) return true;
+        // Same rule as in game: an unsigned tool is only genuine if it predates the signing key
+        if (unsigned && scan.removeForged && creationTime > toolManager.getMigrationCutoff()) return true;
+        return scan.authoritative && !scan.known.contains(toolUUID);
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean isDeadItem(Object tag, Scan scan) {
+        if (!(tag instanceof Map<?, ?> item)) return false;
+        if (!(item.get("components") instanceof Map<?, ?> components)) return false;
+        if (!(components.get(CUSTOM_DATA) instanceof Map<?, ?> customData)) return false;
+        if (!(customData.get(VALUES_COMPOUND) instanceof Map<?, ?> values)) return false;
+        return isDead((Map<String, Object>) values, scan);
+    }
+
+    /**
+     * Removes dead tools anywhere in the tree: inventories, ender chests, and item lists nested
+     * in shulker boxes or bundles. Container entries wrap the item as {slot, item}.
+     * @return The number of items removed
+     */
+    private int purge(Object tag, Scan scan) {
+        int removed = 0;
+        if (tag instanceof Map<?, ?> compound) {
+            for (Object value : compound.values()) {
+                removed += purge(value, scan);
+            }
+        } else if (tag instanceof NbtIo.ListTag list && list.elementType() == NbtIo.TAG_COMPOUND) {
+            Iterator<Object> iterator = list.values().iterator();
+            while (iterator.hasNext()) {
+                Object element = iterator.next();
+                if (isDeadItem(element, scan) || isDeadItem(((Map<?, ?>) element).get("item"), scan)) {
+                    iterator.remove();
+                    removed++;
+                } else {
+                    removed += purge(element, scan);
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Scans a single player file
+     * @return The number of tools removed from it
+     */
+    private int scanFile(Path file, UUID playerUUID, Scan scan) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        if (!NbtIo.scanCompressed(new ByteArrayInputStream(bytes), VALUES_COMPOUND, values -> isDead(values, scan))) {
+            return 0;
+        }
+
+        Map<String, Object> root = NbtIo.readCompressed(new ByteArrayInputStream(bytes));
+        int removed = purge(root, scan);
+        if (removed == 0) return 0;
+
+        // Claim the file first, then re-check, so a login racing this write either waits or is seen
+        rewriting.add(playerUUID);
+        try {
+            if (skipped.contains(playerUUID)) {
+                scan.skippedOnline.incrementAndGet();
+                return 0;
+            }
+            replace(file, root);
+        } finally {
+            rewriting.remove(playerUUID);
+        }
+        return removed;
+    }
+
+    private void replace(Path file, Map<String, Object> root) throws IOException {
+        Path tempFile = file.resolveSibling(file.getFileName() + ".atools-tmp");
+        try (FileOutputStream out = new FileOutputStream(tempFile.toFile())) {
+            NbtIo.writeCompressed(root, out);
+            out.getFD().sync();
+        }
+
+        try {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static UUID parsePlayer(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.endsWith(FILE_SUFFIX)) return null;
+        try {
+            return UUID.fromString(name.substring(0, name.length() - FILE_SUFFIX.length()));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * One run of the scanner
+     */
+    private class Scan {
+
+        private final CommandSender sender;
+        private final File folder;
+        private final int threads;
+        private final ToolIdSet known;
+        private final boolean authoritative;
+        private final boolean removeForged;
+        private final ToolTombstones tombstones;
+        private final long lifetimeMillis;
+        private final long startedAt;
+
+        private final AtomicInteger scanned = new AtomicInteger();
+        private final AtomicInteger affected = new AtomicInteger();
+        private final AtomicInteger removed = new AtomicInteger();
+        private final AtomicInteger skippedOnline = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private volatile int total;
+        private volatile boolean cancelled;
+        private ExecutorService workers;
+        private BukkitTask progressTask;
+
+        private Scan(CommandSender sender, File folder, int threads, ToolIdSet known, boolean authoritative,
+                     ToolTombstones tombstones, long lifetimeMillis, long startedAt) {
+            this.sender = sender;
+            this.folder = folder;
+            this.threads = threads;
+            this.known = known;
+            this.authoritative = authoritative;
+            this.removeForged = plugin.getConfigManager().isRemoveForgedEnabled();
+            this.tombstones = tombstones;
+            this.lifetimeMillis = lifetimeMillis;
+            this.startedAt = startedAt;
+        }
+
+        private void start() {
+            AtomicInteger threadId = new AtomicInteger();
+            // A short queue plus caller-runs keeps the listing thread from racing ahead of the workers
+            workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(threads * 64), runnable -> {
+                Thread thread = new Thread(runnable, "AmethystTools-Scanner-" + threadId.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.CallerRunsPolicy());
+
+            progressTask = new BukkitRunnable() {
+                @Override
+                public void run() {
+                    report(false);
+                }
+            }.runTaskTimer(plugin, PROGRESS_INTERVAL_TICKS, PROGRESS_INTERVAL_TICKS);
+
+            Thread coordinator = new Thread(this::run, "AmethystTools-Scanner");
+            coordinator.setDaemon(true);
+            coordinator.start();
+        }
+
+        private void run() {
+            List<Path> files = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder.toPath(), "*" + FILE_SUFFIX)) {
+                for (Path file : stream) {
+                    files.add(file);
+                }
+            } catch (NoSuchFileException e) {
+                // No player has ever joined, nothing to scan
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.SEVERE, "Could not list " + folder, e);
+            }
+            total = files.size();
+            Bukkit.getScheduler().runTask(plugin, () -> messageManager.sendScanStarted(sender, total, threads));
+
+            for (Path file : files) {
+                if (cancelled) break;
+                UUID playerUUID = parsePlayer(file);
+                if (playerUUID == null) {
+                    scanned.incrementAndGet();
+                    continue;
+                }
+                workers.execute(() -> scanOne(file, playerUUID));
+            }
+
+            workers.shutdown();
+            try {
+                workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            if (plugin.isEnabled()) {
+                Bukkit.getScheduler().runTask(plugin, this::finish);
+            }
+        }
+
+        private void scanOne(Path file, UUID playerUUID) {
+            if (cancelled) return;
+            try {
+                if (skipped.contains(playerUUID)) {
+                    skippedOnline.incrementAndGet();
+                    return;
+                }
+                int count = scanFile(file, playerUUID, this);
+                if (count > 0) {
+                    affected.incrementAndGet();
+                    removed.addAndGet(count);
+                }
+            } catch (IOException | RuntimeException e) {
+                failed.incrementAndGet();
+                plugin.getLogger().warning("Could not scan " + file.getFileName() + ": " + e.getMessage());
+            } finally {
+                scanned.incrementAndGet();
+            }
+        }
+
+        private void cancel() {
+            cancelled = true;
+            if (progressTask != null) {
+                progressTask.cancel();
+            }
+            if (workers != null) {
+                workers.shutdown();
+                try {
+                    workers.awaitTermination(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            current = null;
+        }
+
+        private void finish() {
+            progressTask.cancel();
+            current = null;
+            report(true);
+        }
+
+        private void report(boolean finished) {
+            long elapsed = Math.max(1L, System.currentTimeMillis() - startedAt);
+            int done = scanned.get();
+            long rate = done * 1000L / elapsed;
+
+            plugin.getLogger().info((finished ? "Player data scan finished: " : "Player data scan: ")
+                    + done + "/" + total + " files (" + rate + " files/s), removed " + removed.get()
+                    + " tools from " + affected.get() + " files, " + skippedOnline.get() + " skipped, "
+                    + failed.get() + " failed");
+
+            if (sender instanceof Player player && !player.isOnline()) return;
+            if (finished) {
+                messageManager.sendScanFinished(sender, MessageUtil.formatTime(elapsed / 1000), done,
+                        removed.get(), affected.get(), skippedOnline.get(), failed.get());
+            } else {
+                messageManager.sendScanProgress(sender, done, total, rate, removed.get(), affected.get());
+            }
+        }
+    }
+
+    /**
+     * Read-only open addressing set of tool UUIDs, safe to share between worker threads
+     */
+    private static final class ToolIdSet {
+
+        private final long[] most;
+        private final long[] least;
+        private final boolean[] used;
+        private final int mask;
+
+        private ToolIdSet(long[] ids) {
+            int count = ids.length / 2;
+            int capacity = Integer.highestOneBit(Math.max(16, count * 2 - 1)) << 1;
+            this.most = new long[capacity];
+            this.least = new long[capacity];
+            this.used = new boolean[capacity];
+            this.mask = capacity - 1;
+
+            for (int i = 0; i < count; i++) {
+                int bucket = bucket(ids[i * 2], ids[i * 2 + 1]);
+                while (used[bucket]) {
+                    bucket = (bucket + 1) & mask;
+                }
+                most[bucket] = ids[i * 2];
+                least[bucket] = ids[i * 2 + 1];
+                used[bucket] = true;
+            }
+        }
+
+        private boolean contains(UUID uuid) {
+            long m = uuid.getMostSignificantBits();
+            long l = uuid.getLeastSignificantBits();
+            for (int bucket = bucket(m, l); used[bucket]; bucket = (bucket + 1) & mask) {
+                if (most[bucket] == m && least[bucket] == l) return true;
+            }
+            return false;
+        }
+
+        private int bucket(long m, long l) {
+            long hash = (m ^ Long.rotateLeft(l, 32)) * 0x9E3779B97F4A7C15L;
+            return (int) (hash >>> 32) & mask;
+        }
+    }
+}
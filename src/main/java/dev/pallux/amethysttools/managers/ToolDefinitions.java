@@ -0,0 +1,265 @@
+package dev.pallux.amethysttools.managers;
+
+import dev.pallux.amethysttools.AmethystTools;
+import dev.pallux.amethysttools.models.Ability;
+import dev.pallux.amethysttools.models.ToolDefinition;
+import dev.pallux.amethysttools.models.ToolType;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.Registry;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.enchantments.Enchantment;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.logging.Level;
+
+/**
+ * Compiles the tools section of the config into {@link ToolDefinition}s, stored in an array
+ * indexed by definition id. Built-in tools use their tool type ordinal as id, variants get an id
+ * from data/tool-ids.yml that never changes once assigned.
+ * <p>
+ * Items and the registry only store a tool type, so a variant's id travels in its tool UUID:
+ * variants use version 8 UUIDs with the id in the top 16 bits, while built-in tools keep
+ * random version 4 UUIDs. This keeps every storage format unchanged.
+ */
+public class ToolDefinitions {
+
+    private static final int VARIANT_UUID_VERSION = 8;
+    private static final int MAX_ID = 0xFFFF;
+
+    private final AmethystTools plugin;
+    private final ConfigManager configManager;
+    private final File idsFile;
+    private final Map<String, Integer> ids;
+    private ToolDefinition[] byId;
+    private ToolDefinition[] defaults;
+    private Map<String, ToolDefinition> byKey;
+
+    public ToolDefinitions(AmethystTools plugin) {
+        this.plugin = plugin;
+        this.configManager = plugin.getConfigManager();
+        this.idsFile = new File(new File(plugin.getDataFolder(), "data"), "tool-ids.yml");
+        this.ids = new HashMap<>();
+
+        loadIds();
+        load();
+    }
+
+    /**
+     * Recompiles every definition from the config
+     */
+    public void load() {
+        ToolType[] toolTypes = ToolType.values();
+        List<ToolDefinition> compiled = new ArrayList<>();
+        boolean assigned = false;
+
+        for (ToolType toolType : toolTypes) {
+            compiled.add(compile(toolType.ordinal(), toolType.getConfigName(), Ability.of(toolType), true));
+        }
+
+        for (String key : configManager.getToolKeys()) {
+            if (ToolType.fromConfigName(key) != null) continue;
+
+            Ability ability = Ability.fromConfigName(configManager.getToolSection(key).getString("ability", ""));
+            if (ability == null) {
+                plugin.getLogger().warning("Tool '" + key + "' has no valid ability, skipping it");
+                continue;
+            }
+
+            Integer id = ids.get(key);
+            if (id == null) {
+                id = nextId(toolTypes.length);
+                if (id > MAX_ID) {
+                    plugin.getLogger().warning("No tool ids left for '" + key + "', skipping it");
+                    continue;
+                }
+                ids.put(key, id);
+                assigned = true;
+            }
+            compiled.add(compile(id, key, ability, false));
+        }
+
+        int size = 0;
+        for (ToolDefinition definition : compiled) {
+            size = Math.max(size, definition.id() + 1);
+        }
+
+        ToolDefinition[] newById = new ToolDefinition[size];
+        ToolDefinition[] newDefaults = new ToolDefinition[toolTypes.length];
+        Map<String, ToolDefinition> newByKey = new LinkedHashMap<>();
+        for (ToolDefinition definition : compiled) {
+            newById[definition.id()] = definition;
+            newByKey.put(definition.key(), definition);
+            if (definition.builtin()) {
+                newDefaults[definition.toolType().ordinal()] = definition;
+            }
+        }
+
+        byId = newById;
+        defaults = newDefaults;
+        byKey = newByKey;
+
+        if (assigned) {
+            saveIds();
+        }
+    }
+
+    public ToolDefinition get(String key) {
+        return byKey.get(key);
+    }
+
+    public Collection<ToolDefinition> getAll() {
+        return Collections.unmodifiableCollection(byKey.values());
+    }
+
+    /**
+     * @return The built-in definition for a tool type
+     */
+    public ToolDefinition getDefault(ToolType toolType) {
+        return defaults[toolType.ordinal()];
+    }
+
+    /**
+     * Finds the definition of a tool. Tools of a variant that was removed from the config,
+     * or whose ability changed, fall back to the built-in tool of their type.
+     */
+    public ToolDefinition resolve(ToolType toolType, UUID toolUUID) {
+        if (toolType == null) return null;
+
+        if (toolUUID != null && toolUUID.version() == VARIANT_UUID_VERSION) {
+            int id = (int) (toolUUID.getMostSignificantBits() >>> 48);
+            ToolDefinition[] current = byId;
+            if (id < current.length && current[id] != null && current[id].toolType() == toolType) {
+                return current[id];
+            }
+        }
+        return defaults[toolType.ordinal()];
+    }
+
+    /**
+     * @return A fresh tool UUID that resolves back to the definition
+     */
+    public UUID newToolUUID(ToolDefinition definition) {
+        UUID random = UUID.randomUUID();
+        if (definition.builtin()) return random;
+
+        long most = ((long) definition.id() << 48)
+                | (random.getMostSignificantBits() & 0x0000_FFFF_FFFF_0FFFL)
+                | ((long) VARIANT_UUID_VERSION << 12);
+        // The variant bits of the random UUID are already the IETF ones
+        return new UUID(most, random.getLeastSignificantBits());
+    }
+
+    private ToolDefinition compile(int id, String key, Ability ability, boolean builtin) {
+        ConfigurationSection section = configManager.getToolSection(key);
+        ToolType base = ability.getToolType();
+
+        Material material = Material.matchMaterial(section.getString("material", ""));
+        if (material == null) {
+            material = getBaseMaterial(base);
+        }
+
+        Map<Enchantment, Integer> enchantments = new LinkedHashMap<>();
+        ConfigurationSection enchantSection = section.getConfigurationSection("enchantments");
+        if (enchantSection != null) {
+            for (String name : enchantSection.getKeys(false)) {
+                Enchantment enchantment = Registry.ENCHANTMENT.get(NamespacedKey.minecraft(name.toLowerCase()));
+                if (enchantment == null) {
+                    plugin.getLogger().warning("Unknown enchantment '" + name + "' on tool '" + key + "'");
+                    continue;
+                }
+                enchantments.put(enchantment, enchantSection.getInt(name, 1));
+            }
+        } else {
+            addDefaultEnchantments(enchantments, base);
+        }
+
+        // Variants without their own blacklist share the pickaxe's
+        List<String> blacklistNames = section.isList("blacklisted-blocks")
+                ? section.getStringList("blacklisted-blocks")
+                : configManager.getToolSection(ToolType.PICKAXE.getConfigName()).getStringList("blacklisted-blocks");
+        Set<Material> blacklist = EnumSet.noneOf(Material.class);
+        for (String name : blacklistNames) {
+            Material blocked = Material.matchMaterial(name);
+            if (blocked != null) {
+                blacklist.add(blocked);
+            }
+        }
+
+        Material fluid = Material.matchMaterial(section.getString("fluid", "WATER"));
+        if (fluid == null) {
+            fluid = Material.WATER;
+        }
+
+        return new ToolDefinition(id, key, builtin, ability, section.getBoolean("enabled", true),
+                material, Collections.unmodifiableMap(enchantments),
+                Math.max(0, section.getInt("radius", 1)),
+                Math.max(1, section.getInt("drain-amount", 27)),
+                Math.max(0, section.getInt("cooldown", base == ToolType.ROCKET ? 2 : 5)),
+                fluid, Collections.unmodifiableSet(blacklist));
+    }
+
+    private static Material getBaseMaterial(ToolType toolType) {
+        return switch (toolType) {
+            case TREE_CHOPPER, SELL_AXE -> Material.NETHERITE_AXE;
+            case PICKAXE -> Material.NETHERITE_PICKAXE;
+            case BUCKET -> Material.BUCKET;
+            case TORCH -> Material.TORCH;
+            case ROCKET -> Material.FIREWORK_ROCKET;
+        };
+    }
+
+    private static void addDefaultEnchantments(Map<Enchantment, Integer> enchantments, ToolType toolType) {
+        switch (toolType) {
+            case TREE_CHOPPER, SELL_AXE -> {
+                enchantments.put(Enchantment.EFFICIENCY, 5);
+                enchantments.put(Enchantment.UNBREAKING, 3);
+                enchantments.put(Enchantment.MENDING, 1);
+            }
+            case PICKAXE -> {
+                enchantments.put(Enchantment.EFFICIENCY, 5);
+                enchantments.put(Enchantment.UNBREAKING, 3);
+                enchantments.put(Enchantment.MENDING, 1);
+                enchantments.put(Enchantment.FORTUNE, 3);
+            }
+            case BUCKET, TORCH, ROCKET -> {
+                // Add a fake enchantment effect for visual appeal
+                enchantments.put(Enchantment.EFFICIENCY, 10);
+            }
+        }
+    }
+
+    private int nextId(int firstVariantId) {
+        int next = firstVariantId;
+        for (int id : ids.values()) {
+            next = Math.max(next, id + 1);
+        }
+        return next;
+    }
+
+    private void loadIds() {
+        if (!idsFile.exists()) return;
+
+        YamlConfiguration data = YamlConfiguration.loadConfiguration(idsFile);
+        for (String key : data.getKeys(false)) {
+            ids.put(key, data.getInt(key));
+        }
+    }
+
+    private void saveIds() {
+        YamlConfiguration data = new YamlConfiguration();
+        ids.entrySet().stream()
+                .sorted(Map.Entry.comparingByValue())
+                .forEach(entry -> data.set(entry.getKey(), entry.getValue()));
+
+        try {
+            idsFile.getParentFile().mkdirs();
+            data.save(idsFile);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Could not save tool ids", e);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package dev.pallux.amethysttools.managers;
+
+import dev.pallux.amethysttools.models.ToolHandle;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Tiny direct-mapped cache of decoded tool identities, keyed by item stack identity
+ * and valid for a single server tick. Only used from the main thread.
+ */
+class ToolIdentityCache {
+
+    private static final int SIZE = 64; // Must be a power of two
+    private static final int MASK = SIZE - 1;
+
+    private final ItemStack[] items = new ItemStack[SIZE];
+    private final ToolHandle[] handles = new ToolHandle[SIZE];
+    private final int[] ticks = new int[SIZE];
+
+    /**
+     * @return true if the item was decoded this tick, its handle is then available via {@link #handle(ItemStack)}
+     */
+    boolean contains(ItemStack item, int tick) {
+        int slot = slot(item);
+        return items[slot] == item && ticks[slot] == tick;
+    }
+
+    ToolHandle handle(ItemStack item) {
+        return handles[slot(item)];
+    }
+
+    void put(ItemStack item, ToolHandle handle, int tick) {
+        int slot = slot(item);
+        items[slot] = item;
+        handles[slot] = handle;
+        ticks[slot] = tick;
+    }
+
+    void invalidate(ItemStack item) {
+        int slot = slot(item);
+        if (items[slot] == item) {
+            items[slot] = null;
+            handles[slot] = null;
+        }
+    }
+
+    private static int slot(ItemStack item) {
+        int hash = System.identityHashCode(item);
+        return (hash ^ (hash >>> 16)) & MASK;
+    }
+}
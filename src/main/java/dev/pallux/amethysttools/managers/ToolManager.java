@@ -1,288 +1,814 @@
 package dev.pallux.amethysttools.managers;
 
 import dev.pallux.amethysttools.AmethystTools;
+import dev.pallux.amethysttools.models.Ability;
 import dev.pallux.amethysttools.models.AmethystTool;
+import dev.pallux.amethysttools.models.ToolDefinition;
+import dev.pallux.amethysttools.models.ToolHandle;
+import dev.pallux.amethysttools.models.ToolStat;
+import dev.pallux.amethysttools.models.ToolTemplate;
 import dev.pallux.amethysttools.models.ToolType;
+import dev.pallux.amethysttools.storage.AuditEvent;
+import dev.pallux.amethysttools.storage.AuditLog;
+import dev.pallux.amethysttools.storage.JournalToolStore;
+import dev.pallux.amethysttools.storage.MappedToolStore;
+import dev.pallux.amethysttools.storage.SqlToolStore;
+import dev.pallux.amethysttools.storage.ToolRegistry;
+import dev.pallux.amethysttools.storage.ToolStore;
+import dev.pallux.amethysttools.storage.ToolTombstones;
 import dev.pallux.amethysttools.utils.MessageUtil;
+import io.papermc.paper.persistence.PersistentDataContainerView;
+import net.kyori.adventure.text.Component;
 import org.bukkit.Bukkit;
-import org.bukkit.Material;
 import org.bukkit.NamespacedKey;
-import org.bukkit.enchantments.Enchantment;
 import org.bukkit.entity.Player;
+import org.bukkit.inventory.EquipmentSlot;
+import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemFlag;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataContainer;
 import org.bukkit.persistence.PersistentDataType;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.logging.Level;
 
 public class ToolManager {
 
+    // Layout of the tool_id tag: [version << 8 | type ordinal, uuid msb, uuid lsb, creation time, signature x2]
+    private static final int ID_FORMAT_VERSION = 1;
+    private static final int ID_LENGTH = 4;
+    private static final int MAX_REPORTED_FORGERIES = 1024;
+
+    private static final Map<String, ToolType> TYPES_BY_NAME = new HashMap<>();
+
+    static {
+        for (ToolType toolType : ToolType.values()) {
+            TYPES_BY_NAME.put(toolType.name(), toolType);
+        }
+    }
+
     private final AmethystTools plugin;
     private final ConfigManager configManager;
     private final MessageManager messageManager;
-    private final Map<UUID, AmethystTool> activeTools;
+    private final ToolDefinitions definitions;
+    private ToolRegistry registry;
+    private ToolStore storage;
+    private final ExpiryScheduler expiryScheduler;
+    private final ToolIdentityCache identityCache;
+    private final ToolTombstones tombstones;
+    private final ToolSigner signer;
+    // Unsigned tools created after this can only be forged
+    private final long migrationCutoff;
+    private final AuditLog auditLog;
+    private final ToolStats toolStats;
+    // Forged tool UUIDs already logged, so a forged item in use does not flood the console
+    private final Set<UUID> reportedForgeries;
+    private final NamespacedKey idKey;
+    // Legacy string keys, migrated to idKey the first time a tool is read
     private final NamespacedKey toolKey;
     private final NamespacedKey createdKey;
     private final NamespacedKey uuidKey;
+    private final NamespacedKey statsKey;
+    private long lifetimeMillis;
+    // Indexed by definition id
+    private ToolTemplate[] templates;
 
     public ToolManager(AmethystTools plugin) {
         this.plugin = plugin;
         this.configManager = plugin.getConfigManager();
         this.messageManager = plugin.getMessageManager();
-        this.activeTools = new ConcurrentHashMap<>();
+        this.expiryScheduler = new ExpiryScheduler();
+        this.identityCache = new ToolIdentityCache();
+        this.tombstones = new ToolTombstones();
+        this.auditLog = plugin.getAuditLog();
+        this.toolStats = plugin.getToolStats();
+        this.reportedForgeries = Collections.newSetFromMap(new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Boolean> eldest) {
+                return size() > MAX_REPORTED_FORGERIES;
+            }
+        });
+        try {
+            this.signer = ToolSigner.load(new File(plugin.getDataFolder(), "secret.key"), plugin.getLogger());
+        } catch (IOException e) {
+            // Running without the key would make every existing tool look forged
+            throw new IllegalStateException("Could not load the tool signing key", e);
+        }
+        this.migrationCutoff = signer.getCreatedAt();
+        this.lifetimeMillis = configManager.getToolLifetime() * 24 * 60 * 60 * 1000L; // Convert days to milliseconds
+        this.idKey = new NamespacedKey(plugin, "tool_id");
         this.toolKey = new NamespacedKey(plugin, "amethyst_tool");
         this.createdKey = new NamespacedKey(plugin, "created_time");
         this.uuidKey = new NamespacedKey(plugin, "tool_uuid");
+        this.statsKey = new NamespacedKey(plugin, "tool_stats");
+        this.definitions = new ToolDefinitions(plugin);
 
+        compileTemplates();
         loadAllTools();
     }
 
     public ItemStack createTool(ToolType toolType) {
-        ItemStack item = createBaseItem(toolType);
-        UUID toolUUID = UUID.randomUUID();
+        return createTool(definitions.getDefault(toolType));
+    }
+
+    public ItemStack createTool(ToolDefinition definition) {
+        ToolType toolType = definition.toolType();
+        UUID toolUUID = definitions.newToolUUID(definition);
         long currentTime = System.currentTimeMillis();
+        ItemStack item = buildItem(definition, toolUUID, currentTime);
 
-        // Set persistent data
-        ItemMeta meta = item.getItemMeta();
-        if (meta != null) {
-            meta.getPersistentDataContainer().set(toolKey, PersistentDataType.STRING, toolType.name());
-            meta.getPersistentDataContainer().set(createdKey, PersistentDataType.LONG, currentTime);
-            meta.getPersistentDataContainer().set(uuidKey, PersistentDataType.STRING, toolUUID.toString());
-
-            // Set display name
-            String name = configManager.getToolName(toolType.getConfigName());
-            meta.displayName(MessageUtil.colorizeComponent(name));
-
-            // Set lore
-            List<String> lore = configManager.getToolLore(toolType.getConfigName());
-            List<String> finalLore = new ArrayList<>();
-
-            for (String line : lore) {
-                if (line.contains("{time}")) {
-                    long lifetime = configManager.getToolLifetime() * 24 * 60 * 60 * 1000L; // Convert days to milliseconds
-                    long timeLeft = (currentTime + lifetime - System.currentTimeMillis()) / 1000;
-                    line = line.replace("{time}", MessageUtil.formatTime(timeLeft));
-                }
-                if (line.contains("{uuid}")) {
-                    line = line.replace("{uuid}", toolUUID.toString());
-                }
-                if (line.contains("{amount}") && toolType == ToolType.BUCKET) {
-                    line = line.replace("{amount}", String.valueOf(configManager.getBucketDrainAmount()));
+        // Register the tool
+        int slot = registry.add(toolUUID, toolType, currentTime, null);
+        storage.logCreate(registry.view(slot));
+        auditLog.record(AuditEvent.Type.CREATE, toolUUID, toolType, null, 0);
+
+        return item;
+    }
+
+    /**
+     * Creates one tool per entry in owners, already assigned to that owner.
+     * All tools share one creation time and are registered and journaled as a single batch.
+     * @param definition The tool to create
+     * @param owners The owner of each tool, an owner may appear multiple times
+     * @return The created tools, in the same order as owners
+     */
+    public List<AmethystTool> issueTools(ToolDefinition definition, List<UUID> owners) {
+        ToolType toolType = definition.toolType();
+        long currentTime = System.currentTimeMillis();
+        List<AmethystTool> issued = new ArrayList<>(owners.size());
+
+        for (UUID owner : owners) {
+            UUID toolUUID = definitions.newToolUUID(definition);
+            issued.add(registry.view(registry.add(toolUUID, toolType, currentTime, owner)));
+            auditLog.record(AuditEvent.Type.CREATE, toolUUID, toolType, owner, 0);
+        }
+
+        storage.logCreateAll(issued);
+        return issued;
+    }
+
+    /**
+     * Builds the item for an existing tool from its definition's template
+     */
+    public ItemStack createItem(AmethystTool tool) {
+        UUID toolUUID = tool.getToolUUID();
+        return buildItem(definitions.resolve(tool.getToolType(), toolUUID), toolUUID, tool.getCreationTime());
+    }
+
+    private ItemStack buildItem(ToolDefinition definition, UUID toolUUID, long creationTime) {
+        ToolTemplate template = templates[definition.id()];
+        ItemStack item = template.newItem();
+        item.editMeta(meta -> {
+            meta.getPersistentDataContainer().set(idKey, PersistentDataType.LONG_ARRAY,
+                    encodeIdentity(definition.toolType(), toolUUID, creationTime));
+            meta.lore(template.renderLore(toolUUID));
+        });
+        return item;
+    }
+
+    /**
+     * Builds the prototype item and lore template for every tool definition from the config.
+     * Everything except the tool UUID is resolved here, so creating a tool is a clone plus one slot fill.
+     */
+    private void compileTemplates() {
+        int size = 0;
+        for (ToolDefinition definition : definitions.getAll()) {
+            size = Math.max(size, definition.id() + 1);
+        }
+
+        ToolTemplate[] compiled = new ToolTemplate[size];
+        String lifetime = MessageUtil.formatTime(lifetimeMillis / 1000);
+
+        for (ToolDefinition definition : definitions.getAll()) {
+            ItemStack prototype = new ItemStack(definition.material());
+            prototype.editMeta(meta -> {
+                // Set display name
+                String name = configManager.getToolName(definition.key());
+                meta.displayName(MessageUtil.colorizeComponent(name));
+
+                // Set enchantments
+                definition.enchantments().forEach((enchantment, level) -> meta.addEnchant(enchantment, level, true));
+
+                // Make unbreakable
+                meta.setUnbreakable(true);
+
+                // Hide attributes
+                meta.addItemFlags(ItemFlag.HIDE_ATTRIBUTES, ItemFlag.HIDE_ENCHANTS, ItemFlag.HIDE_UNBREAKABLE);
+            });
+
+            List<String> lore = new ArrayList<>();
+            for (String line : configManager.getToolLore(definition.key())) {
+                line = line.replace("{time}", lifetime);
+                if (definition.ability() == Ability.FLOOD_DRAIN) {
+                    line = line.replace("{amount}", String.valueOf(definition.amount()));
                 }
-                finalLore.add(line);
+                lore.add(line);
             }
 
-            meta.lore(finalLore.stream().map(MessageUtil::colorizeComponent).toList());
+            compiled[definition.id()] = ToolTemplate.compile(prototype, lore);
+        }
 
-            // Set enchantments
-            addEnchantments(meta, toolType);
+        templates = compiled;
+    }
 
-            // Make unbreakable
-            meta.setUnbreakable(true);
+    /**
+     * Decodes the tool identity of an item in a single read-only pass.
+     * Items are recognised by their tool data rather than their material, so tools whose material
+     * changed or whose variant was removed from the config are still found. Items without any
+     * data are rejected before it is read.
+     * @param item The item to inspect
+     * @return The decoded handle, or null if the item is not an Amethyst tool
+     */
+    public ToolHandle readTool(ItemStack item) {
+        return readTool(item, null);
+    }
 
-            // Hide attributes
-            meta.addItemFlags(ItemFlag.HIDE_ATTRIBUTES, ItemFlag.HIDE_ENCHANTS, ItemFlag.HIDE_UNBREAKABLE);
+    /**
+     * Like {@link #readTool(ItemStack)}, for callers off the main thread where the registry cannot
+     * be consulted: unsigned tools from before signing are only accepted if known vouches for them
+     * @param known Whether a tool is registered, e.g. by a published snapshot, or null to reject every unsigned tool
+     */
+    public ToolHandle readTool(ItemStack item, Predicate<UUID> known) {
+        if (item == null || !item.hasItemMeta()) return null;
 
-            item.setItemMeta(meta);
+        if (!Bukkit.isPrimaryThread()) {
+            return decodeTool(item, false, known);
         }
 
-        // Create AmethystTool object
-        AmethystTool amethystTool = new AmethystTool(toolUUID, toolType, currentTime, null);
-        activeTools.put(toolUUID, amethystTool);
+        int tick = Bukkit.getCurrentTick();
+        if (identityCache.contains(item, tick)) {
+            return identityCache.handle(item);
+        }
 
-        return item;
+        ToolHandle handle = decodeTool(item, true, null);
+        identityCache.put(item, handle, tick);
+        return handle;
     }
 
-    private ItemStack createBaseItem(ToolType toolType) {
-        return new ItemStack(switch (toolType) {
-            case TREE_CHOPPER, SELL_AXE -> Material.NETHERITE_AXE;
-            case PICKAXE -> Material.NETHERITE_PICKAXE;
-            case BUCKET -> Material.BUCKET;
-            case TORCH -> Material.TORCH;
-            case ROCKET -> Material.FIREWORK_ROCKET;
-        });
+    private ToolHandle decodeTool(ItemStack item, boolean migrate, Predicate<UUID> known) {
+        PersistentDataContainerView data = item.getPersistentDataContainer();
+        long[] identity = data.get(idKey, PersistentDataType.LONG_ARRAY);
+        if (identity != null) {
+            ToolHandle handle = decodeIdentity(identity);
+            if (handle == null || signer.verify(identity, ID_LENGTH)) {
+                return handle;
+            }
+            return checkUnverified(item, handle, identity.length >= ID_LENGTH + 2, migrate, known);
+        }
+
+        ToolHandle legacy = decodeLegacy(data);
+        return legacy != null ? checkUnverified(item, legacy, false, migrate, known) : null;
     }
 
-    private void addEnchantments(ItemMeta meta, ToolType toolType) {
-        switch (toolType) {
-            case TREE_CHOPPER, SELL_AXE -> {
-                meta.addEnchant(Enchantment.EFFICIENCY, 5, true);
-                meta.addEnchant(Enchantment.UNBREAKING, 3, true);
-                meta.addEnchant(Enchantment.MENDING, 1, true);
-            }
-            case PICKAXE -> {
-                meta.addEnchant(Enchantment.EFFICIENCY, 5, true);
-                meta.addEnchant(Enchantment.UNBREAKING, 3, true);
-                meta.addEnchant(Enchantment.MENDING, 1, true);
-                meta.addEnchant(Enchantment.FORTUNE, 3, true);
-            }
-            case BUCKET, TORCH, ROCKET -> {
-                // Add a fake enchantment effect for visual appeal
-                meta.addEnchant(Enchantment.EFFICIENCY, 10, true);
+    /**
+     * Handles tool data that did not pass signature verification. Tools from before signing
+     * carry no signature and are accepted if they predate the signing key and the registry holds
+     * them with the same type and creation time, in which case they are re-encoded and signed.
+     * Everything else is treated as forged.
+     * @param signed Whether the item carried a (wrong) signature
+     * @param migrate Whether the item may be rewritten, only on the main thread
+     * @param known Vouches for unsigned tools off the main thread, see {@link #readTool(ItemStack, Predicate)}
+     */
+    private ToolHandle checkUnverified(ItemStack item, ToolHandle handle, boolean signed, boolean migrate,
+                                      Predicate<UUID> known) {
+        if (!migrate) {
+            if (signed) return forged(handle);
+            // Not reported as forged, the tool may just be newer than what known has seen
+            return known != null && handle.getToolUUID() != null && handle.getCreationTime() <= migrationCutoff
+                    && known.test(handle.getToolUUID()) ? handle : null;
+        }
+        if (signed || handle.getToolUUID() == null || handle.getToolType() == null) {
+            return forged(handle);
+        }
+
+        int slot = registry.slotOf(handle.getToolUUID());
+        if (slot < 0 || handle.getCreationTime() > migrationCutoff
+                || registry.getToolType(slot) != handle.getToolType()
+                || registry.getCreationTime(slot) != handle.getCreationTime()) {
+            return forged(handle);
+        }
+
+        upgradeIdentity(item, handle);
+        return handle;
+    }
+
+    /**
+     * Logs a forged tool once and decides what the rest of the plugin sees
+     * @return A handle marked as forged, which counts as revoked, or null to treat the item as a plain item
+     */
+    private ToolHandle forged(ToolHandle handle) {
+        synchronized (reportedForgeries) {
+            if (reportedForgeries.add(handle.getToolUUID())) {
+                plugin.getLogger().warning("Rejected forged " + handle.getToolType() + " claiming tool UUID "
+                        + handle.getToolUUID() + (configManager.isRemoveForgedEnabled() ? ", removing it" : ""));
             }
         }
+
+        if (!configManager.isRemoveForgedEnabled()) return null;
+        return new ToolHandle(handle.getToolType(), handle.getToolUUID(), handle.getCreationTime(), true);
     }
 
-    public boolean isAmethystTool(ItemStack item) {
-        if (item == null || !item.hasItemMeta()) return false;
+    /**
+     * Checks the signature of an encoded identity without touching the registry, safe on any thread
+     * @return true if the identity carries a signature that does not match
+     */
+    boolean isForgedIdentity(long[] identity) {
+        return identity.length >= ID_LENGTH + 2 && !signer.verify(identity, ID_LENGTH);
+    }
 
-        ItemMeta meta = item.getItemMeta();
-        return meta.getPersistentDataContainer().has(toolKey, PersistentDataType.STRING);
+    /**
+     * @return true if the encoded identity predates signing
+     */
+    boolean isUnsignedIdentity(long[] identity) {
+        return identity.length < ID_LENGTH + 2;
     }
 
-    public ToolType getToolType(ItemStack item) {
-        if (!isAmethystTool(item)) return null;
+    ToolHandle decodeIdentity(long[] identity) {
+        if (identity.length < ID_LENGTH || (identity[0] >>> 8) != ID_FORMAT_VERSION) return null;
 
-        ItemMeta meta = item.getItemMeta();
-        String typeString = meta.getPersistentDataContainer().get(toolKey, PersistentDataType.STRING);
+        int ordinal = (int) (identity[0] & 0xFF);
+        ToolType[] types = ToolType.values();
+        ToolType toolType = ordinal < types.length ? types[ordinal] : null;
+        return new ToolHandle(toolType, new UUID(identity[1], identity[2]), identity[3]);
+    }
 
-        try {
-            return ToolType.valueOf(typeString);
-        } catch (IllegalArgumentException e) {
-            return null;
-        }
+    private long[] encodeIdentity(ToolType toolType, UUID toolUUID, long creationTime) {
+        long header = ((long) ID_FORMAT_VERSION << 8) | toolType.ordinal();
+        long[] signature = signer.sign(header, toolUUID.getMostSignificantBits(),
+                toolUUID.getLeastSignificantBits(), creationTime);
+        return new long[]{
+                header,
+                toolUUID.getMostSignificantBits(),
+                toolUUID.getLeastSignificantBits(),
+                creationTime,
+                signature[0],
+                signature[1]
+        };
     }
 
-    public UUID getToolUUID(ItemStack item) {
-        if (!isAmethystTool(item)) return null;
+    private ToolHandle decodeLegacy(PersistentDataContainerView data) {
+        String typeString = data.get(toolKey, PersistentDataType.STRING);
+        if (typeString == null) return null;
+
+        UUID toolUUID = null;
+        String uuidString = data.get(uuidKey, PersistentDataType.STRING);
+        if (uuidString != null) {
+            try {
+                toolUUID = UUID.fromString(uuidString);
+            } catch (IllegalArgumentException ignored) {
+                // Left null, the item is still recognised as a tool
+            }
+        }
 
-        ItemMeta meta = item.getItemMeta();
-        String uuidString = meta.getPersistentDataContainer().get(uuidKey, PersistentDataType.STRING);
+        Long creationTime = data.get(createdKey, PersistentDataType.LONG);
+        return new ToolHandle(TYPES_BY_NAME.get(typeString), toolUUID, creationTime != null ? creationTime : 0);
+    }
 
-        try {
-            return UUID.fromString(uuidString);
-        } catch (Exception e) {
-            return null;
+    /**
+     * Rewrites a tool that still uses the legacy string keys, or predates signing, into the signed compact encoding
+     */
+    private void upgradeIdentity(ItemStack item, ToolHandle handle) {
+        item.editMeta(meta -> {
+            PersistentDataContainer data = meta.getPersistentDataContainer();
+            data.set(idKey, PersistentDataType.LONG_ARRAY,
+                    encodeIdentity(handle.getToolType(), handle.getToolUUID(), handle.getCreationTime()));
+            data.remove(toolKey);
+            data.remove(uuidKey);
+            data.remove(createdKey);
+        });
+        identityCache.invalidate(item);
+
+        if (configManager.isDebugEnabled()) {
+            plugin.getLogger().info("Upgraded tool data for " + handle.getToolUUID());
         }
     }
 
-    public long getCreationTime(ItemStack item) {
-        if (!isAmethystTool(item)) return 0;
+    public boolean isAmethystTool(ItemStack item) {
+        return readTool(item) != null;
+    }
+
+    public ToolType getToolType(ItemStack item) {
+        ToolHandle handle = readTool(item);
+        return handle != null ? handle.getToolType() : null;
+    }
 
-        ItemMeta meta = item.getItemMeta();
-        Long creationTime = meta.getPersistentDataContainer().get(createdKey, PersistentDataType.LONG);
-        return creationTime != null ? creationTime : 0;
+    public UUID getToolUUID(ItemStack item) {
+        ToolHandle handle = readTool(item);
+        return handle != null ? handle.getToolUUID() : null;
+    }
+
+    public long getCreationTime(ItemStack item) {
+        ToolHandle handle = readTool(item);
+        return handle != null ? handle.getCreationTime() : 0;
     }
 
     public long getRemainingTime(ItemStack item) {
-        long creationTime = getCreationTime(item);
+        return getRemainingTime(readTool(item));
+    }
+
+    public long getRemainingTime(ToolHandle handle) {
+        long creationTime = handle != null ? handle.getCreationTime() : 0;
         if (creationTime == 0) return 0;
 
-        long lifetime = configManager.getToolLifetime() * 24 * 60 * 60 * 1000L; // Convert days to milliseconds
-        long expirationTime = creationTime + lifetime;
+        long expirationTime = creationTime + lifetimeMillis;
         long currentTime = System.currentTimeMillis();
 
         return Math.max(0, (expirationTime - currentTime) / 1000); // Return seconds
     }
 
+    /**
+     * Fires due timer warnings and destroys expired tools.
+     * Only tools whose next threshold has passed are touched.
+     */
     public void updateAllTimers() {
-        Set<UUID> toRemove = new HashSet<>();
-
-        // Update all active tools
-        for (Map.Entry<UUID, AmethystTool> entry : activeTools.entrySet()) {
-            UUID toolUUID = entry.getKey();
-            AmethystTool tool = entry.getValue();
-
-            long remainingTime = getRemainingTimeByUUID(toolUUID);
-
-            if (remainingTime <= 0) {
-                // Tool expired, remove it
-                destroyTool(toolUUID);
-                toRemove.add(toolUUID);
-            } else {
-                // Send warnings
-                sendTimerWarnings(tool, remainingTime);
+        expiryScheduler.poll(registry, System.currentTimeMillis(), new ExpiryScheduler.Handler() {
+            @Override
+            public void onWarning(int slot, String timeLeft) {
+                sendTimerWarning(slot, timeLeft);
             }
-        }
 
-        // Remove expired tools
-        toRemove.forEach(activeTools::remove);
+            @Override
+            public void onExpired(int slot) {
+                destroyTool(registry.getToolUUID(slot), true, AuditEvent.Type.EXPIRE);
+            }
+        });
     }
 
-    private long getRemainingTimeByUUID(UUID toolUUID) {
-        AmethystTool tool = activeTools.get(toolUUID);
-        if (tool == null) return 0;
-
-        long lifetime = configManager.getToolLifetime() * 24 * 60 * 60 * 1000L;
-        long expirationTime = tool.getCreationTime() + lifetime;
-        long currentTime = System.currentTimeMillis();
-
-        return Math.max(0, (expirationTime - currentTime) / 1000);
+    /**
+     * Re-reads the tool lifetime, tool definitions and item templates. Warnings start over
+     * against a changed lifetime, skipping those whose threshold already passed.
+     */
+    public void reloadSettings() {
+        lifetimeMillis = configManager.getToolLifetime() * 24 * 60 * 60 * 1000L;
+        definitions.load();
+        compileTemplates();
+        if (expiryScheduler.getLifetimeMillis() != lifetimeMillis) {
+            expiryScheduler.reset(lifetimeMillis, System.currentTimeMillis());
+        }
     }
 
-    private void sendTimerWarnings(AmethystTool tool, long remainingTime) {
-        UUID playerUUID = tool.getOwnerUUID();
-        if (playerUUID == null) return;
+    private void sendTimerWarning(int slot, String timeLeft) {
+        if (!registry.hasOwner(slot)) return;
 
-        Player player = Bukkit.getPlayer(playerUUID);
+        Player player = Bukkit.getPlayer(registry.getOwnerUUID(slot));
         if (player == null) return;
 
-        String toolName = messageManager.getItemName(tool.getToolType().getConfigName());
-        String timeLeft = MessageUtil.formatTime(remainingTime);
-
-        // Send warnings at specific intervals
-        if (remainingTime == 3600) { // 1 hour
-            messageManager.sendTimerWarning(player, toolName, "1h");
-        } else if (remainingTime == 600) { // 10 minutes
-            messageManager.sendTimerWarning(player, toolName, "10m");
-        } else if (remainingTime == 60) { // 1 minute
-            messageManager.sendTimerWarning(player, toolName, "1m");
-        }
+        String toolName = messageManager.getItemName(registry.getToolType(slot).getConfigName());
+        messageManager.sendTimerWarning(player, toolName, timeLeft);
     }
 
     public void destroyTool(UUID toolUUID) {
-        AmethystTool tool = activeTools.get(toolUUID);
-        if (tool == null) return;
+        destroyTool(toolUUID, true, AuditEvent.Type.DESTROY);
+    }
+
+    /**
+     * @param persist false when applying a destroy that another server already persisted
+     * @param reason DESTROY or EXPIRE, recorded in the audit log when persisting
+     */
+    private void destroyTool(UUID toolUUID, boolean persist, AuditEvent.Type reason) {
+        int slot = registry.slotOf(toolUUID);
+        if (slot < 0) return;
+
+        ToolType toolType = registry.getToolType(slot);
+        long creationTime = registry.getCreationTime(slot);
+        UUID playerUUID = registry.getOwnerUUID(slot);
+        registry.remove(toolUUID);
+        if (persist) {
+            auditLog.record(reason, toolUUID, toolType, playerUUID, 0);
+        }
+
+        // Tombstone first so every copy, wherever it is, is rejected from now on
+        tombstones.add(toolUUID, creationTime + lifetimeMillis);
+        toolStats.forget(toolUUID);
+        if (persist) {
+            storage.logDestroy(toolUUID, toolType, creationTime);
+        }
 
-        UUID playerUUID = tool.getOwnerUUID();
         if (playerUUID != null) {
             Player player = Bukkit.getPlayer(playerUUID);
             if (player != null) {
-                // Remove tool from inventory
-                for (ItemStack item : player.getInventory().getContents()) {
-                    if (item != null && isAmethystTool(item)) {
-                        UUID itemUUID = getToolUUID(item);
-                        if (toolUUID.equals(itemUUID)) {
-                            player.getInventory().remove(item);
-                            String toolName = messageManager.getItemName(tool.getToolType().getConfigName());
-                            messageManager.sendToolDestroyed(player, toolName);
-                            break;
-                        }
-                    }
+                // Remove tool from inventory, ender chest and cursor
+                int removed = purgeRevoked(player.getInventory()) + purgeRevoked(player.getEnderChest());
+                if (isRevoked(readTool(player.getItemOnCursor()))) {
+                    player.setItemOnCursor(null);
+                    removed++;
                 }
+
+                if (removed > 0) {
+                    String toolName = messageManager.getItemName(toolType.getConfigName());
+                    messageManager.sendToolDestroyed(player, toolName);
+                }
+            }
+        }
+    }
+
+    /**
+     * Records a successful ability use: one use in the usage stats plus the audit log entry.
+     * Every ability listener ends a use here, so none can miss either step.
+     * @param amount What the ability affected, e.g. blocks broken or items sold
+     */
+    public void recordUse(Player player, ToolHandle handle, int amount) {
+        toolStats.add(player, handle, ToolStat.USES, 1);
+        if (!configManager.isAuditUseEnabled()) return;
+        auditLog.record(AuditEvent.Type.USE, handle.getToolUUID(), handle.getToolType(), player.getUniqueId(), amount);
+    }
+
+    /**
+     * Like {@link #recordUse(Player, ToolHandle, int)}, also counting what the use achieved
+     * @param stat The stat the ability counts, e.g. blocks broken
+     */
+    public void recordUse(Player player, ToolHandle handle, int amount, ToolStat stat, long statAmount) {
+        recordUse(player, handle, amount);
+        toolStats.add(player, handle, stat, statAmount);
+    }
+
+    /**
+     * Adds to a stat of a use already recorded, e.g. the money a sale earned
+     */
+    public void addStat(Player player, ToolHandle handle, ToolStat stat, long amount) {
+        toolStats.add(player, handle, stat, amount);
+    }
+
+    /**
+     * Copies a tool's usage stats onto its item and re-renders the stats lore line if one is configured.
+     * Does nothing if the item already shows the current stats.
+     */
+    public void refreshStats(ItemStack item, ToolHandle handle) {
+        long[] stats = toolStats.getToolStats(handle.getToolUUID());
+        if (stats == null) return;
+
+        long[] shown = item.getPersistentDataContainer().get(statsKey, PersistentDataType.LONG_ARRAY);
+        if (Arrays.equals(stats, shown)) return;
+
+        String statsLine = configManager.getStatsLoreLine();
+        ToolDefinition definition = getDefinition(handle);
+        item.editMeta(meta -> {
+            meta.getPersistentDataContainer().set(statsKey, PersistentDataType.LONG_ARRAY, stats);
+            if (!statsLine.isEmpty() && definition != null) {
+                List<Component> lore = new ArrayList<>(templates[definition.id()].renderLore(handle.getToolUUID()));
+                lore.add(MessageUtil.colorizeComponent(MessageUtil.formatStats(statsLine, stats)));
+                meta.lore(lore);
+            }
+        });
+    }
+
+    /**
+     * Checks whether a tool has expired or was destroyed. This runs on every tool
+     * interaction, so it only does arithmetic and a Bloom filter probe.
+     * @param handle The decoded tool, may be null
+     * @return true if any copy of this tool should be removed
+     */
+    public boolean isRevoked(ToolHandle handle) {
+        if (handle == null) return false;
+        if (handle.isForged()) return true;
+
+        long creationTime = handle.getCreationTime();
+        if (creationTime > 0 && creationTime + lifetimeMillis <= System.currentTimeMillis()) {
+            return true;
+        }
+        return tombstones.contains(handle.getToolUUID());
+    }
+
+    /**
+     * Checks whether a tool is still backed by the registry and has not been revoked
+     * @param handle The decoded tool, may be null
+     * @return true if the tool is registered, unexpired and not destroyed
+     */
+    public boolean isLive(ToolHandle handle) {
+        if (handle == null || handle.getToolUUID() == null) return false;
+        if (!registry.contains(handle.getToolUUID())) {
+            // A shared store may know tools this server has not heard of yet
+            return storage.mayExist(handle.getToolUUID()) && !isRevoked(handle);
+        }
+        return !isRevoked(handle);
+    }
+
+    /**
+     * Removes a revoked tool from the given slot of a player's inventory
+     * @return true if the tool was revoked and has been removed
+     */
+    public boolean purgeIfRevoked(Player player, EquipmentSlot slot, ToolHandle handle) {
+        if (!isRevoked(handle)) return false;
+
+        player.getInventory().setItem(slot != null ? slot : EquipmentSlot.HAND, null);
+        if (handle.getToolType() != null) {
+            messageManager.sendToolDestroyed(player, messageManager.getItemName(handle.getToolType().getConfigName()));
+        }
+        return true;
+    }
+
+    /**
+     * Removes every revoked tool from an inventory
+     * @return The number of items removed
+     */
+    public int purgeRevoked(Inventory inventory) {
+        ItemStack[] contents = inventory.getContents();
+        int removed = 0;
+
+        for (int slot = 0; slot < contents.length; slot++) {
+            if (isRevoked(readTool(contents[slot]))) {
+                inventory.setItem(slot, null);
+                removed++;
+            }
+        }
+
+        return removed;
+    }
+
+    /**
+     * Removes every tool from an inventory that is revoked or no longer registered
+     * @return The number of items removed
+     */
+    public int purgeDead(Inventory inventory) {
+        ItemStack[] contents = inventory.getContents();
+        int removed = 0;
+
+        for (int slot = 0; slot < contents.length; slot++) {
+            ToolHandle handle = readTool(contents[slot]);
+            if (handle != null && !isLive(handle)) {
+                inventory.setItem(slot, null);
+                removed++;
             }
         }
 
-        activeTools.remove(toolUUID);
+        return removed;
+    }
+
+    /**
+     * Destroys every tool owned by a player
+     * @param playerUUID The owner
+     * @return The number of tools destroyed
+     */
+    public int destroyToolsOwnedBy(UUID playerUUID) {
+        List<UUID> toDestroy = registry.getOwnedBy(playerUUID);
+        toDestroy.forEach(this::destroyTool);
+        return toDestroy.size();
     }
 
     public void assignToolToPlayer(ItemStack item, Player player) {
         UUID toolUUID = getToolUUID(item);
         if (toolUUID != null) {
-            AmethystTool tool = activeTools.get(toolUUID);
-            if (tool != null) {
-                tool.setOwnerUUID(player.getUniqueId());
+            int slot = registry.slotOf(toolUUID);
+            if (slot >= 0 && !player.getUniqueId().equals(registry.getOwnerUUID(slot))) {
+                registry.setOwner(slot, player.getUniqueId());
+                storage.logAssign(registry.view(slot));
+                auditLog.record(AuditEvent.Type.ASSIGN, toolUUID, registry.getToolType(slot), player.getUniqueId(), 0);
             }
         }
     }
 
     public void loadAllTools() {
-        // This method can be expanded to load tools from a data file if needed
-        // For now, tools are loaded from memory during runtime
+        storage = createStore(configManager.getStorageType());
+        try {
+            registry = storage.open(tombstones, lifetimeMillis);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Could not open the " + configManager.getStorageType()
+                    + " tool store, falling back to the journal store", e);
+            storage = new JournalToolStore(plugin.getDataFolder(), plugin.getLogger());
+            registry = ((JournalToolStore) storage).open(tombstones, lifetimeMillis);
+        }
+        storage.setRemoteListener(new RemoteChanges());
+        toolStats.load(storage);
+        expiryScheduler.reset(lifetimeMillis, System.currentTimeMillis());
     }
 
+    private ToolStore createStore(String type) {
+        return switch (type.toLowerCase()) {
+            case "mapped" -> new MappedToolStore(plugin.getDataFolder(), plugin.getLogger());
+            case "journal" -> new JournalToolStore(plugin.getDataFolder(), plugin.getLogger());
+            case "sql" -> new SqlToolStore(plugin.getLogger(), configManager.getSqlUrl(),
+                    configManager.getSqlUsername(), configManager.getSqlPassword(), configManager.getSqlPoolSize(),
+                    configManager.getSqlPollInterval() * 1000L, runnable -> Bukkit.getScheduler().runTask(plugin, runnable));
+            default -> {
+                plugin.getLogger().warning("Unknown storage type '" + type + "', using journal");
+                yield new JournalToolStore(plugin.getDataFolder(), plugin.getLogger());
+            }
+        };
+    }
+
+    /**
+     * Makes the registry durable: a compacted snapshot for the journal store, a flush for the mapped store.
+     * Individual changes are already persisted as they happen, so this only bounds recovery time.
+     */
     public void saveAllTools() {
-        // This method can be expanded to save tools to a data file if needed
-        // For now, tools are managed in memory during runtime
+        tombstones.prune(System.currentTimeMillis());
+        storage.snapshot(registry, tombstones);
     }
 
-    public Collection<AmethystTool> getActiveTools() {
-        return activeTools.values();
+    /**
+     * Saves all tools and stops the storage writer (called on disable)
+     */
+    public void shutdown() {
+        storage.close(registry, tombstones);
+    }
+
+    /**
+     * Gives direct access to the registry. Main thread only, other plugins should use
+     * {@link dev.pallux.amethysttools.api.AmethystToolsAPI} snapshots instead.
+     */
+    public ToolRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * @return A view of every registered tool, main thread only
+     */
+    public List<AmethystTool> getActiveTools() {
+        List<AmethystTool> tools = new ArrayList<>(registry.size());
+        for (int slot = 0; slot < registry.size(); slot++) {
+            tools.add(registry.view(slot));
+        }
+        return tools;
+    }
+
+    /**
+     * @return The definition a tool item was made from, or null for a handle without a type
+     */
+    public ToolDefinition getDefinition(ToolHandle handle) {
+        return definitions.resolve(handle.getToolType(), handle.getToolUUID());
+    }
+
+    public ToolDefinitions getDefinitions() {
+        return definitions;
     }
 
     public AmethystTool getToolByUUID(UUID uuid) {
-        return activeTools.get(uuid);
+        return registry.get(uuid);
+    }
+
+    /**
+     * Gets the UUIDs of all tools currently owned by a player
+     * @param playerUUID The owner
+     * @return A new list, empty if the player owns no tools
+     */
+    public List<UUID> getToolsOwnedBy(UUID playerUUID) {
+        return registry.getOwnedBy(playerUUID);
+    }
+
+    public int getToolCount(UUID playerUUID) {
+        return registry.countOwnedBy(playerUUID);
+    }
+
+    /**
+     * Copies the UUID of every registered tool, for work done off the main thread
+     * @return Most and least significant bits, interleaved
+     */
+    public long[] snapshotToolIds() {
+        long[] ids = new long[registry.size() * 2];
+        for (int slot = 0; slot < registry.size(); slot++) {
+            ids[slot * 2] = registry.getToolMost(slot);
+            ids[slot * 2 + 1] = registry.getToolLeast(slot);
+        }
+        return ids;
+    }
+
+    /**
+     * @return true if a tool missing from the registry is known not to exist anywhere
+     */
+    public boolean isRegistryAuthoritative() {
+        return !storage.isShared();
+    }
+
+    /**
+     * @return Unsigned tools created up to this time (ms) may be genuine, if the registry holds them
+     */
+    public long getMigrationCutoff() {
+        return migrationCutoff;
+    }
+
+    public long getLifetimeMillis() {
+        return lifetimeMillis;
+    }
+
+    public ToolTombstones getTombstones() {
+        return tombstones;
+    }
+
+    /**
+     * Applies changes made by other servers sharing the store
+     */
+    private class RemoteChanges implements ToolStore.RemoteListener {
+
+        @Override
+        public void onRemoteCreate(UUID toolUUID, ToolType toolType, long creationTime, UUID ownerUUID) {
+            // Change-log reads overlap, so a create may arrive again after the tool was destroyed
+            if (tombstones.contains(toolUUID) || registry.contains(toolUUID)) return;
+
+            registry.add(toolUUID, toolType, creationTime, ownerUUID);
+        }
+
+        @Override
+        public void onRemoteAssign(UUID toolUUID, UUID ownerUUID) {
+            registry.setOwner(toolUUID, ownerUUID);
+        }
+
+        @Override
+        public void onRemoteDestroy(UUID toolUUID, long creationTime) {
+            destroyTool(toolUUID, false, AuditEvent.Type.DESTROY);
+            tombstones.add(toolUUID, creationTime + lifetimeMillis);
+        }
     }
-}
\ No newline at end of file
+}
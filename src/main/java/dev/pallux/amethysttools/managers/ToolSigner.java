@@ -0,0 +1,152 @@
+package dev.pallux.amethysttools.managers;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * Signs tool identities with an HMAC keyed by a per-server secret, so items cannot be
+ * crafted with made-up tool data. Verified signatures are cached per tool UUID, which keeps
+ * the crypto off the hot path: a tool is hashed once, not on every block it breaks.
+ */
+class ToolSigner {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int KEY_BYTES = 32;
+    // Key file layout: magic, the time the key was generated, the key
+    private static final int MAGIC = 0x4154534B; // "ATSK"
+    private static final int HEADER_BYTES = Integer.BYTES + Long.BYTES;
+    private static final int CACHE_SIZE = 4096;
+
+    private final Mac mac;
+    private final long createdAt;
+    private final byte[] message = new byte[32];
+    // Tool UUID -> {header, creation time, signature 0, signature 1}, least recently used evicted first
+    private final Map<UUID, long[]> verified;
+
+    private ToolSigner(byte[] key, long createdAt) throws GeneralSecurityException {
+        this.createdAt = createdAt;
+        this.mac = Mac.getInstance(ALGORITHM);
+        this.mac.init(new SecretKeySpec(key, ALGORITHM));
+        this.verified = new LinkedHashMap<>(CACHE_SIZE * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, long[]> eldest) {
+                return size() > CACHE_SIZE;
+            }
+        };
+    }
+
+    /**
+     * Loads the signing key, generating one on first start
+     * @param keyFile The key file, every server sharing a tool store needs the same one
+     */
+    static ToolSigner load(File keyFile, Logger logger) throws IOException {
+        byte[] key;
+        long createdAt;
+        if (keyFile.exists()) {
+            ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(keyFile.toPath()));
+            if (bytes.capacity() == HEADER_BYTES + KEY_BYTES && bytes.getInt(0) == MAGIC) {
+                createdAt = bytes.getLong(Integer.BYTES);
+                key = Arrays.copyOfRange(bytes.array(), HEADER_BYTES, HEADER_BYTES + KEY_BYTES);
+            } else if (bytes.capacity() == KEY_BYTES) {
+                // A bare key from before the header, every tool registered since it was made is signed
+                key = bytes.array();
+                createdAt = System.currentTimeMillis();
+                write(keyFile, key, createdAt);
+            } else {
+                throw new IOException(keyFile.getName() + " is not a tool signing key");
+            }
+        } else {
+            key = new byte[KEY_BYTES];
+            new SecureRandom().nextBytes(key);
+            createdAt = System.currentTimeMillis();
+            keyFile.getParentFile().mkdirs();
+            write(keyFile, key, createdAt);
+            logger.info("Generated a new tool signing key in " + keyFile.getName()
+                    + ", keep it safe and copy it to every server sharing the tool store");
+        }
+
+        try {
+            return new ToolSigner(key, createdAt);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Could not initialise " + ALGORITHM, e);
+        }
+    }
+
+    private static void write(File keyFile, byte[] key, long createdAt) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(HEADER_BYTES + KEY_BYTES);
+        bytes.putInt(MAGIC).putLong(createdAt).put(key);
+        Files.write(keyFile.toPath(), bytes.array());
+    }
+
+    /**
+     * @return When the key was generated (ms), stored in the key file header once on generation.
+     * Tools created before that may legitimately be unsigned.
+     */
+    long getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Computes the signature of an identity
+     * @return Two longs, appended to the identity on the item
+     */
+    synchronized long[] sign(long header, long toolMost, long toolLeast, long creationTime) {
+        long[] signature = compute(header, toolMost, toolLeast, creationTime);
+        verified.put(new UUID(toolMost, toolLeast), new long[]{header, creationTime, signature[0], signature[1]});
+        return signature;
+    }
+
+    /**
+     * Checks the signature stored at the given offset of an encoded identity
+     * @return false if the identity is unsigned or the signature does not match
+     */
+    synchronized boolean verify(long[] identity, int signatureOffset) {
+        if (identity.length < signatureOffset + 2) return false;
+
+        UUID toolUUID = new UUID(identity[1], identity[2]);
+        long[] entry = verified.get(toolUUID);
+        if (entry == null || entry[0] != identity[0] || entry[1] != identity[3]) {
+            long[] signature = compute(identity[0], identity[1], identity[2], identity[3]);
+            entry = new long[]{identity[0], identity[3], signature[0], signature[1]};
+            verified.put(toolUUID, entry);
+        }
+        return ((entry[2] ^ identity[signatureOffset]) | (entry[3] ^ identity[signatureOffset + 1])) == 0;
+    }
+
+    private long[] compute(long header, long toolMost, long toolLeast, long creationTime) {
+        putLong(0, header);
+        putLong(8, toolMost);
+        putLong(16, toolLeast);
+        putLong(24, creationTime);
+        byte[] digest = mac.doFinal(message);
+
+        // Truncated to 128 bits, still far beyond guessing range
+        return new long[]{getLong(digest, 0), getLong(digest, 8)};
+    }
+
+    private void putLong(int offset, long value) {
+        for (int i = 7; i >= 0; i--) {
+            message[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    private static long getLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (bytes[offset + i] & 0xFF);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,194 @@
+package dev.pallux.amethysttools.managers;
+
+import dev.pallux.amethysttools.AmethystTools;
+import dev.pallux.amethysttools.models.ToolHandle;
+import dev.pallux.amethysttools.models.ToolStat;
+import dev.pallux.amethysttools.storage.ToolStore;
+import org.bukkit.entity.Player;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+/**
+ * Usage counters per tool and per player. Listeners only bump striped {@link LongAdder}s, a periodic
+ * async save adds what changed since the last save to the tool store, and the totals are copied onto
+ * tool items when a player takes the tool in hand. On a shared store the totals loaded at startup
+ * include every server, later increments from other servers show up after a restart.
+ */
+public class ToolStats {
+
+    private static final ToolStat[] STATS = ToolStat.values();
+
+    private final AmethystTools plugin;
+    private final Map<UUID, Counters> byTool;
+    private final Map<UUID, Counters> byPlayer;
+    private final AtomicBoolean dirty;
+    private final Object saveLock;
+
+    private volatile ToolStore store;
+
+    public ToolStats(AmethystTools plugin) {
+        this.plugin = plugin;
+        this.byTool = new ConcurrentHashMap<>();
+        this.byPlayer = new ConcurrentHashMap<>();
+        this.dirty = new AtomicBoolean();
+        this.saveLock = new Object();
+    }
+
+    /**
+     * Loads the saved counters from the tool store, which later saves go to
+     */
+    public void load(ToolStore store) {
+        Map<UUID, long[]> tools = new HashMap<>();
+        Map<UUID, long[]> players = new HashMap<>();
+        try {
+            store.loadStats(tools, players);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not load tool stats, starting with empty stats", e);
+        }
+
+        tools.forEach((uuid, values) -> byTool.put(uuid, new Counters(values)));
+        players.forEach((uuid, values) -> byPlayer.put(uuid, new Counters(values)));
+        this.store = store;
+    }
+
+    /**
+     * Adds to a stat. Ability uses are recorded through {@link ToolManager#recordUse}, which also audits them.
+     */
+    public void add(Player player, ToolHandle handle, ToolStat stat, long amount) {
+        if (amount == 0) return;
+
+        byTool.computeIfAbsent(handle.getToolUUID(), key -> new Counters()).add(stat, amount);
+        byPlayer.computeIfAbsent(player.getUniqueId(), key -> new Counters()).add(stat, amount);
+        dirty.set(true);
+    }
+
+    /**
+     * @return The stats of a tool indexed by {@link ToolStat} ordinal, or null if it was never used
+     */
+    public long[] getToolStats(UUID toolUUID) {
+        Counters counters = byTool.get(toolUUID);
+        return counters != null ? counters.sum() : null;
+    }
+
+    /**
+     * @return The stats of everything a player did with tools, or null if they never used one
+     */
+    public long[] getPlayerStats(UUID playerUUID) {
+        Counters counters = byPlayer.get(playerUUID);
+        return counters != null ? counters.sum() : null;
+    }
+
+    /**
+     * Drops the stats of a destroyed tool, the owner's totals keep its contribution.
+     * The store drops its copy when the destroy is logged.
+     */
+    public void forget(UUID toolUUID) {
+        if (byTool.remove(toolUUID) != null) {
+            dirty.set(true);
+        }
+    }
+
+    /**
+     * Adds everything counted since the last save to the store, if anything changed.
+     * Safe to call from any thread.
+     */
+    public void save() {
+        ToolStore target = store;
+        if (target == null || !dirty.getAndSet(false)) return;
+
+        synchronized (saveLock) {
+            // Entries added while collecting may or may not make it in, the next save picks them up
+            List<Counters> saved = new ArrayList<>();
+            Map<UUID, long[]> toolDeltas = collect(byTool, saved);
+            Map<UUID, long[]> playerDeltas = collect(byPlayer, saved);
+            try {
+                target.addStats(toolDeltas, playerDeltas);
+            } catch (IOException e) {
+                // Nothing is marked saved, so the next save adds the same increments again
+                dirty.set(true);
+                plugin.getLogger().log(Level.WARNING, "Could not save tool stats", e);
+                return;
+            }
+
+            for (Counters counters : saved) {
+                counters.markSaved();
+            }
+        }
+    }
+
+    private static Map<UUID, long[]> collect(Map<UUID, Counters> counters, List<Counters> saved) {
+        Map<UUID, long[]> deltas = new HashMap<>();
+        counters.forEach((uuid, entry) -> {
+            long[] delta = entry.unsaved();
+            if (delta != null) {
+                deltas.put(uuid, delta);
+                saved.add(entry);
+            }
+        });
+        return deltas;
+    }
+
+    private static final class Counters {
+
+        private final LongAdder[] values;
+        // The totals the store already has, and the totals of the save in progress; save lock only
+        private long[] stored;
+        private long[] saving;
+
+        Counters() {
+            values = new LongAdder[STATS.length];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = new LongAdder();
+            }
+            stored = new long[STATS.length];
+        }
+
+        Counters(long[] loaded) {
+            this();
+            for (int i = 0; i < values.length; i++) {
+                values[i].add(loaded[i]);
+            }
+            stored = loaded;
+        }
+
+        void add(ToolStat stat, long amount) {
+            values[stat.ordinal()].add(amount);
+        }
+
+        long[] sum() {
+            long[] sums = new long[values.length];
+            for (int i = 0; i < values.length; i++) {
+                sums[i] = values[i].sum();
+            }
+            return sums;
+        }
+
+        /**
+         * @return What was counted since the last save, or null if nothing was
+         */
+        long[] unsaved() {
+            long[] sums = sum();
+            long[] delta = new long[sums.length];
+            boolean changed = false;
+            for (int i = 0; i < sums.length; i++) {
+                delta[i] = sums[i] - stored[i];
+                changed |= delta[i] != 0;
+            }
+            saving = sums;
+            return changed ? delta : null;
+        }
+
+        void markSaved() {
+            stored = saving;
+        }
+    }
+}
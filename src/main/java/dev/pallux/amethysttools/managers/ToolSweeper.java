@@ -0,0 +1,115 @@
+package dev.pallux.amethysttools.managers;
+
+import dev.pallux.amethysttools.AmethystTools;
+import dev.pallux.amethysttools.models.ToolHandle;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.Container;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Item;
+import org.bukkit.entity.ItemFrame;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Incrementally removes expired or unregistered tools from loaded chunks.
+ * Chunks are queued as they load and swept on the main thread within a per-tick time budget.
+ */
+public class ToolSweeper {
+
+    private final AmethystTools plugin;
+    private final ToolManager toolManager;
+    private final ConfigManager configManager;
+    private final Queue<ChunkRef> queue;
+    private final Set<ChunkRef> queued;
+
+    public ToolSweeper(AmethystTools plugin) {
+        this.plugin = plugin;
+        this.toolManager = plugin.getToolManager();
+        this.configManager = plugin.getConfigManager();
+        this.queue = new ArrayDeque<>();
+        this.queued = new HashSet<>();
+    }
+
+    /**
+     * Queues a chunk for sweeping. Queuing the same chunk twice before it is swept is a no-op.
+     */
+    public void enqueue(Chunk chunk) {
+        if (!configManager.isSweeperEnabled()) return;
+
+        ChunkRef ref = new ChunkRef(chunk.getWorld().getUID(), chunk.getX(), chunk.getZ());
+        if (queued.add(ref)) {
+            queue.add(ref);
+        }
+    }
+
+    /**
+     * Sweeps queued chunks until the tick budget is used up
+     */
+    public void tick() {
+        if (queue.isEmpty()) return;
+
+        long budget = configManager.getSweeperBudgetMicros() * 1000L;
+        long start = System.nanoTime();
+        int removed = 0;
+
+        while (!queue.isEmpty() && System.nanoTime() - start < budget) {
+            ChunkRef ref = queue.poll();
+            queued.remove(ref);
+
+            World world = Bukkit.getWorld(ref.world());
+            if (world == null || !world.isChunkLoaded(ref.x(), ref.z())) continue;
+
+            removed += sweep(world.getChunkAt(ref.x(), ref.z()));
+        }
+
+        if (removed > 0 && configManager.isDebugEnabled()) {
+            plugin.getLogger().info("Sweeper removed " + removed + " expired tools (" + queue.size() + " chunks queued)");
+        }
+    }
+
+    public int getQueuedChunks() {
+        return queue.size();
+    }
+
+    private int sweep(Chunk chunk) {
+        int removed = 0;
+
+        for (Entity entity : chunk.getEntities()) {
+            if (entity instanceof Item item) {
+                if (isDead(item.getItemStack())) {
+                    item.remove();
+                    removed++;
+                }
+            } else if (entity instanceof ItemFrame frame) {
+                if (isDead(frame.getItem())) {
+                    frame.setItem(null);
+                    removed++;
+                }
+            }
+        }
+
+        for (BlockState state : chunk.getTileEntities(false)) {
+            if (state instanceof Container container) {
+                removed += toolManager.purgeDead(container.getInventory());
+            }
+        }
+
+        return removed;
+    }
+
+    private boolean isDead(ItemStack item) {
+        ToolHandle handle = toolManager.readTool(item);
+        return handle != null && !toolManager.isLive(handle);
+    }
+
+    private record ChunkRef(UUID world, int x, int z) {
+    }
+}
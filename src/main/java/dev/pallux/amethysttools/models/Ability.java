@@ -0,0 +1,51 @@
+package dev.pallux.amethysttools.models;
+
+/**
+ * What a tool does when used. Every ability is backed by the tool type it was first built for,
+ * which is what item data and the registry store for tools with that ability.
+ */
+public enum Ability {
+    FELL("fell", ToolType.TREE_CHOPPER),
+    SELL("sell", ToolType.SELL_AXE),
+    AREA_BREAK("area-break", ToolType.PICKAXE),
+    FLOOD_DRAIN("flood-drain", ToolType.BUCKET),
+    PLACE("place", ToolType.TORCH),
+    BOOST("boost", ToolType.ROCKET);
+
+    private static final Ability[] BY_TOOL_TYPE = new Ability[ToolType.values().length];
+
+    static {
+        for (Ability ability : values()) {
+            BY_TOOL_TYPE[ability.toolType.ordinal()] = ability;
+        }
+    }
+
+    private final String configName;
+    private final ToolType toolType;
+
+    Ability(String configName, ToolType toolType) {
+        this.configName = configName;
+        this.toolType = toolType;
+    }
+
+    public String getConfigName() {
+        return configName;
+    }
+
+    public ToolType getToolType() {
+        return toolType;
+    }
+
+    public static Ability of(ToolType toolType) {
+        return BY_TOOL_TYPE[toolType.ordinal()];
+    }
+
+    public static Ability fromConfigName(String configName) {
+        for (Ability ability : values()) {
+            if (ability.configName.equals(configName)) {
+                return ability;
+            }
+        }
+        return null;
+    }
+}
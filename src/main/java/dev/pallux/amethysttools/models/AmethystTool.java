@@ -1,47 +1,74 @@
 package dev.pallux.amethysttools.models;
 
+import dev.pallux.amethysttools.storage.ToolRegistry;
+
 import java.util.UUID;
 
-public class AmethystTool {
+/**
+ * Flyweight view of one tool in the {@link ToolRegistry}. The view only remembers the tool's
+ * UUID and a slot hint; every accessor reads the registry columns. Once the tool is removed
+ * from the registry only {@link #getToolUUID()} stays meaningful.
+ */
+public final class AmethystTool {
 
-    private final UUID toolUUID;
-    private final ToolType toolType;
-    private final long creationTime;
-    private UUID ownerUUID;
+    private final ToolRegistry registry;
+    private final long toolMost;
+    private final long toolLeast;
+    private int slot;
 
-    public AmethystTool(UUID toolUUID, ToolType toolType, long creationTime, UUID ownerUUID) {
-        this.toolUUID = toolUUID;
-        this.toolType = toolType;
-        this.creationTime = creationTime;
-        this.ownerUUID = ownerUUID;
+    public AmethystTool(ToolRegistry registry, int slot, long toolMost, long toolLeast) {
+        this.registry = registry;
+        this.slot = slot;
+        this.toolMost = toolMost;
+        this.toolLeast = toolLeast;
     }
 
     public UUID getToolUUID() {
-        return toolUUID;
+        return new UUID(toolMost, toolLeast);
     }
 
     public ToolType getToolType() {
-        return toolType;
+        int current = slot();
+        return current >= 0 ? registry.getToolType(current) : null;
     }
 
     public long getCreationTime() {
-        return creationTime;
+        int current = slot();
+        return current >= 0 ? registry.getCreationTime(current) : 0L;
     }
 
     public UUID getOwnerUUID() {
-        return ownerUUID;
+        int current = slot();
+        return current >= 0 ? registry.getOwnerUUID(current) : null;
     }
 
     public void setOwnerUUID(UUID ownerUUID) {
-        this.ownerUUID = ownerUUID;
+        int current = slot();
+        if (current >= 0) {
+            registry.setOwner(current, ownerUUID);
+        }
     }
 
     public boolean hasOwner() {
-        return ownerUUID != null;
+        int current = slot();
+        return current >= 0 && registry.hasOwner(current);
     }
 
     public long getAge() {
-        return System.currentTimeMillis() - creationTime;
+        return System.currentTimeMillis() - getCreationTime();
+    }
+
+    /**
+     * @return true while the tool is still registered
+     */
+    public boolean isRegistered() {
+        return slot() >= 0;
+    }
+
+    // Slots move when other tools are removed, so re-check the hint before each read
+    private int slot() {
+        slot = registry.resolve(slot, toolMost, toolLeast);
+        return slot;
     }
 
     @Override
@@ -49,21 +76,21 @@ public class AmethystTool {
         if (this == obj) return true;
         if (obj == null || getClass() != obj.getClass()) return false;
         AmethystTool that = (AmethystTool) obj;
-        return toolUUID.equals(that.toolUUID);
+        return toolMost == that.toolMost && toolLeast == that.toolLeast;
     }
 
     @Override
     public int hashCode() {
-        return toolUUID.hashCode();
+        return Long.hashCode(toolMost ^ toolLeast);
     }
 
     @Override
     public String toString() {
         return "AmethystTool{" +
-                "toolUUID=" + toolUUID +
-                ", toolType=" + toolType +
-                ", creationTime=" + creationTime +
-                ", ownerUUID=" + ownerUUID +
+                "toolUUID=" + getToolUUID() +
+                ", toolType=" + getToolType() +
+                ", creationTime=" + getCreationTime() +
+                ", ownerUUID=" + getOwnerUUID() +
                 '}';
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,27 @@
+package dev.pallux.amethysttools.models;
+
+import org.bukkit.Material;
+import org.bukkit.enchantments.Enchantment;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A tool as configured under tools.&lt;key&gt;: an ability plus its item and parameters.
+ * Definitions are compiled once per (re)load and looked up by {@link #id()}.
+ * @param id Stable id, the tool type ordinal for built-in tools
+ * @param builtin Whether this is one of the original tools, which keep plain random tool UUIDs
+ * @param radius Area break: blocks mined around the broken block in each direction
+ * @param amount Flood drain: maximum number of blocks drained
+ * @param cooldown Place and boost: seconds between uses
+ * @param fluid Flood drain: the block that is drained
+ * @param blacklist Area break: blocks that are never mined
+ */
+public record ToolDefinition(int id, String key, boolean builtin, Ability ability, boolean enabled,
+                             Material material, Map<Enchantment, Integer> enchantments,
+                             int radius, int amount, int cooldown, Material fluid, Set<Material> blacklist) {
+
+    public ToolType toolType() {
+        return ability.getToolType();
+    }
+}
@@ -0,0 +1,60 @@
+package dev.pallux.amethysttools.models;
+
+import java.util.UUID;
+
+/**
+ * Immutable identity of an Amethyst tool as decoded from an item stack.
+ */
+public final class ToolHandle {
+
+    private final ToolType toolType;
+    private final UUID toolUUID;
+    private final long creationTime;
+    private final boolean forged;
+
+    public ToolHandle(ToolType toolType, UUID toolUUID, long creationTime) {
+        this(toolType, toolUUID, creationTime, false);
+    }
+
+    public ToolHandle(ToolType toolType, UUID toolUUID, long creationTime, boolean forged) {
+        this.toolType = toolType;
+        this.toolUUID = toolUUID;
+        this.creationTime = creationTime;
+        this.forged = forged;
+    }
+
+    public ToolType getToolType() {
+        return toolType;
+    }
+
+    /**
+     * @return The tool UUID, or null if the item carries no valid UUID
+     */
+    public UUID getToolUUID() {
+        return toolUUID;
+    }
+
+    /**
+     * @return The creation time in milliseconds, or 0 if unknown
+     */
+    public long getCreationTime() {
+        return creationTime;
+    }
+
+    /**
+     * @return true if the item's tool data failed signature verification
+     */
+    public boolean isForged() {
+        return forged;
+    }
+
+    @Override
+    public String toString() {
+        return "ToolHandle{" +
+                "toolType=" + toolType +
+                ", toolUUID=" + toolUUID +
+                ", creationTime=" + creationTime +
+                ", forged=" + forged +
+                '}';
+    }
+}
@@ -0,0 +1,28 @@
+package dev.pallux.amethysttools.models;
+
+/**
+ * Usage counters kept per tool and per player.
+ * Ordinals are stored by the tool stores and in item data, new stats must only be appended.
+ */
+public enum ToolStat {
+    USES("uses"),
+    BLOCKS_BROKEN("blocks"),
+    TREES_FELLED("trees"),
+    FLUID_DRAINED("drained"),
+    ITEMS_SOLD("sold"),
+    // Stored in cents
+    MONEY_EARNED("money");
+
+    private final String placeholder;
+
+    ToolStat(String placeholder) {
+        this.placeholder = placeholder;
+    }
+
+    /**
+     * @return The name of this stat in messages and the stats lore line
+     */
+    public String getPlaceholder() {
+        return placeholder;
+    }
+}
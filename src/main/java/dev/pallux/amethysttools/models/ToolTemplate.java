@@ -0,0 +1,79 @@
+package dev.pallux.amethysttools.models;
+
+import dev.pallux.amethysttools.utils.MessageUtil;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextReplacementConfig;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Precompiled form of a tool item: a prototype stack with name, enchantments and flags
+ * already applied, plus lore lines that were parsed once with only per-tool slots left open.
+ */
+public final class ToolTemplate {
+
+    private static final String UUID_PLACEHOLDER = "{uuid}";
+
+    private final ItemStack prototype;
+    private final Component[] lore;
+    private final boolean[] uuidSlots;
+
+    private ToolTemplate(ItemStack prototype, Component[] lore, boolean[] uuidSlots) {
+        this.prototype = prototype;
+        this.lore = lore;
+        this.uuidSlots = uuidSlots;
+    }
+
+    /**
+     * Compiles a template
+     * @param prototype The fully styled item, without lore or tool data
+     * @param loreLines Lore lines with all placeholders except {uuid} already filled in
+     */
+    public static ToolTemplate compile(ItemStack prototype, List<String> loreLines) {
+        Component[] lore = new Component[loreLines.size()];
+        boolean[] uuidSlots = new boolean[loreLines.size()];
+
+        for (int i = 0; i < lore.length; i++) {
+            String line = loreLines.get(i);
+            lore[i] = MessageUtil.colorizeComponent(line);
+            uuidSlots[i] = line.contains(UUID_PLACEHOLDER);
+        }
+
+        return new ToolTemplate(prototype, lore, uuidSlots);
+    }
+
+    /**
+     * @return A fresh copy of the prototype item
+     */
+    public ItemStack newItem() {
+        return prototype.clone();
+    }
+
+    /**
+     * Renders the lore for a specific tool by filling the {uuid} slots
+     */
+    public List<Component> renderLore(UUID toolUUID) {
+        List<Component> rendered = new ArrayList<>(lore.length);
+        TextReplacementConfig replacement = null;
+
+        for (int i = 0; i < lore.length; i++) {
+            if (!uuidSlots[i]) {
+                rendered.add(lore[i]);
+                continue;
+            }
+
+            if (replacement == null) {
+                replacement = TextReplacementConfig.builder()
+                        .matchLiteral(UUID_PLACEHOLDER)
+                        .replacement(toolUUID.toString())
+                        .build();
+            }
+            rendered.add(lore[i].replaceText(replacement));
+        }
+
+        return rendered;
+    }
+}
@@ -1,5 +1,8 @@
 package dev.pallux.amethysttools.models;
 
+/**
+ * Ordinals are stored in item data and the tool registry, new types must only be appended.
+ */
 public enum ToolType {
     TREE_CHOPPER("tree-chopper"),
     SELL_AXE("sell-axe"),
@@ -0,0 +1,22 @@
+package dev.pallux.amethysttools.storage;
+
+import dev.pallux.amethysttools.models.ToolType;
+
+import java.util.UUID;
+
+/**
+ * One entry of the tool audit log
+ * @param time When it happened (ms)
+ * @param playerUUID The owner or acting player, null if there was none
+ * @param amount Type specific, e.g. the number of blocks an ability affected
+ */
+public record AuditEvent(long time, Type type, UUID toolUUID, ToolType toolType, UUID playerUUID, int amount) {
+
+    public enum Type {
+        CREATE,
+        ASSIGN,
+        USE,
+        DESTROY,
+        EXPIRE
+    }
+}
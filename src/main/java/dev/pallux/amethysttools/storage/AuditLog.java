@@ -0,0 +1,626 @@
+package dev.pallux.amethysttools.storage;
+
+import dev.pallux.amethysttools.models.ToolType;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Append-only history of tool lifecycle events. Events go through a lock-free ring to a writer
+ * thread, which packs them into deflated blocks appended to segment files. Each segment has a
+ * sidecar index of (UUID, block offset) pairs sorted by UUID, covering both tool and player
+ * UUIDs, so a lookup binary searches the indexes and inflates only the blocks that matter.
+ * Segments are rotated by size and the oldest are deleted once there are too many.
+ */
+public class AuditLog {
+
+    private static final int SEGMENT_MAGIC = 0x41544C47; // "ATLG"
+    private static final int INDEX_MAGIC = 0x41544C49; // "ATLI"
+    private static final int VERSION = 1;
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String INDEX_SUFFIX = ".idx";
+
+    private static final int SEGMENT_HEADER = 8;
+    private static final int INDEX_HEADER = 12;
+    private static final int INDEX_ENTRY = 24;
+    // Block header: event count, raw length, compressed length, CRC of the compressed bytes
+    private static final int BLOCK_HEADER = 16;
+    private static final int EVENT_SIZE = 46;
+    private static final int BLOCK_EVENTS = 1024;
+    // Upper bound on how long an event waits in memory before its block is written
+    private static final long BLOCK_AGE_MS = 1000L;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+    private static final int RING_CAPACITY = 1 << 16;
+
+    private final File folder;
+    private final Logger logger;
+    private final long segmentBytes;
+    private final int maxSegments;
+    private final AuditRingBuffer ring;
+    private final ExecutorService queries;
+
+    // Writer thread only
+    private final ByteBuffer block = ByteBuffer.allocate(BLOCK_EVENTS * EVENT_SIZE);
+    private final Set<UUID> blockIds = new HashSet<>();
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    private byte[] compressed = new byte[BLOCK_EVENTS * EVENT_SIZE + 64];
+    private int blockEvents;
+    private long blockStartedAt;
+    private long lastForce;
+
+    // Guarded by this, shared between the writer and queries
+    private final List<Long> sealedSegments = new ArrayList<>();
+    private final Map<UUID, BlockList> activeIndex = new HashMap<>();
+    private long activeId;
+    private long activeSize;
+    private FileChannel active;
+
+    private Thread writerThread;
+    private volatile boolean running;
+
+    /**
+     * @param folder Directory holding the segments
+     * @param segmentBytes Size at which the active segment is sealed and a new one started
+     * @param maxSegments Number of sealed segments to keep
+     */
+    public AuditLog(File folder, Logger logger, long segmentBytes, int maxSegments) {
+        this.folder = folder;
+        this.logger = logger;
+        this.segmentBytes = Math.max(64 * 1024, segmentBytes);
+        this.maxSegments = Math.max(1, maxSegments);
+        this.ring = new AuditRingBuffer(RING_CAPACITY);
+        this.queries = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "AmethystTools-Audit-Query");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Recovers existing segments and starts the writer thread
+     */
+    public void open() throws IOException {
+        folder.mkdirs();
+
+        List<Long> ids = new ArrayList<>();
+        File[] files = folder.listFiles((dir, name) -> name.endsWith(SEGMENT_SUFFIX));
+        if (files != null) {
+            for (File file : files) {
+                try {
+                    ids.add(Long.parseLong(file.getName().substring(0, file.getName().length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException ignored) {
+                    // Not one of ours
+                }
+            }
+        }
+        Collections.sort(ids);
+
+        synchronized (this) {
+            for (long id : ids) {
+                if (!isIndexValid(id)) {
+                    // Left active by a crash, its index only ever lived in memory
+                    rebuildIndex(id);
+                }
+                sealedSegments.add(id);
+            }
+
+            // Keep appending to the newest segment if it has room, so restarts do not fragment the log
+            long newest = ids.isEmpty() ? 0 : ids.get(ids.size() - 1);
+            if (newest > 0 && segmentFile(newest).length() < segmentBytes) {
+                sealedSegments.remove(sealedSegments.size() - 1);
+                resume(newest);
+            } else {
+                startSegment(newest + 1);
+            }
+        }
+
+        running = true;
+        writerThread = new Thread(this::runWriter, "AmethystTools-Audit");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * @return true if the log was opened and is accepting events
+     */
+    public boolean isOpen() {
+        return running;
+    }
+
+    /**
+     * Records an event. Never blocks, safe from any thread.
+     */
+    public void record(AuditEvent.Type type, UUID toolUUID, ToolType toolType, UUID playerUUID, int amount) {
+        if (!running || toolUUID == null) return;
+
+        long info = type.ordinal() | (long) (toolType != null ? toolType.ordinal() + 1 : 0) << 8 | (long) amount << 32;
+        ring.offer(System.currentTimeMillis(), toolUUID.getMostSignificantBits(), toolUUID.getLeastSignificantBits(),
+                playerUUID != null ? playerUUID.getMostSignificantBits() : 0L,
+                playerUUID != null ? playerUUID.getLeastSignificantBits() : 0L, info);
+    }
+
+    /**
+     * Finds the newest events involving a tool or player. Events from the last second may not be visible yet.
+     * @param uuid A tool UUID or player UUID
+     * @param limit Maximum number of events to return
+     * @return The events, newest first
+     */
+    public CompletableFuture<List<AuditEvent>> query(UUID uuid, int limit) {
+        return CompletableFuture.supplyAsync(() -> {
+            List<Long> segments;
+            long activeSegment;
+            long[] activeOffsets;
+            synchronized (this) {
+                segments = new ArrayList<>(sealedSegments);
+                activeSegment = activeId;
+                BlockList blocks = activeIndex.get(uuid);
+                activeOffsets = blocks != null ? blocks.toArray() : null;
+            }
+
+            List<AuditEvent> events = new ArrayList<>();
+            if (activeOffsets != null) {
+                readMatching(activeSegment, activeOffsets, uuid, events);
+            }
+            for (int i = segments.size() - 1; i >= 0 && events.size() < limit; i--) {
+                long id = segments.get(i);
+                try {
+                    long[] offsets = lookup(id, uuid);
+                    if (offsets.length > 0) {
+                        readMatching(id, offsets, uuid, events);
+                    }
+                } catch (IOException e) {
+                    // Pruned while we were reading or damaged, the other segments still answer
+                    logger.log(Level.FINE, "Could not search audit segment " + id, e);
+                }
+            }
+
+            events.sort(Comparator.comparingLong(AuditEvent::time).reversed());
+            return events.size() > limit ? new ArrayList<>(events.subList(0, limit)) : events;
+        }, queries);
+    }
+
+    /**
+     * Writes out everything still buffered and seals the active segment (called on disable)
+     */
+    public void close() {
+        if (!running) return;
+
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        queries.shutdown();
+    }
+
+    private void runWriter() {
+        while (running) {
+            int drained = ring.drain(this::append, BLOCK_EVENTS - blockEvents);
+            if (blockEvents >= BLOCK_EVENTS
+                    || (blockEvents > 0 && System.currentTimeMillis() - blockStartedAt >= BLOCK_AGE_MS)) {
+                flushBlock();
+            }
+            if (drained == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+
+        // Drain whatever was recorded before shutdown
+        while (ring.drain(this::append, BLOCK_EVENTS - blockEvents) > 0) {
+            if (blockEvents >= BLOCK_EVENTS) {
+                flushBlock();
+            }
+        }
+        flushBlock();
+        deflater.end();
+
+        synchronized (this) {
+            try {
+                seal();
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Could not seal audit segment " + activeId, e);
+            }
+        }
+    }
+
+    private void append(long time, long toolMost, long toolLeast, long playerMost, long playerLeast, long info) {
+        if (blockEvents == 0) {
+            blockStartedAt = System.currentTimeMillis();
+        }
+        block.putLong(time);
+        block.put((byte) info);
+        block.put((byte) (info >>> 8));
+        block.putLong(toolMost);
+        block.putLong(toolLeast);
+        block.putLong(playerMost);
+        block.putLong(playerLeast);
+        block.putInt((int) (info >>> 32));
+        blockEvents++;
+
+        blockIds.add(new UUID(toolMost, toolLeast));
+        if (playerMost != 0L || playerLeast != 0L) {
+            blockIds.add(new UUID(playerMost, playerLeast));
+        }
+    }
+
+    private void flushBlock() {
+        long dropped = ring.takeDropped();
+        if (dropped > 0) {
+            logger.warning("Audit log fell behind, " + dropped + " events were dropped");
+        }
+        if (blockEvents == 0) return;
+
+        int rawLength = block.position();
+        deflater.reset();
+        deflater.setInput(block.array(), 0, rawLength);
+        deflater.finish();
+        int compressedLength = 0;
+        while (!deflater.finished()) {
+            if (compressedLength == compressed.length) {
+                compressed = Arrays.copyOf(compressed, compressed.length * 2);
+            }
+            compressedLength += deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(compressed, 0, compressedLength);
+
+        ByteBuffer out = ByteBuffer.allocate(BLOCK_HEADER + compressedLength);
+        out.putInt(blockEvents).putInt(rawLength).putInt(compressedLength).putInt((int) crc.getValue());
+        out.put(compressed, 0, compressedLength).flip();
+
+        synchronized (this) {
+            long offset = activeSize;
+            try {
+                while (out.hasRemaining()) {
+                    active.write(out, offset + out.position());
+                }
+                // At most one sync per block age, a burst should not turn into a stream of fsyncs
+                long now = System.currentTimeMillis();
+                if (now - lastForce >= BLOCK_AGE_MS) {
+                    active.force(false);
+                    lastForce = now;
+                }
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Could not write to audit segment " + activeId, e);
+                resetBlock();
+                return;
+            }
+
+            activeSize += out.limit();
+            for (UUID id : blockIds) {
+                activeIndex.computeIfAbsent(id, key -> new BlockList()).add(offset);
+            }
+
+            if (activeSize >= segmentBytes) {
+                try {
+                    seal();
+                    sealedSegments.add(activeId);
+                    prune();
+                    startSegment(activeId + 1);
+                } catch (IOException e) {
+                    logger.log(Level.SEVERE, "Could not rotate audit segment " + activeId, e);
+                }
+            }
+        }
+        resetBlock();
+    }
+
+    private void resetBlock() {
+        block.clear();
+        blockIds.clear();
+        blockEvents = 0;
+    }
+
+    private void startSegment(long id) throws IOException {
+        activeId = id;
+        active = FileChannel.open(segmentFile(id).toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER).putInt(SEGMENT_MAGIC).putInt(VERSION).flip();
+        active.write(header, 0);
+        active.truncate(SEGMENT_HEADER);
+        activeSize = SEGMENT_HEADER;
+        activeIndex.clear();
+    }
+
+    /**
+     * Reopens a sealed segment for appending. Its index is loaded into memory and deleted,
+     * a crash from here on is then noticed and repaired by the next open.
+     */
+    private void resume(long id) throws IOException {
+        activeId = id;
+        active = FileChannel.open(segmentFile(id).toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        activeSize = active.size();
+        activeIndex.clear();
+
+        try (FileChannel channel = FileChannel.open(indexFile(id).toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer index = mapIndex(channel);
+            int count = index.getInt(8);
+            for (int i = 0; i < count; i++) {
+                int position = INDEX_HEADER + i * INDEX_ENTRY;
+                UUID uuid = new UUID(index.getLong(position), index.getLong(position + 8));
+                activeIndex.computeIfAbsent(uuid, key -> new BlockList()).add(index.getLong(position + 16));
+            }
+        }
+        Files.delete(indexFile(id).toPath());
+    }
+
+    /**
+     * Writes the index of the active segment and closes it
+     */
+    private void seal() throws IOException {
+        if (active == null) return;
+
+        writeIndex(activeId, activeIndex);
+        active.force(true);
+        active.close();
+        active = null;
+    }
+
+    private void prune() {
+        while (sealedSegments.size() > maxSegments) {
+            long id = sealedSegments.remove(0);
+            segmentFile(id).delete();
+            indexFile(id).delete();
+        }
+    }
+
+    private void writeIndex(long id, Map<UUID, BlockList> index) throws IOException {
+        List<UUID> ids = new ArrayList<>(index.keySet());
+        ids.sort(AuditLog::compare);
+
+        int count = 0;
+        for (BlockList blocks : index.values()) {
+            count += blocks.size;
+        }
+
+        ByteBuffer out = ByteBuffer.allocate(INDEX_HEADER + count * INDEX_ENTRY);
+        out.putInt(INDEX_MAGIC).putInt(VERSION).putInt(count);
+        for (UUID uuid : ids) {
+            BlockList blocks = index.get(uuid);
+            for (int i = 0; i < blocks.size; i++) {
+                out.putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits()).putLong(blocks.offsets[i]);
+            }
+        }
+        out.flip();
+
+        File target = indexFile(id);
+        File tempFile = new File(folder, target.getName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            channel.force(true);
+        }
+        try {
+            Files.move(tempFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Recreates a segment's index by reading every block, cutting off a torn final block
+     */
+    private void rebuildIndex(long id) throws IOException {
+        Map<UUID, BlockList> index = new HashMap<>();
+        try (FileChannel channel = FileChannel.open(segmentFile(id).toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long offset = SEGMENT_HEADER;
+            long size = channel.size();
+            while (offset < size) {
+                List<AuditEvent> events;
+                int length;
+                try {
+                    length = blockLength(channel, offset);
+                    events = readBlock(channel, offset);
+                } catch (IOException e) {
+                    logger.warning("Audit segment " + id + " ends with a damaged block, truncating it");
+                    channel.truncate(offset);
+                    break;
+                }
+                for (AuditEvent event : events) {
+                    index.computeIfAbsent(event.toolUUID(), key -> new BlockList()).add(offset);
+                    if (event.playerUUID() != null) {
+                        index.computeIfAbsent(event.playerUUID(), key -> new BlockList()).add(offset);
+                    }
+                }
+                offset += length;
+            }
+        }
+        writeIndex(id, index);
+    }
+
+    /**
+     * Binary searches a sealed segment's index
+     * @return The offsets of every block mentioning the UUID
+     */
+    private long[] lookup(long id, UUID uuid) throws IOException {
+        try (FileChannel channel = FileChannel.open(indexFile(id).toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer index = mapIndex(channel);
+            int count = index.getInt(8);
+            long most = uuid.getMostSignificantBits();
+            long least = uuid.getLeastSignificantBits();
+
+            // Lower bound: first entry not less than the UUID
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                int position = INDEX_HEADER + middle * INDEX_ENTRY;
+                if (compare(index.getLong(position), index.getLong(position + 8), most, least) < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+
+            BlockList blocks = new BlockList();
+            for (int i = low; i < count; i++) {
+                int position = INDEX_HEADER + i * INDEX_ENTRY;
+                if (index.getLong(position) != most || index.getLong(position + 8) != least) break;
+                blocks.add(index.getLong(position + 16));
+            }
+            return blocks.toArray();
+        }
+    }
+
+    private boolean isIndexValid(long id) {
+        if (!indexFile(id).exists()) return false;
+        try (FileChannel channel = FileChannel.open(indexFile(id).toPath(), StandardOpenOption.READ)) {
+            mapIndex(channel);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private MappedByteBuffer mapIndex(FileChannel channel) throws IOException {
+        MappedByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        if (channel.size() < INDEX_HEADER || index.getInt(0) != INDEX_MAGIC || index.getInt(4) != VERSION
+                || channel.size() != INDEX_HEADER + (long) index.getInt(8) * INDEX_ENTRY) {
+            throw new IOException("Invalid audit index");
+        }
+        return index;
+    }
+
+    private void readMatching(long id, long[] offsets, UUID uuid, List<AuditEvent> into) {
+        try (FileChannel channel = FileChannel.open(segmentFile(id).toPath(), StandardOpenOption.READ)) {
+            for (long offset : offsets) {
+                for (AuditEvent event : readBlock(channel, offset)) {
+                    if (uuid.equals(event.toolUUID()) || uuid.equals(event.playerUUID())) {
+                        into.add(event);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Could not read audit segment " + id, e);
+        }
+    }
+
+    private int blockLength(FileChannel channel, long offset) throws IOException {
+        ByteBuffer header = readFully(channel, offset, BLOCK_HEADER);
+        return BLOCK_HEADER + header.getInt(8);
+    }
+
+    private List<AuditEvent> readBlock(FileChannel channel, long offset) throws IOException {
+        ByteBuffer header = readFully(channel, offset, BLOCK_HEADER);
+        int count = header.getInt(0);
+        int rawLength = header.getInt(4);
+        int compressedLength = header.getInt(8);
+        int checksum = header.getInt(12);
+        if (count <= 0 || count > BLOCK_EVENTS || rawLength != count * EVENT_SIZE
+                || compressedLength <= 0 || offset + BLOCK_HEADER + compressedLength > channel.size()) {
+            throw new IOException("Invalid audit block at " + offset);
+        }
+
+        ByteBuffer body = readFully(channel, offset + BLOCK_HEADER, compressedLength);
+        CRC32 crc = new CRC32();
+        crc.update(body.array(), 0, compressedLength);
+        if ((int) crc.getValue() != checksum) {
+            throw new IOException("Checksum mismatch in audit block at " + offset);
+        }
+
+        byte[] raw = new byte[rawLength];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(body.array(), 0, compressedLength);
+            if (inflater.inflate(raw) != rawLength) {
+                throw new IOException("Truncated audit block at " + offset);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt audit block at " + offset, e);
+        } finally {
+            inflater.end();
+        }
+
+        ToolType[] toolTypes = ToolType.values();
+        AuditEvent.Type[] types = AuditEvent.Type.values();
+        ByteBuffer in = ByteBuffer.wrap(raw);
+        List<AuditEvent> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long time = in.getLong();
+            int type = in.get() & 0xFF;
+            int toolType = in.get() & 0xFF;
+            UUID toolUUID = new UUID(in.getLong(), in.getLong());
+            long playerMost = in.getLong();
+            long playerLeast = in.getLong();
+            int amount = in.getInt();
+            if (type >= types.length) continue;
+
+            events.add(new AuditEvent(time, types[type], toolUUID,
+                    toolType > 0 && toolType <= toolTypes.length ? toolTypes[toolType - 1] : null,
+                    playerMost != 0L || playerLeast != 0L ? new UUID(playerMost, playerLeast) : null, amount));
+        }
+        return events;
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of audit segment");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private File segmentFile(long id) {
+        return new File(folder, id + SEGMENT_SUFFIX);
+    }
+
+    private File indexFile(long id) {
+        return new File(folder, id + INDEX_SUFFIX);
+    }
+
+    private static int compare(UUID a, UUID b) {
+        return compare(a.getMostSignificantBits(), a.getLeastSignificantBits(),
+                b.getMostSignificantBits(), b.getLeastSignificantBits());
+    }
+
+    private static int compare(long mostA, long leastA, long mostB, long leastB) {
+        int result = Long.compare(mostA, mostB);
+        return result != 0 ? result : Long.compare(leastA, leastB);
+    }
+
+    /**
+     * Growable list of block offsets, ascending since blocks are only appended
+     */
+    private static final class BlockList {
+
+        private long[] offsets = new long[2];
+        private int size;
+
+        private void add(long offset) {
+            if (size > 0 && offsets[size - 1] == offset) return;
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, size * 2);
+            }
+            offsets[size++] = offset;
+        }
+
+        private long[] toArray() {
+            return Arrays.copyOf(offsets, size);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package dev.pallux.amethysttools.storage;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded lock-free ring of audit records with many producers and a single consumer.
+ * Each slot carries a sequence number: a producer claims a position with one CAS, fills the
+ * slot's columns and publishes it by advancing the sequence, so recording an event never
+ * blocks the main thread. When the consumer falls a full ring behind, new records are dropped.
+ */
+class AuditRingBuffer {
+
+    /**
+     * Receives drained records, on the consumer thread
+     */
+    interface Sink {
+        void accept(long time, long toolMost, long toolLeast, long playerMost, long playerLeast, long info);
+    }
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final long[] times;
+    private final long[] toolMost;
+    private final long[] toolLeast;
+    private final long[] playerMost;
+    private final long[] playerLeast;
+    private final long[] infos;
+    private final AtomicLong tail = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private long head; // Consumer only
+
+    AuditRingBuffer(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two");
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.sequences = new AtomicLongArray(capacity);
+        this.times = new long[capacity];
+        this.toolMost = new long[capacity];
+        this.toolLeast = new long[capacity];
+        this.playerMost = new long[capacity];
+        this.playerLeast = new long[capacity];
+        this.infos = new long[capacity];
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Appends a record, safe from any thread
+     * @return false if the ring was full and the record was dropped
+     */
+    boolean offer(long time, long toolMost, long toolLeast, long playerMost, long playerLeast, long info) {
+        long position;
+        int slot;
+        while (true) {
+            position = tail.get();
+            slot = (int) (position & mask);
+            long sequence = sequences.get(slot);
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) break;
+            } else if (sequence < position) {
+                // The consumer has not freed this slot yet
+                dropped.increment();
+                return false;
+            }
+            // Otherwise another producer claimed the position first, try the next one
+        }
+
+        this.times[slot] = time;
+        this.toolMost[slot] = toolMost;
+        this.toolLeast[slot] = toolLeast;
+        this.playerMost[slot] = playerMost;
+        this.playerLeast[slot] = playerLeast;
+        this.infos[slot] = info;
+        sequences.lazySet(slot, position + 1);
+        return true;
+    }
+
+    /**
+     * Hands published records to the sink in order. Consumer thread only.
+     * @return The number of records drained
+     */
+    int drain(Sink sink, int max) {
+        int drained = 0;
+        while (drained < max) {
+            int slot = (int) (head & mask);
+            if (sequences.get(slot) != head + 1) break;
+
+            sink.accept(times[slot], toolMost[slot], toolLeast[slot], playerMost[slot], playerLeast[slot], infos[slot]);
+            sequences.lazySet(slot, head + capacity);
+            head++;
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * @return The number of records dropped since the last call
+     */
+    long takeDropped() {
+        return dropped.sumThenReset();
+    }
+}
@@ -0,0 +1,224 @@
+package dev.pallux.amethysttools.storage;
+
+import java.util.Arrays;
+
+/**
+ * Tool registry held in primitive arrays on the Java heap
+ */
+public class HeapToolRegistry extends ToolRegistry {
+
+    private static final int MIN_CAPACITY = 64;
+
+    private int size;
+    private long[] toolMost;
+    private long[] toolLeast;
+    private long[] ownerMost;
+    private long[] ownerLeast;
+    private long[] creationTimes;
+    private byte[] types;
+    private int[] ownerNext;
+    private int[] ownerPrev;
+    private int[] createdNext;
+    private int[] createdPrev;
+    private int oldest = NONE;
+    private int newest = NONE;
+    private int[] index;
+
+    public HeapToolRegistry() {
+        this(MIN_CAPACITY);
+    }
+
+    public HeapToolRegistry(int expectedTools) {
+        int capacity = Math.max(MIN_CAPACITY, expectedTools);
+        this.toolMost = new long[capacity];
+        this.toolLeast = new long[capacity];
+        this.ownerMost = new long[capacity];
+        this.ownerLeast = new long[capacity];
+        this.creationTimes = new long[capacity];
+        this.types = new byte[capacity];
+        this.ownerNext = new int[capacity];
+        this.ownerPrev = new int[capacity];
+        this.createdNext = new int[capacity];
+        this.createdPrev = new int[capacity];
+        this.index = new int[indexSizeFor(capacity)];
+    }
+
+    /**
+     * Copies the columns of any registry, for handing the current state to another thread.
+     * The copy is meant for sequential reads only and has no usable index.
+     */
+    public static HeapToolRegistry copyOf(ToolRegistry registry) {
+        int count = registry.size();
+        HeapToolRegistry copy = new HeapToolRegistry(count);
+        copy.size = count;
+        for (int slot = 0; slot < count; slot++) {
+            copy.toolMost[slot] = registry.getToolMost(slot);
+            copy.toolLeast[slot] = registry.getToolLeast(slot);
+            copy.ownerMost[slot] = registry.getOwnerMost(slot);
+            copy.ownerLeast[slot] = registry.getOwnerLeast(slot);
+            copy.creationTimes[slot] = registry.getCreationTime(slot);
+            copy.types[slot] = (byte) registry.getTypeOrdinal(slot);
+        }
+        return copy;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long getToolMost(int slot) {
+        return toolMost[slot];
+    }
+
+    @Override
+    public long getToolLeast(int slot) {
+        return toolLeast[slot];
+    }
+
+    @Override
+    public long getOwnerMost(int slot) {
+        return ownerMost[slot];
+    }
+
+    @Override
+    public long getOwnerLeast(int slot) {
+        return ownerLeast[slot];
+    }
+
+    @Override
+    public long getCreationTime(int slot) {
+        return creationTimes[slot];
+    }
+
+    @Override
+    public int getTypeOrdinal(int slot) {
+        return types[slot];
+    }
+
+    @Override
+    protected void setSize(int size) {
+        this.size = size;
+    }
+
+    @Override
+    protected void setTool(int slot, long most, long least) {
+        toolMost[slot] = most;
+        toolLeast[slot] = least;
+    }
+
+    @Override
+    protected void setOwner(int slot, long most, long least) {
+        ownerMost[slot] = most;
+        ownerLeast[slot] = least;
+    }
+
+    @Override
+    protected void setCreationTime(int slot, long creationTime) {
+        creationTimes[slot] = creationTime;
+    }
+
+    @Override
+    protected void setTypeOrdinal(int slot, int ordinal) {
+        types[slot] = (byte) ordinal;
+    }
+
+    @Override
+    protected int getOwnerNext(int slot) {
+        return ownerNext[slot];
+    }
+
+    @Override
+    protected int getOwnerPrev(int slot) {
+        return ownerPrev[slot];
+    }
+
+    @Override
+    protected void setOwnerNext(int slot, int next) {
+        ownerNext[slot] = next;
+    }
+
+    @Override
+    protected void setOwnerPrev(int slot, int prev) {
+        ownerPrev[slot] = prev;
+    }
+
+    @Override
+    protected int getCreatedNext(int slot) {
+        return createdNext[slot];
+    }
+
+    @Override
+    protected int getCreatedPrev(int slot) {
+        return createdPrev[slot];
+    }
+
+    @Override
+    protected void setCreatedNext(int slot, int next) {
+        createdNext[slot] = next;
+    }
+
+    @Override
+    protected void setCreatedPrev(int slot, int prev) {
+        createdPrev[slot] = prev;
+    }
+
+    @Override
+    protected int getOldest() {
+        return oldest;
+    }
+
+    @Override
+    protected int getNewest() {
+        return newest;
+    }
+
+    @Override
+    protected void setOldest(int slot) {
+        oldest = slot;
+    }
+
+    @Override
+    protected void setNewest(int slot) {
+        newest = slot;
+    }
+
+    @Override
+    protected void ensureCapacity(int needed) {
+        if (needed <= toolMost.length) return;
+
+        int capacity = Math.max(needed, toolMost.length + (toolMost.length >> 1));
+        toolMost = Arrays.copyOf(toolMost, capacity);
+        toolLeast = Arrays.copyOf(toolLeast, capacity);
+        ownerMost = Arrays.copyOf(ownerMost, capacity);
+        ownerLeast = Arrays.copyOf(ownerLeast, capacity);
+        creationTimes = Arrays.copyOf(creationTimes, capacity);
+        types = Arrays.copyOf(types, capacity);
+        ownerNext = Arrays.copyOf(ownerNext, capacity);
+        ownerPrev = Arrays.copyOf(ownerPrev, capacity);
+        createdNext = Arrays.copyOf(createdNext, capacity);
+        createdPrev = Arrays.copyOf(createdPrev, capacity);
+
+        int indexSize = indexSizeFor(capacity);
+        if (indexSize > index.length) {
+            index = new int[indexSize];
+            rebuildIndex();
+        }
+    }
+
+    @Override
+    protected int indexMask() {
+        return index.length - 1;
+    }
+
+    @Override
+    protected int getIndex(int bucket) {
+        return index[bucket];
+    }
+
+    @Override
+    protected void setIndex(int bucket, int entry) {
+        index[bucket] = entry;
+    }
+}
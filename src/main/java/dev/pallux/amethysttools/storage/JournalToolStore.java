@@ -0,0 +1,449 @@
+package dev.pallux.amethysttools.storage;
+
+import dev.pallux.amethysttools.models.AmethystTool;
+import dev.pallux.amethysttools.models.ToolType;
+
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Persists the tool registry as a compacted snapshot plus an append-only journal.
+ * All disk I/O happens on a single writer thread; callers only enqueue records.
+ */
+public class JournalToolStore implements ToolStore {
+
+    private static final int SNAPSHOT_MAGIC = 0x41544F53; // "ATOS"
+    private static final int JOURNAL_MAGIC = 0x41544A4C; // "ATJL"
+    private static final int FORMAT_VERSION = 1;
+    // Version 2 appends the tombstone section
+    private static final int SNAPSHOT_VERSION = 2;
+
+    private static final byte OP_CREATE = 1;
+    private static final byte OP_ASSIGN = 2;
+    private static final byte OP_DESTROY = 3;
+
+    // Upper bound on how long a record may sit in memory before it is synced to disk
+    private static final long FLUSH_INTERVAL_MS = 200L;
+
+    private final Logger logger;
+    private final File snapshotFile;
+    private final File journalFile;
+    private final StatsFile stats;
+    private final BlockingQueue<Object> queue;
+
+    private Thread writerThread;
+    private volatile boolean running;
+    private FileOutputStream journalFileStream;
+    private DataOutputStream journalOut;
+
+    public JournalToolStore(File dataFolder, Logger logger) {
+        this.logger = logger;
+        File storageFolder = new File(dataFolder, "data");
+        storageFolder.mkdirs();
+        this.snapshotFile = new File(storageFolder, "tools.dat");
+        this.journalFile = new File(storageFolder, "tools.journal");
+        this.stats = new StatsFile(storageFolder);
+        this.queue = new LinkedBlockingQueue<>();
+    }
+
+    /**
+     * Loads the registry into the heap and starts the writer thread
+     */
+    @Override
+    public ToolRegistry open(ToolTombstones tombstones, long lifetimeMillis) {
+        ToolRegistry registry = new HeapToolRegistry();
+        load(registry, tombstones, lifetimeMillis);
+        start();
+        return registry;
+    }
+
+    /**
+     * @return true if there is anything on disk to load
+     */
+    boolean exists() {
+        return snapshotFile.exists() || journalFile.exists();
+    }
+
+    /**
+     * Loads the last snapshot and replays the journal on top of it
+     * @param tools The registry to fill with every live tool
+     * @param tombstones Receives every destroyed tool that has not expired yet
+     * @param lifetimeMillis The tool lifetime, used to date tombstones replayed from the journal
+     */
+    void load(ToolRegistry tools, ToolTombstones tombstones, long lifetimeMillis) {
+        if (snapshotFile.exists()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshotFile)))) {
+                int magic = in.readInt();
+                int version = in.readInt();
+                if (magic != SNAPSHOT_MAGIC || version < FORMAT_VERSION || version > SNAPSHOT_VERSION) {
+                    throw new IOException("Unknown snapshot format");
+                }
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    ToolRecord tool = readTool(in);
+                    if (tool != null) {
+                        tools.add(tool.toolUUID(), tool.toolType(), tool.creationTime(), tool.ownerUUID());
+                    }
+                }
+                if (version >= 2) {
+                    int tombstoneCount = in.readInt();
+                    for (int i = 0; i < tombstoneCount; i++) {
+                        tombstones.add(new UUID(in.readLong(), in.readLong()), in.readLong());
+                    }
+                }
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Could not read tool snapshot " + snapshotFile.getName(), e);
+            }
+        }
+
+        int replayed = 0;
+        if (journalFile.exists()) {
+            // End of the last complete record, anything after it is a torn write
+            long complete = 0;
+            try (CountingInputStream counter = new CountingInputStream(new BufferedInputStream(new FileInputStream(journalFile)));
+                 DataInputStream in = new DataInputStream(counter)) {
+                if (in.readInt() != JOURNAL_MAGIC || in.readInt() != FORMAT_VERSION) {
+                    throw new IOException("Unknown journal format");
+                }
+                complete = counter.count;
+                while (true) {
+                    byte op;
+                    try {
+                        op = in.readByte();
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    ToolRecord tool = readTool(in);
+                    if (tool == null) continue;
+
+                    switch (op) {
+                        case OP_CREATE -> tools.add(tool.toolUUID(), tool.toolType(), tool.creationTime(), tool.ownerUUID());
+                        case OP_ASSIGN -> tools.setOwner(tool.toolUUID(), tool.ownerUUID());
+                        case OP_DESTROY -> {
+                            tools.remove(tool.toolUUID());
+                            tombstones.add(tool.toolUUID(), tool.creationTime() + lifetimeMillis);
+                        }
+                        default -> throw new IOException("Unknown journal op " + op);
+                    }
+                    replayed++;
+                    complete = counter.count;
+                }
+            } catch (EOFException e) {
+                // A crash mid-write leaves a torn final record, everything before it is still valid.
+                // Cut it off, or the next record appended would be read as its remainder.
+                logger.warning("Tool journal ends with an incomplete record, discarding it");
+                truncateJournal(complete);
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Could not replay tool journal " + journalFile.getName(), e);
+            }
+        }
+
+        logger.info("Loaded " + tools.size() + " tools and " + tombstones.size() + " tombstones ("
+                + replayed + " journal records replayed)");
+    }
+
+    /**
+     * Starts the background writer. Must be called after {@link #load(ToolRegistry, ToolTombstones, long)}.
+     */
+    private void start() {
+        try {
+            openJournal(journalFile.exists() && journalFile.length() > 0);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Could not open tool journal, changes will not be persisted!", e);
+            return;
+        }
+
+        running = true;
+        writerThread = new Thread(this::runWriter, "AmethystTools-Storage");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @Override
+    public void logCreate(AmethystTool tool) {
+        enqueue(new JournalRecord(OP_CREATE, ToolRecord.of(tool)));
+    }
+
+    @Override
+    public void logCreateAll(Collection<AmethystTool> tools) {
+        List<JournalRecord> records = new ArrayList<>(tools.size());
+        for (AmethystTool tool : tools) {
+            records.add(new JournalRecord(OP_CREATE, ToolRecord.of(tool)));
+        }
+        if (running) {
+            queue.add(new JournalBatch(records));
+        }
+    }
+
+    @Override
+    public void logAssign(AmethystTool tool) {
+        enqueue(new JournalRecord(OP_ASSIGN, ToolRecord.of(tool)));
+    }
+
+    /**
+     * Journals a destroyed tool. Takes the fields rather than a view, since the tool is
+     * normally already gone from the registry by the time it is logged.
+     */
+    @Override
+    public void logDestroy(UUID toolUUID, ToolType toolType, long creationTime) {
+        enqueue(new JournalRecord(OP_DESTROY, new ToolRecord(toolUUID, toolType, creationTime, null)));
+        stats.forget(toolUUID);
+    }
+
+    @Override
+    public void loadStats(Map<UUID, long[]> byTool, Map<UUID, long[]> byPlayer) throws IOException {
+        stats.load(byTool, byPlayer);
+    }
+
+    @Override
+    public void addStats(Map<UUID, long[]> toolDeltas, Map<UUID, long[]> playerDeltas) throws IOException {
+        stats.add(toolDeltas, playerDeltas);
+    }
+
+    /**
+     * Writes a compacted snapshot of the given tools and truncates the journal.
+     * The columns are copied immediately, the write happens on the writer thread.
+     * @param tools The current live tools
+     * @param tombstones The current tombstones
+     * @return A future completed once the snapshot is on disk
+     */
+    @Override
+    public CompletableFuture<Void> snapshot(ToolRegistry tools, ToolTombstones tombstones) {
+        ToolRegistry copies = HeapToolRegistry.copyOf(tools);
+        Map<UUID, Long> tombstoneCopies = new HashMap<>(tombstones.getEntries());
+
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        if (!running) {
+            future.complete(null);
+            return future;
+        }
+        queue.add(new SnapshotRequest(copies, tombstoneCopies, future));
+        return future;
+    }
+
+    /**
+     * Writes a final snapshot and stops the writer thread
+     * @param tools The current live tools
+     * @param tombstones The current tombstones
+     */
+    @Override
+    public void close(ToolRegistry tools, ToolTombstones tombstones) {
+        if (!running) return;
+
+        CompletableFuture<Void> future = snapshot(tools, tombstones);
+        running = false;
+        try {
+            future.get(30, TimeUnit.SECONDS);
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "Timed out while saving tools", e);
+        }
+    }
+
+    private void enqueue(JournalRecord record) {
+        if (running) {
+            queue.add(record);
+        }
+    }
+
+    private void runWriter() {
+        boolean dirty = false;
+        long lastSync = System.currentTimeMillis();
+
+        while (running || !queue.isEmpty()) {
+            try {
+                Object task = queue.poll(FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+
+                if (task instanceof JournalRecord record) {
+                    writeRecord(record);
+                    dirty = true;
+                } else if (task instanceof JournalBatch batch) {
+                    for (JournalRecord record : batch.records()) {
+                        writeRecord(record);
+                    }
+                    dirty = true;
+                } else if (task instanceof SnapshotRequest request) {
+                    try {
+                        writeSnapshot(request.tools(), request.tombstones());
+                        dirty = false;
+                        request.future().complete(null);
+                    } catch (IOException e) {
+                        request.future().completeExceptionally(e);
+                        throw e;
+                    }
+                }
+
+                // Group commit: sync once the queue drains or the interval has passed
+                long now = System.currentTimeMillis();
+                if (dirty && (queue.isEmpty() || now - lastSync >= FLUSH_INTERVAL_MS)) {
+                    journalOut.flush();
+                    journalFileStream.getFD().sync();
+                    dirty = false;
+                    lastSync = now;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Error writing tool journal", e);
+            }
+        }
+
+        try {
+            journalOut.close();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Error closing tool journal", e);
+        }
+    }
+
+    private void writeRecord(JournalRecord record) throws IOException {
+        journalOut.writeByte(record.op());
+        writeTool(journalOut, record.tool());
+    }
+
+    private void writeSnapshot(ToolRegistry tools, Map<UUID, Long> tombstones) throws IOException {
+        File tempFile = new File(snapshotFile.getParentFile(), snapshotFile.getName() + ".tmp");
+
+        try (FileOutputStream fileStream = new FileOutputStream(tempFile);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileStream))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeInt(tools.size());
+            for (int slot = 0; slot < tools.size(); slot++) {
+                out.writeLong(tools.getToolMost(slot));
+                out.writeLong(tools.getToolLeast(slot));
+                out.writeByte(tools.getTypeOrdinal(slot));
+                out.writeLong(tools.getCreationTime(slot));
+                out.writeBoolean(tools.hasOwner(slot));
+                if (tools.hasOwner(slot)) {
+                    out.writeLong(tools.getOwnerMost(slot));
+                    out.writeLong(tools.getOwnerLeast(slot));
+                }
+            }
+            out.writeInt(tombstones.size());
+            for (Map.Entry<UUID, Long> tombstone : tombstones.entrySet()) {
+                out.writeLong(tombstone.getKey().getMostSignificantBits());
+                out.writeLong(tombstone.getKey().getLeastSignificantBits());
+                out.writeLong(tombstone.getValue());
+            }
+            out.flush();
+            fileStream.getFD().sync();
+        }
+
+        try {
+            Files.move(tempFile.toPath(), snapshotFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        // Every record queued before this snapshot is now part of it
+        journalOut.close();
+        openJournal(false);
+    }
+
+    private void truncateJournal(long length) {
+        try (RandomAccessFile file = new RandomAccessFile(journalFile, "rw")) {
+            file.setLength(length);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Could not truncate tool journal " + journalFile.getName(), e);
+        }
+    }
+
+    private void openJournal(boolean append) throws IOException {
+        journalFileStream = new FileOutputStream(journalFile, append);
+        journalOut = new DataOutputStream(new BufferedOutputStream(journalFileStream));
+        if (!append) {
+            journalOut.writeInt(JOURNAL_MAGIC);
+            journalOut.writeInt(FORMAT_VERSION);
+            journalOut.flush();
+        }
+    }
+
+    private static void writeTool(DataOutputStream out, ToolRecord tool) throws IOException {
+        out.writeLong(tool.toolUUID().getMostSignificantBits());
+        out.writeLong(tool.toolUUID().getLeastSignificantBits());
+        out.writeByte(tool.toolType().ordinal());
+        out.writeLong(tool.creationTime());
+
+        UUID owner = tool.ownerUUID();
+        out.writeBoolean(owner != null);
+        if (owner != null) {
+            out.writeLong(owner.getMostSignificantBits());
+            out.writeLong(owner.getLeastSignificantBits());
+        }
+    }
+
+    private static ToolRecord readTool(DataInputStream in) throws IOException {
+        UUID toolUUID = new UUID(in.readLong(), in.readLong());
+        int typeOrdinal = in.readUnsignedByte();
+        long creationTime = in.readLong();
+        UUID owner = in.readBoolean() ? new UUID(in.readLong(), in.readLong()) : null;
+
+        ToolType[] types = ToolType.values();
+        if (typeOrdinal >= types.length) return null;
+        return new ToolRecord(toolUUID, types[typeOrdinal], creationTime, owner);
+    }
+
+    // Detached copy of a tool, safe to hand to the writer thread
+    private record ToolRecord(UUID toolUUID, ToolType toolType, long creationTime, UUID ownerUUID) {
+
+        static ToolRecord of(AmethystTool tool) {
+            return new ToolRecord(tool.getToolUUID(), tool.getToolType(), tool.getCreationTime(), tool.getOwnerUUID());
+        }
+    }
+
+    private record JournalRecord(byte op, ToolRecord tool) {
+    }
+
+    // Counts the bytes read, to find where the last complete record ends
+    private static final class CountingInputStream extends FilterInputStream {
+
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) count += read;
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+
+    private record JournalBatch(List<JournalRecord> records) {
+    }
+
+    private record SnapshotRequest(ToolRegistry tools, Map<UUID, Long> tombstones, CompletableFuture<Void> future) {
+    }
+}
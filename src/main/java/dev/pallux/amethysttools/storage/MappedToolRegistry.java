@@ -0,0 +1,393 @@
+package dev.pallux.amethysttools.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Tool registry whose columns and index live in memory-mapped files. Opening a registry
+ * only validates the header; records are paged in by the OS as they are touched, and every
+ * change is an in-place write that reaches disk on {@link #force()} or by normal write-back.
+ * A clean flag in the header detects an unclean shutdown, in which case the index is rebuilt
+ * and the creation order, kept in a third file, is sorted again on first use.
+ */
+public class MappedToolRegistry extends ToolRegistry {
+
+    private static final int MAGIC = 0x41544D52; // "ATMR"
+    private static final int VERSION = 1;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // Header layout
+    private static final int HEADER_SIZE = 64;
+    private static final int H_MAGIC = 0;
+    private static final int H_VERSION = 4;
+    private static final int H_RECORD_SIZE = 8;
+    private static final int H_CAPACITY = 12;
+    private static final int H_SIZE = 16;
+    private static final int H_INDEX_SIZE = 20;
+    private static final int H_CLEAN = 24;
+    private static final int H_OLDEST = 28;
+    private static final int H_NEWEST = 32;
+
+    // Record layout
+    private static final int RECORD_SIZE = 56;
+    private static final int R_TOOL_MOST = 0;
+    private static final int R_TOOL_LEAST = 8;
+    private static final int R_OWNER_MOST = 16;
+    private static final int R_OWNER_LEAST = 24;
+    private static final int R_CREATED = 32;
+    private static final int R_OWNER_NEXT = 40;
+    private static final int R_OWNER_PREV = 44;
+    private static final int R_TYPE = 48;
+
+    // Creation order layout, one record per slot of capacity
+    private static final int ORDER_RECORD_SIZE = 8;
+    private static final int O_NEXT = 0;
+    private static final int O_PREV = 4;
+
+    private static final int MAX_CAPACITY = (Integer.MAX_VALUE - HEADER_SIZE) / RECORD_SIZE;
+
+    private final FileChannel dataChannel;
+    private final FileChannel indexChannel;
+    private final FileChannel orderChannel;
+    // Remapped on growth by the main thread while the storage thread may force them,
+    // both happen under remapLock
+    private final Object remapLock = new Object();
+    private volatile MappedByteBuffer data;
+    private volatile MappedByteBuffer index;
+    private volatile MappedByteBuffer order;
+    private int capacity;
+    private int size;
+    private int indexMask;
+    private boolean recovered;
+
+    private MappedToolRegistry(FileChannel dataChannel, FileChannel indexChannel, FileChannel orderChannel) {
+        this.dataChannel = dataChannel;
+        this.indexChannel = indexChannel;
+        this.orderChannel = orderChannel;
+    }
+
+    /**
+     * Opens or creates a mapped registry
+     * @param dataFile The record file
+     * @param indexFile The index file, rebuilt from the records if missing or stale
+     * @param orderFile The creation order file, rebuilt from the records if missing or stale
+     */
+    public static MappedToolRegistry open(File dataFile, File indexFile, File orderFile) throws IOException {
+        boolean exists = dataFile.exists() && dataFile.length() >= HEADER_SIZE;
+        FileChannel dataChannel = FileChannel.open(dataFile.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileChannel indexChannel = FileChannel.open(indexFile.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileChannel orderChannel = FileChannel.open(orderFile.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        MappedToolRegistry registry = new MappedToolRegistry(dataChannel, indexChannel, orderChannel);
+        try {
+            if (exists) {
+                registry.mapExisting(dataFile);
+            } else {
+                registry.mapNew();
+            }
+        } catch (IOException e) {
+            dataChannel.close();
+            indexChannel.close();
+            orderChannel.close();
+            throw e;
+        }
+        return registry;
+    }
+
+    private void mapExisting(File dataFile) throws IOException {
+        MappedByteBuffer header = dataChannel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+        if (header.getInt(H_MAGIC) != MAGIC || header.getInt(H_VERSION) != VERSION
+                || header.getInt(H_RECORD_SIZE) != RECORD_SIZE) {
+            throw new IOException("Unknown registry format in " + dataFile.getName());
+        }
+
+        capacity = header.getInt(H_CAPACITY);
+        size = header.getInt(H_SIZE);
+        int indexSize = header.getInt(H_INDEX_SIZE);
+        boolean clean = header.get(H_CLEAN) == 1;
+        if (capacity < size || size < 0 || capacity > MAX_CAPACITY || Integer.bitCount(indexSize) != 1) {
+            throw new IOException("Corrupt registry header in " + dataFile.getName());
+        }
+
+        data = dataChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * RECORD_SIZE);
+        boolean indexValid = indexChannel.size() == (long) indexSize * Integer.BYTES;
+        if (!indexValid) {
+            indexChannel.truncate(0);
+        }
+        mapIndex(indexSize);
+        boolean orderValid = mapOrder();
+
+        // After a crash the index and owner links may be half-updated, the records are the source of truth
+        if (!clean || !indexValid) {
+            rebuildIndex();
+            recovered = true;
+        }
+        if (clean && orderValid) {
+            creationOrderRestored();
+        }
+        markDirty();
+    }
+
+    private void mapNew() throws IOException {
+        capacity = INITIAL_CAPACITY;
+        size = 0;
+        data = dataChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * RECORD_SIZE);
+        data.putInt(H_MAGIC, MAGIC);
+        data.putInt(H_VERSION, VERSION);
+        data.putInt(H_RECORD_SIZE, RECORD_SIZE);
+        data.putInt(H_CAPACITY, capacity);
+        data.putInt(H_SIZE, size);
+
+        // Nothing is mapped yet, so a leftover index can be dropped
+        indexChannel.truncate(0);
+        mapIndex(indexSizeFor(capacity));
+        mapOrder();
+        creationOrderRestored();
+        setOldest(NONE);
+        setNewest(NONE);
+        markDirty();
+    }
+
+    /**
+     * Maps the index at the given size. Mapping past the end grows the file; it is never
+     * truncated once mapped, which fails on Windows and faults on Linux when the old buffer is touched.
+     */
+    private void mapIndex(int indexSize) throws IOException {
+        index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, (long) indexSize * Integer.BYTES);
+        indexMask = indexSize - 1;
+        data.putInt(H_INDEX_SIZE, indexSize);
+    }
+
+    /**
+     * @return Whether the file already held the creation order for the current capacity
+     */
+    private boolean mapOrder() throws IOException {
+        // Only called at open, before the file is mapped
+        long length = (long) capacity * ORDER_RECORD_SIZE;
+        boolean valid = orderChannel.size() == length;
+        if (!valid) {
+            orderChannel.truncate(0);
+        }
+        order = orderChannel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+        return valid;
+    }
+
+    private void markDirty() {
+        data.put(H_CLEAN, (byte) 0);
+        data.force(0, HEADER_SIZE);
+    }
+
+    /**
+     * @return true if the last shutdown was unclean and the index had to be rebuilt
+     */
+    public boolean wasRecovered() {
+        return recovered;
+    }
+
+    /**
+     * Writes all modified pages to disk, safe on any thread
+     */
+    public void force() {
+        synchronized (remapLock) {
+            index.force();
+            order.force();
+            data.force();
+        }
+    }
+
+    /**
+     * Forces everything to disk and marks the files as cleanly closed
+     */
+    public void close() throws IOException {
+        synchronized (remapLock) {
+            index.force();
+            order.force();
+            data.force();
+            data.put(H_CLEAN, (byte) 1);
+            data.force(0, HEADER_SIZE);
+            dataChannel.close();
+            indexChannel.close();
+            orderChannel.close();
+        }
+    }
+
+    private static int offset(int slot) {
+        return HEADER_SIZE + slot * RECORD_SIZE;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long getToolMost(int slot) {
+        return data.getLong(offset(slot) + R_TOOL_MOST);
+    }
+
+    @Override
+    public long getToolLeast(int slot) {
+        return data.getLong(offset(slot) + R_TOOL_LEAST);
+    }
+
+    @Override
+    public long getOwnerMost(int slot) {
+        return data.getLong(offset(slot) + R_OWNER_MOST);
+    }
+
+    @Override
+    public long getOwnerLeast(int slot) {
+        return data.getLong(offset(slot) + R_OWNER_LEAST);
+    }
+
+    @Override
+    public long getCreationTime(int slot) {
+        return data.getLong(offset(slot) + R_CREATED);
+    }
+
+    @Override
+    public int getTypeOrdinal(int slot) {
+        return data.get(offset(slot) + R_TYPE);
+    }
+
+    @Override
+    protected void setSize(int size) {
+        this.size = size;
+        data.putInt(H_SIZE, size);
+    }
+
+    @Override
+    protected void setTool(int slot, long most, long least) {
+        int offset = offset(slot);
+        data.putLong(offset + R_TOOL_MOST, most);
+        data.putLong(offset + R_TOOL_LEAST, least);
+    }
+
+    @Override
+    protected void setOwner(int slot, long most, long least) {
+        int offset = offset(slot);
+        data.putLong(offset + R_OWNER_MOST, most);
+        data.putLong(offset + R_OWNER_LEAST, least);
+    }
+
+    @Override
+    protected void setCreationTime(int slot, long creationTime) {
+        data.putLong(offset(slot) + R_CREATED, creationTime);
+    }
+
+    @Override
+    protected void setTypeOrdinal(int slot, int ordinal) {
+        data.put(offset(slot) + R_TYPE, (byte) ordinal);
+    }
+
+    @Override
+    protected int getOwnerNext(int slot) {
+        return data.getInt(offset(slot) + R_OWNER_NEXT);
+    }
+
+    @Override
+    protected int getOwnerPrev(int slot) {
+        return data.getInt(offset(slot) + R_OWNER_PREV);
+    }
+
+    @Override
+    protected void setOwnerNext(int slot, int next) {
+        data.putInt(offset(slot) + R_OWNER_NEXT, next);
+    }
+
+    @Override
+    protected void setOwnerPrev(int slot, int prev) {
+        data.putInt(offset(slot) + R_OWNER_PREV, prev);
+    }
+
+    @Override
+    protected int getCreatedNext(int slot) {
+        return order.getInt(slot * ORDER_RECORD_SIZE + O_NEXT);
+    }
+
+    @Override
+    protected int getCreatedPrev(int slot) {
+        return order.getInt(slot * ORDER_RECORD_SIZE + O_PREV);
+    }
+
+    @Override
+    protected void setCreatedNext(int slot, int next) {
+        order.putInt(slot * ORDER_RECORD_SIZE + O_NEXT, next);
+    }
+
+    @Override
+    protected void setCreatedPrev(int slot, int prev) {
+        order.putInt(slot * ORDER_RECORD_SIZE + O_PREV, prev);
+    }
+
+    @Override
+    protected int getOldest() {
+        return data.getInt(H_OLDEST);
+    }
+
+    @Override
+    protected int getNewest() {
+        return data.getInt(H_NEWEST);
+    }
+
+    @Override
+    protected void setOldest(int slot) {
+        data.putInt(H_OLDEST, slot);
+    }
+
+    @Override
+    protected void setNewest(int slot) {
+        data.putInt(H_NEWEST, slot);
+    }
+
+    @Override
+    protected void ensureCapacity(int needed) {
+        if (needed <= capacity) return;
+        if (needed > MAX_CAPACITY) {
+            throw new IllegalStateException("Tool registry is full (" + MAX_CAPACITY + " tools)");
+        }
+
+        synchronized (remapLock) {
+            try {
+                // Mapping past the end of the file grows it, existing records stay where they are
+                int newCapacity = (int) Math.min(MAX_CAPACITY, Math.max(needed, (long) capacity * 2));
+                data.force();
+                data = dataChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) newCapacity * RECORD_SIZE);
+                data.putInt(H_CAPACITY, newCapacity);
+                capacity = newCapacity;
+                order.force();
+                order = orderChannel.map(FileChannel.MapMode.READ_WRITE, 0, (long) newCapacity * ORDER_RECORD_SIZE);
+
+                int indexSize = indexSizeFor(newCapacity);
+                if (indexSize > indexMask + 1) {
+                    // The rebuild clears every bucket, so the old contents need no dropping
+                    mapIndex(indexSize);
+                    rebuildIndex();
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not grow the tool registry", e);
+            }
+        }
+    }
+
+    @Override
+    protected int indexMask() {
+        return indexMask;
+    }
+
+    @Override
+    protected int getIndex(int bucket) {
+        return index.getInt(bucket << 2);
+    }
+
+    @Override
+    protected void setIndex(int bucket, int entry) {
+        index.putInt(bucket << 2, entry);
+    }
+}
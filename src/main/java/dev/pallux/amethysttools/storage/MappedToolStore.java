@@ -0,0 +1,227 @@
+package dev.pallux.amethysttools.storage;
+
+import dev.pallux.amethysttools.models.AmethystTool;
+import dev.pallux.amethysttools.models.ToolType;
+
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the registry in memory-mapped files ({@link MappedToolRegistry}). Changes are written in
+ * place by the registry itself, so a snapshot is just a force(). Tombstones are kept in a
+ * separate file that destroys append to and every snapshot compacts.
+ */
+public class MappedToolStore implements ToolStore {
+
+    private static final int TOMBSTONE_MAGIC = 0x41545453; // "ATTS"
+
+    private final File dataFolder;
+    private final Logger logger;
+    private final File registryFile;
+    private final File indexFile;
+    private final File orderFile;
+    private final File tombstoneFile;
+    private final StatsFile stats;
+    private final ExecutorService writer;
+
+    private MappedToolRegistry registry;
+    private long lifetimeMillis;
+
+    public MappedToolStore(File dataFolder, Logger logger) {
+        this.dataFolder = dataFolder;
+        this.logger = logger;
+        File storageFolder = new File(dataFolder, "data");
+        storageFolder.mkdirs();
+        this.registryFile = new File(storageFolder, "registry.dat");
+        this.indexFile = new File(storageFolder, "registry.idx");
+        this.orderFile = new File(storageFolder, "registry.ord");
+        this.tombstoneFile = new File(storageFolder, "tombstones.dat");
+        this.stats = new StatsFile(storageFolder);
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "AmethystTools-Storage");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public ToolRegistry open(ToolTombstones tombstones, long lifetimeMillis) throws IOException {
+        this.lifetimeMillis = lifetimeMillis;
+        boolean fresh = !registryFile.exists();
+        registry = MappedToolRegistry.open(registryFile, indexFile, orderFile);
+
+        JournalToolStore journal = new JournalToolStore(dataFolder, logger);
+        if (fresh && journal.exists()) {
+            importJournal(journal, tombstones, lifetimeMillis);
+        } else {
+            loadTombstones(tombstones);
+        }
+
+        if (registry.wasRecovered()) {
+            logger.warning("Tool registry was not closed cleanly, its index has been rebuilt");
+        }
+        logger.info("Opened mapped registry with " + registry.size() + " tools and "
+                + tombstones.size() + " tombstones");
+        return registry;
+    }
+
+    /**
+     * One-time migration from the journal store
+     */
+    private void importJournal(JournalToolStore journal, ToolTombstones tombstones, long lifetimeMillis) {
+        ToolRegistry imported = new HeapToolRegistry();
+        journal.load(imported, tombstones, lifetimeMillis);
+
+        for (int slot = 0; slot < imported.size(); slot++) {
+            registry.add(imported.getToolUUID(slot), imported.getToolType(slot),
+                    imported.getCreationTime(slot), imported.getOwnerUUID(slot));
+        }
+        registry.force();
+        writeTombstones(new HashMap<>(tombstones.getEntries()));
+        logger.info("Imported " + imported.size() + " tools from the journal store");
+    }
+
+    // Creates and ownership changes are already written in place by the registry
+
+    @Override
+    public void logCreate(AmethystTool tool) {
+    }
+
+    @Override
+    public void logCreateAll(Collection<AmethystTool> tools) {
+    }
+
+    @Override
+    public void logAssign(AmethystTool tool) {
+    }
+
+    @Override
+    public void logDestroy(UUID toolUUID, ToolType toolType, long creationTime) {
+        long retainUntil = creationTime + lifetimeMillis;
+        writer.execute(() -> appendTombstone(toolUUID, retainUntil));
+        stats.forget(toolUUID);
+    }
+
+    @Override
+    public void loadStats(Map<UUID, long[]> byTool, Map<UUID, long[]> byPlayer) throws IOException {
+        stats.load(byTool, byPlayer);
+    }
+
+    @Override
+    public void addStats(Map<UUID, long[]> toolDeltas, Map<UUID, long[]> playerDeltas) throws IOException {
+        stats.add(toolDeltas, playerDeltas);
+    }
+
+    @Override
+    public CompletableFuture<Void> snapshot(ToolRegistry tools, ToolTombstones tombstones) {
+        Map<UUID, Long> tombstoneCopies = new HashMap<>(tombstones.getEntries());
+        return CompletableFuture.runAsync(() -> {
+            registry.force();
+            writeTombstones(tombstoneCopies);
+        }, writer);
+    }
+
+    @Override
+    public void close(ToolRegistry tools, ToolTombstones tombstones) {
+        if (registry == null) return;
+
+        writer.shutdown();
+        try {
+            writer.awaitTermination(30, TimeUnit.SECONDS);
+            writeTombstones(new HashMap<>(tombstones.getEntries()));
+            registry.close();
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "Error while closing the tool registry", e);
+        }
+    }
+
+    private void loadTombstones(ToolTombstones tombstones) {
+        if (!tombstoneFile.exists()) return;
+
+        // End of the last complete record, records are a fixed 24 bytes after the magic
+        long complete = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(tombstoneFile)))) {
+            if (in.readInt() != TOMBSTONE_MAGIC) {
+                throw new IOException("Unknown tombstone format");
+            }
+            complete = Integer.BYTES;
+            while (true) {
+                long most;
+                try {
+                    most = in.readLong();
+                } catch (EOFException e) {
+                    break;
+                }
+                tombstones.add(new UUID(most, in.readLong()), in.readLong());
+                complete += 3 * Long.BYTES;
+            }
+        } catch (EOFException e) {
+            // A crash mid-append leaves a torn final record, everything before it is still valid.
+            // Cut it off, or the next appended record would be read out of step.
+            logger.warning(tombstoneFile.getName() + " ends with an incomplete record, discarding it");
+            try (RandomAccessFile file = new RandomAccessFile(tombstoneFile, "rw")) {
+                file.setLength(complete);
+            } catch (IOException truncateError) {
+                logger.log(Level.SEVERE, "Could not truncate " + tombstoneFile.getName(), truncateError);
+            }
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Could not read " + tombstoneFile.getName(), e);
+        }
+    }
+
+    private void writeTombstones(Map<UUID, Long> tombstones) {
+        File tempFile = new File(tombstoneFile.getParentFile(), tombstoneFile.getName() + ".tmp");
+
+        try (FileOutputStream fileStream = new FileOutputStream(tempFile);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileStream))) {
+            out.writeInt(TOMBSTONE_MAGIC);
+            for (Map.Entry<UUID, Long> tombstone : tombstones.entrySet()) {
+                out.writeLong(tombstone.getKey().getMostSignificantBits());
+                out.writeLong(tombstone.getKey().getLeastSignificantBits());
+                out.writeLong(tombstone.getValue());
+            }
+            out.flush();
+            fileStream.getFD().sync();
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Could not write " + tombstoneFile.getName(), e);
+            return;
+        }
+
+        try {
+            try {
+                Files.move(tempFile.toPath(), tombstoneFile.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile.toPath(), tombstoneFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Could not replace " + tombstoneFile.getName(), e);
+        }
+    }
+
+    private void appendTombstone(UUID toolUUID, long retainUntil) {
+        boolean header = !tombstoneFile.exists() || tombstoneFile.length() == 0;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tombstoneFile, true)))) {
+            if (header) {
+                out.writeInt(TOMBSTONE_MAGIC);
+            }
+            out.writeLong(toolUUID.getMostSignificantBits());
+            out.writeLong(toolUUID.getLeastSignificantBits());
+            out.writeLong(retainUntil);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Could not append to " + tombstoneFile.getName(), e);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package dev.pallux.amethysttools.storage;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal fixed-size JDBC connection pool. Connections are opened lazily, checked on borrow
+ * and handed back with {@link #release(Connection)}.
+ */
+public class SqlConnectionPool implements AutoCloseable {
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    private static final long BORROW_TIMEOUT_SECONDS = 10L;
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int maxSize;
+    private final BlockingQueue<Connection> idle;
+    private final AtomicInteger opened;
+    private volatile boolean closed;
+
+    public SqlConnectionPool(String url, String username, String password, int maxSize) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.maxSize = Math.max(1, maxSize);
+        this.idle = new ArrayBlockingQueue<>(this.maxSize);
+        this.opened = new AtomicInteger();
+    }
+
+    /**
+     * Borrows a connection, opening a new one while the pool is below its size
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) throw new SQLException("Connection pool is closed");
+
+        Connection connection = idle.poll();
+        while (connection == null) {
+            if (opened.incrementAndGet() <= maxSize) {
+                try {
+                    return open();
+                } catch (SQLException e) {
+                    opened.decrementAndGet();
+                    throw e;
+                }
+            }
+            opened.decrementAndGet();
+
+            try {
+                connection = idle.poll(BORROW_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a connection", e);
+            }
+            if (connection == null) {
+                throw new SQLException("Timed out waiting for a database connection");
+            }
+        }
+
+        if (!connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+            discard(connection);
+            return borrow();
+        }
+        return connection;
+    }
+
+    /**
+     * Returns a connection to the pool. Connections left in a transaction are rolled back.
+     */
+    public void release(Connection connection) {
+        if (connection == null) return;
+
+        try {
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            discard(connection);
+            return;
+        }
+
+        if (closed || !idle.offer(connection)) {
+            discard(connection);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Connection connection;
+        while ((connection = idle.poll()) != null) {
+            discard(connection);
+        }
+    }
+
+    private Connection open() throws SQLException {
+        return username == null || username.isEmpty()
+                ? DriverManager.getConnection(url)
+                : DriverManager.getConnection(url, username, password);
+    }
+
+    private void discard(Connection connection) {
+        opened.decrementAndGet();
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+        }
+    }
+}
@@ -0,0 +1,666 @@
+package dev.pallux.amethysttools.storage;
+
+import dev.pallux.amethysttools.models.AmethystTool;
+import dev.pallux.amethysttools.models.ToolStat;
+import dev.pallux.amethysttools.models.ToolType;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Tool store shared by several servers through a SQL database. Every server keeps the full
+ * registry in a local heap cache, writes its own changes in asynchronous batches, and polls a
+ * change-log table to apply the changes made by the others. Works with MySQL/MariaDB, SQLite and H2.
+ */
+public class SqlToolStore implements ToolStore {
+
+    private static final byte OP_CREATE = 1;
+    private static final byte OP_ASSIGN = 2;
+    private static final byte OP_DESTROY = 3;
+
+    // Whose usage counters a stats row holds
+    private static final int SUBJECT_TOOL = 0;
+    private static final int SUBJECT_PLAYER = 1;
+    private static final int STAT_COUNT = ToolStat.values().length;
+
+    private static final long FLUSH_INTERVAL_MS = 200L;
+    private static final int POLL_LIMIT = 1000;
+    // Change ids are allocated before commit, so a slow transaction can land behind ids already seen.
+    // Re-reading a trailing window catches those; ids already applied in the window are skipped,
+    // since re-applying an old assign would undo a newer one.
+    private static final int POLL_OVERLAP = 200;
+    private static final long CHANGE_RETENTION_MS = TimeUnit.DAYS.toMillis(1);
+    private static final long MISSING_TTL_MS = TimeUnit.MINUTES.toMillis(1);
+    private static final int MISSING_CACHE_SIZE = 4096;
+
+    private static final String UPDATE_OWNER = "UPDATE amethysttools_tools SET owner_most = ?, owner_least = ? "
+            + "WHERE tool_most = ? AND tool_least = ?";
+    private static final String DELETE_TOOL = "DELETE FROM amethysttools_tools WHERE tool_most = ? AND tool_least = ?";
+    private static final String DELETE_TOMBSTONE = "DELETE FROM amethysttools_tombstones WHERE tool_most = ? AND tool_least = ?";
+    private static final String DELETE_TOOL_STATS = "DELETE FROM amethysttools_stats WHERE subject = " + SUBJECT_TOOL
+            + " AND uuid_most = ? AND uuid_least = ?";
+    private static final String INSERT_CHANGE = "INSERT INTO amethysttools_changes "
+            + "(server_id, op, tool_most, tool_least, tool_type, created_at, owner_most, owner_least, changed_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_CHANGE_IDS = "SELECT id FROM amethysttools_changes WHERE id > ?";
+    private static final String SELECT_CHANGES = "SELECT id, server_id, op, tool_most, tool_least, tool_type, "
+            + "created_at, owner_most, owner_least FROM amethysttools_changes WHERE id > ? ORDER BY id LIMIT " + POLL_LIMIT;
+    private static final String SELECT_TOOL = "SELECT tool_type, created_at, owner_most, owner_least "
+            + "FROM amethysttools_tools WHERE tool_most = ? AND tool_least = ?";
+
+    private final Logger logger;
+    private final SqlConnectionPool pool;
+    private final Executor mainThread;
+    private final long pollIntervalMillis;
+    private final boolean sqlite;
+    // Keyed by tool UUID like the change log, and idempotent: a batch retried after a lost commit
+    // acknowledgement, or a tool another server already wrote, must not fail on the primary key
+    private final String insertToolSql;
+    private final String insertTombstoneSql;
+    private final String addStatSql;
+    private final String serverId;
+    private final Queue<Change> pending;
+    private final ScheduledExecutorService worker;
+    // Tools a lookup found missing, with the time of the lookup; only touched by the main thread
+    private final Map<UUID, Long> missing;
+    private final Set<UUID> lookups;
+
+    private RemoteListener listener;
+    private long lifetimeMillis;
+    private long lastChangeId;
+    // Change ids within the overlap window that were already read, only touched by the worker after open
+    private final Set<Long> seenChangeIds;
+
+    /**
+     * @param url The JDBC URL, for example jdbc:mysql://host/db or jdbc:sqlite:path/tools.db
+     * @param mainThread Runs tasks on the server thread
+     */
+    public SqlToolStore(Logger logger, String url, String username, String password, int poolSize,
+                        long pollIntervalMillis, Executor mainThread) {
+        this.logger = logger;
+        this.pool = new SqlConnectionPool(url, username, password, poolSize);
+        this.mainThread = mainThread;
+        this.pollIntervalMillis = Math.max(FLUSH_INTERVAL_MS, pollIntervalMillis);
+        this.sqlite = url.startsWith("jdbc:sqlite:");
+        this.insertToolSql = insertIgnore(url, "amethysttools_tools",
+                "tool_most, tool_least, tool_type, created_at, owner_most, owner_least", 6);
+        this.insertTombstoneSql = insertIgnore(url, "amethysttools_tombstones", "tool_most, tool_least, retain_until", 3);
+        this.addStatSql = addStat(url);
+        this.serverId = UUID.randomUUID().toString();
+        this.pending = new ConcurrentLinkedQueue<>();
+        this.worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "AmethystTools-Storage");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.missing = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Long> eldest) {
+                return size() > MISSING_CACHE_SIZE;
+            }
+        };
+        this.lookups = ConcurrentHashMap.newKeySet();
+        this.seenChangeIds = new HashSet<>();
+    }
+
+    @Override
+    public ToolRegistry open(ToolTombstones tombstones, long lifetimeMillis) throws IOException {
+        this.lifetimeMillis = lifetimeMillis;
+        ToolRegistry registry = new HeapToolRegistry();
+        ToolType[] types = ToolType.values();
+
+        Connection connection = null;
+        try {
+            connection = pool.borrow();
+            createTables(connection);
+
+            // Read the change-log position first so nothing committed during the load is missed
+            try (Statement statement = connection.createStatement();
+                 ResultSet result = statement.executeQuery("SELECT MAX(id) FROM amethysttools_changes")) {
+                lastChangeId = result.next() ? result.getLong(1) : 0L;
+            }
+            // Changes committed so far are part of the load below
+            try (PreparedStatement statement = connection.prepareStatement(SELECT_CHANGE_IDS)) {
+                statement.setLong(1, Math.max(0L, lastChangeId - POLL_OVERLAP));
+                try (ResultSet result = statement.executeQuery()) {
+                    while (result.next()) {
+                        seenChangeIds.add(result.getLong(1));
+                    }
+                }
+            }
+
+            try (Statement statement = connection.createStatement();
+                 ResultSet result = statement.executeQuery("SELECT tool_most, tool_least, tool_type, created_at, "
+                         + "owner_most, owner_least FROM amethysttools_tools")) {
+                while (result.next()) {
+                    int type = result.getInt(3);
+                    if (type < 0 || type >= types.length) continue;
+                    registry.add(new UUID(result.getLong(1), result.getLong(2)), types[type],
+                            result.getLong(4), owner(result.getLong(5), result.getLong(6)));
+                }
+            }
+
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT tool_most, tool_least, retain_until FROM amethysttools_tombstones WHERE retain_until > ?")) {
+                statement.setLong(1, System.currentTimeMillis());
+                try (ResultSet result = statement.executeQuery()) {
+                    while (result.next()) {
+                        tombstones.add(new UUID(result.getLong(1), result.getLong(2)), result.getLong(3));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            worker.shutdown();
+            pool.close();
+            throw new IOException("Could not load tools from the database", e);
+        } finally {
+            pool.release(connection);
+        }
+
+        worker.scheduleWithFixedDelay(this::flushQuietly, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        worker.scheduleWithFixedDelay(this::poll, pollIntervalMillis, pollIntervalMillis, TimeUnit.MILLISECONDS);
+
+        logger.info("Loaded " + registry.size() + " tools and " + tombstones.size() + " tombstones from the database");
+        return registry;
+    }
+
+    /**
+     * Builds an insert that does nothing if a row with the same (tool_most, tool_least) key exists.
+     * H2 has no such clause, its MERGE writes the same values again instead.
+     */
+    private static String insertIgnore(String url, String table, String columns, int count) {
+        String values = " VALUES (" + "?, ".repeat(count - 1) + "?)";
+        if (url.startsWith("jdbc:h2:")) {
+            return "MERGE INTO " + table + " (" + columns + ") KEY (tool_most, tool_least)" + values;
+        }
+        String insert = "INSERT INTO " + table + " (" + columns + ")" + values;
+        return url.startsWith("jdbc:sqlite:")
+                ? insert + " ON CONFLICT (tool_most, tool_least) DO NOTHING"
+                : insert + " ON DUPLICATE KEY UPDATE tool_most = tool_most";
+    }
+
+    /**
+     * Builds an upsert that adds to the amount of an existing stats row
+     */
+    private static String addStat(String url) {
+        if (url.startsWith("jdbc:h2:")) {
+            return "MERGE INTO amethysttools_stats t USING (VALUES (CAST(? AS INT), CAST(? AS BIGINT), CAST(? AS BIGINT), "
+                    + "CAST(? AS INT), CAST(? AS BIGINT))) s (subject, uuid_most, uuid_least, stat, amount) "
+                    + "ON t.subject = s.subject AND t.uuid_most = s.uuid_most AND t.uuid_least = s.uuid_least AND t.stat = s.stat "
+                    + "WHEN MATCHED THEN UPDATE SET t.amount = t.amount + s.amount "
+                    + "WHEN NOT MATCHED THEN INSERT (subject, uuid_most, uuid_least, stat, amount) "
+                    + "VALUES (s.subject, s.uuid_most, s.uuid_least, s.stat, s.amount)";
+        }
+        String insert = "INSERT INTO amethysttools_stats (subject, uuid_most, uuid_least, stat, amount) VALUES (?, ?, ?, ?, ?)";
+        return url.startsWith("jdbc:sqlite:")
+                ? insert + " ON CONFLICT (subject, uuid_most, uuid_least, stat) DO UPDATE SET amount = amount + excluded.amount"
+                : insert + " ON DUPLICATE KEY UPDATE amount = amount + VALUES(amount)";
+    }
+
+    private void createTables(Connection connection) throws SQLException {
+        String autoIncrement = sqlite ? "INTEGER PRIMARY KEY AUTOINCREMENT" : "BIGINT AUTO_INCREMENT PRIMARY KEY";
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS amethysttools_tools ("
+                    + "tool_most BIGINT NOT NULL, tool_least BIGINT NOT NULL, tool_type INT NOT NULL, "
+                    + "created_at BIGINT NOT NULL, owner_most BIGINT NOT NULL, owner_least BIGINT NOT NULL, "
+                    + "PRIMARY KEY (tool_most, tool_least))");
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS amethysttools_tombstones ("
+                    + "tool_most BIGINT NOT NULL, tool_least BIGINT NOT NULL, retain_until BIGINT NOT NULL, "
+                    + "PRIMARY KEY (tool_most, tool_least))");
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS amethysttools_changes ("
+                    + "id " + autoIncrement + ", server_id VARCHAR(36) NOT NULL, op INT NOT NULL, "
+                    + "tool_most BIGINT NOT NULL, tool_least BIGINT NOT NULL, tool_type INT NOT NULL, "
+                    + "created_at BIGINT NOT NULL, owner_most BIGINT NOT NULL, owner_least BIGINT NOT NULL, "
+                    + "changed_at BIGINT NOT NULL)");
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS amethysttools_stats ("
+                    + "subject INT NOT NULL, uuid_most BIGINT NOT NULL, uuid_least BIGINT NOT NULL, stat INT NOT NULL, "
+                    + "amount BIGINT NOT NULL, PRIMARY KEY (subject, uuid_most, uuid_least, stat))");
+        }
+    }
+
+    @Override
+    public void setRemoteListener(RemoteListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void logCreate(AmethystTool tool) {
+        pending.add(Change.of(OP_CREATE, tool.getToolUUID(), tool.getToolType(), tool.getCreationTime(), tool.getOwnerUUID()));
+    }
+
+    @Override
+    public void logCreateAll(Collection<AmethystTool> tools) {
+        for (AmethystTool tool : tools) {
+            logCreate(tool);
+        }
+    }
+
+    @Override
+    public void logAssign(AmethystTool tool) {
+        pending.add(Change.of(OP_ASSIGN, tool.getToolUUID(), tool.getToolType(), tool.getCreationTime(), tool.getOwnerUUID()));
+    }
+
+    @Override
+    public void logDestroy(UUID toolUUID, ToolType toolType, long creationTime) {
+        pending.add(Change.of(OP_DESTROY, toolUUID, toolType, creationTime, null));
+    }
+
+    @Override
+    public void loadStats(Map<UUID, long[]> byTool, Map<UUID, long[]> byPlayer) throws IOException {
+        Connection connection = null;
+        try {
+            connection = pool.borrow();
+            try (Statement statement = connection.createStatement();
+                 ResultSet result = statement.executeQuery("SELECT subject, uuid_most, uuid_least, stat, amount "
+                         + "FROM amethysttools_stats")) {
+                while (result.next()) {
+                    int stat = result.getInt(4);
+                    // Stats from a newer version are skipped
+                    if (stat < 0 || stat >= STAT_COUNT) continue;
+                    Map<UUID, long[]> target = result.getInt(1) == SUBJECT_TOOL ? byTool : byPlayer;
+                    target.computeIfAbsent(new UUID(result.getLong(2), result.getLong(3)), key -> new long[STAT_COUNT])[stat]
+                            = result.getLong(5);
+                }
+            }
+        } catch (SQLException e) {
+            throw new IOException("Could not load tool stats from the database", e);
+        } finally {
+            pool.release(connection);
+        }
+    }
+
+    /**
+     * Adds the increments in one transaction, on the calling thread
+     */
+    @Override
+    public void addStats(Map<UUID, long[]> toolDeltas, Map<UUID, long[]> playerDeltas) throws IOException {
+        if (toolDeltas.isEmpty() && playerDeltas.isEmpty()) return;
+
+        Connection connection = null;
+        try {
+            connection = pool.borrow();
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(addStatSql)) {
+                addStats(statement, SUBJECT_TOOL, toolDeltas);
+                addStats(statement, SUBJECT_PLAYER, playerDeltas);
+                statement.executeBatch();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            throw new IOException("Could not write tool stats to the database", e);
+        } finally {
+            pool.release(connection);
+        }
+    }
+
+    private static void addStats(PreparedStatement statement, int subject, Map<UUID, long[]> deltas) throws SQLException {
+        for (Map.Entry<UUID, long[]> delta : deltas.entrySet()) {
+            for (int stat = 0; stat < STAT_COUNT; stat++) {
+                long amount = delta.getValue()[stat];
+                if (amount == 0) continue;
+
+                statement.setInt(1, subject);
+                statement.setLong(2, delta.getKey().getMostSignificantBits());
+                statement.setLong(3, delta.getKey().getLeastSignificantBits());
+                statement.setInt(4, stat);
+                statement.setLong(5, amount);
+                statement.addBatch();
+            }
+        }
+    }
+
+    @Override
+    public boolean isShared() {
+        return true;
+    }
+
+    @Override
+    public boolean mayExist(UUID toolUUID) {
+        Long checkedAt = missing.get(toolUUID);
+        long now = System.currentTimeMillis();
+        if (checkedAt != null && now - checkedAt < MISSING_TTL_MS) return false;
+
+        if (lookups.add(toolUUID)) {
+            worker.execute(() -> lookup(toolUUID));
+        }
+        return true;
+    }
+
+    /**
+     * Flushes pending writes and prunes old tombstones and change-log rows
+     */
+    @Override
+    public CompletableFuture<Void> snapshot(ToolRegistry tools, ToolTombstones tombstones) {
+        return CompletableFuture.runAsync(() -> {
+            flushQuietly();
+            prune();
+        }, worker);
+    }
+
+    @Override
+    public void close(ToolRegistry tools, ToolTombstones tombstones) {
+        worker.shutdown();
+        try {
+            worker.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // The worker is gone, so the final flush runs here
+        flushQuietly();
+        pool.close();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "Could not write tool changes to the database, will retry", e);
+        }
+    }
+
+    /**
+     * Writes every queued change in one transaction. A change the database rejects on its own
+     * is logged and dropped, anything else (a lost connection) puts the changes back for the next flush.
+     */
+    void flush() throws SQLException {
+        if (pending.isEmpty()) return;
+
+        List<Change> changes = new ArrayList<>();
+        Change change;
+        while ((change = pending.poll()) != null) {
+            changes.add(change);
+        }
+
+        try {
+            write(changes);
+        } catch (SQLException e) {
+            if (!isRejected(e)) {
+                requeue(changes);
+                throw e;
+            }
+
+            // One bad row fails the whole batch, so find it by writing the changes one at a time
+            for (int i = 0; i < changes.size(); i++) {
+                try {
+                    write(List.of(changes.get(i)));
+                } catch (SQLException rowError) {
+                    if (!isRejected(rowError)) {
+                        requeue(changes.subList(i, changes.size()));
+                        throw rowError;
+                    }
+                    logger.log(Level.SEVERE, "Dropped a tool change the database rejected: " + changes.get(i), rowError);
+                }
+            }
+        }
+    }
+
+    /**
+     * Puts changes back in front of anything queued meanwhile
+     */
+    private void requeue(List<Change> changes) {
+        List<Change> retry = new ArrayList<>(changes);
+        Change change;
+        while ((change = pending.poll()) != null) {
+            retry.add(change);
+        }
+        pending.addAll(retry);
+    }
+
+    /**
+     * @return Whether the database refused the data itself, so writing it again can never succeed
+     */
+    private static boolean isRejected(SQLException e) {
+        for (SQLException cause = e; cause != null; cause = cause.getNextException()) {
+            if (cause instanceof SQLIntegrityConstraintViolationException || cause instanceof SQLDataException) {
+                return true;
+            }
+            String state = cause.getSQLState();
+            // Class 22 is a data exception, class 23 an integrity constraint violation
+            if (state != null && (state.startsWith("22") || state.startsWith("23"))) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Writes changes in one transaction, one JDBC batch per statement
+     */
+    private void write(List<Change> changes) throws SQLException {
+        Connection connection = null;
+        try {
+            connection = pool.borrow();
+            connection.setAutoCommit(false);
+            try (PreparedStatement insertTool = connection.prepareStatement(insertToolSql);
+                 PreparedStatement updateOwner = connection.prepareStatement(UPDATE_OWNER);
+                 PreparedStatement deleteTool = connection.prepareStatement(DELETE_TOOL);
+                 PreparedStatement deleteTombstone = connection.prepareStatement(DELETE_TOMBSTONE);
+                 PreparedStatement insertTombstone = connection.prepareStatement(insertTombstoneSql);
+                 PreparedStatement deleteStats = connection.prepareStatement(DELETE_TOOL_STATS);
+                 PreparedStatement insertChange = connection.prepareStatement(INSERT_CHANGE)) {
+                long now = System.currentTimeMillis();
+
+                for (Change c : changes) {
+                    switch (c.op()) {
+                        case OP_CREATE -> {
+                            insertTool.setLong(1, c.toolMost());
+                            insertTool.setLong(2, c.toolLeast());
+                            insertTool.setInt(3, c.type());
+                            insertTool.setLong(4, c.creationTime());
+                            insertTool.setLong(5, c.ownerMost());
+                            insertTool.setLong(6, c.ownerLeast());
+                            insertTool.addBatch();
+                        }
+                        case OP_ASSIGN -> {
+                            updateOwner.setLong(1, c.ownerMost());
+                            updateOwner.setLong(2, c.ownerLeast());
+                            updateOwner.setLong(3, c.toolMost());
+                            updateOwner.setLong(4, c.toolLeast());
+                            updateOwner.addBatch();
+                        }
+                        case OP_DESTROY -> {
+                            deleteTool.setLong(1, c.toolMost());
+                            deleteTool.setLong(2, c.toolLeast());
+                            deleteTool.addBatch();
+                            deleteTombstone.setLong(1, c.toolMost());
+                            deleteTombstone.setLong(2, c.toolLeast());
+                            deleteTombstone.addBatch();
+                            insertTombstone.setLong(1, c.toolMost());
+                            insertTombstone.setLong(2, c.toolLeast());
+                            insertTombstone.setLong(3, c.creationTime() + lifetimeMillis);
+                            insertTombstone.addBatch();
+                            deleteStats.setLong(1, c.toolMost());
+                            deleteStats.setLong(2, c.toolLeast());
+                            deleteStats.addBatch();
+                        }
+                        default -> {
+                            continue;
+                        }
+                    }
+
+                    insertChange.setString(1, serverId);
+                    insertChange.setInt(2, c.op());
+                    insertChange.setLong(3, c.toolMost());
+                    insertChange.setLong(4, c.toolLeast());
+                    insertChange.setInt(5, c.type());
+                    insertChange.setLong(6, c.creationTime());
+                    insertChange.setLong(7, c.ownerMost());
+                    insertChange.setLong(8, c.ownerLeast());
+                    insertChange.setLong(9, now);
+                    insertChange.addBatch();
+                }
+
+                // Statement order matters: a tool created and destroyed in the same batch must end up deleted
+                insertTool.executeBatch();
+                updateOwner.executeBatch();
+                deleteTool.executeBatch();
+                deleteTombstone.executeBatch();
+                insertTombstone.executeBatch();
+                deleteStats.executeBatch();
+                insertChange.executeBatch();
+            }
+            connection.commit();
+        } finally {
+            pool.release(connection);
+        }
+    }
+
+    /**
+     * Reads changes made by other servers and applies them on the main thread
+     */
+    void poll() {
+        if (listener == null) return;
+
+        List<Change> remote = new ArrayList<>();
+        List<Long> read = new ArrayList<>();
+        long newestId = lastChangeId;
+        Connection connection = null;
+        try {
+            connection = pool.borrow();
+            try (PreparedStatement statement = connection.prepareStatement(SELECT_CHANGES)) {
+                statement.setLong(1, Math.max(0L, lastChangeId - POLL_OVERLAP));
+                try (ResultSet result = statement.executeQuery()) {
+                    while (result.next()) {
+                        long id = result.getLong(1);
+                        newestId = Math.max(newestId, id);
+                        if (seenChangeIds.contains(id)) continue;
+                        read.add(id);
+                        if (serverId.equals(result.getString(2))) continue;
+
+                        remote.add(new Change((byte) result.getInt(3), result.getLong(4), result.getLong(5),
+                                result.getInt(6), result.getLong(7), result.getLong(8), result.getLong(9)));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Could not poll tool changes from the database", e);
+            return;
+        } finally {
+            pool.release(connection);
+        }
+
+        lastChangeId = newestId;
+        seenChangeIds.addAll(read);
+        long windowStart = newestId - POLL_OVERLAP;
+        seenChangeIds.removeIf(id -> id <= windowStart);
+        if (remote.isEmpty()) return;
+
+        ToolType[] types = ToolType.values();
+        mainThread.execute(() -> {
+            for (Change c : remote) {
+                UUID toolUUID = new UUID(c.toolMost(), c.toolLeast());
+                switch (c.op()) {
+                    case OP_CREATE -> {
+                        if (c.type() >= 0 && c.type() < types.length) {
+                            missing.remove(toolUUID);
+                            listener.onRemoteCreate(toolUUID, types[c.type()], c.creationTime(), owner(c.ownerMost(), c.ownerLeast()));
+                        }
+                    }
+                    case OP_ASSIGN -> listener.onRemoteAssign(toolUUID, owner(c.ownerMost(), c.ownerLeast()));
+                    case OP_DESTROY -> listener.onRemoteDestroy(toolUUID, c.creationTime());
+                    default -> {
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Read-through for a tool this server has not heard of yet
+     */
+    private void lookup(UUID toolUUID) {
+        Change found = null;
+        boolean failed = false;
+        Connection connection = null;
+        try {
+            connection = pool.borrow();
+            try (PreparedStatement statement = connection.prepareStatement(SELECT_TOOL)) {
+                statement.setLong(1, toolUUID.getMostSignificantBits());
+                statement.setLong(2, toolUUID.getLeastSignificantBits());
+                try (ResultSet result = statement.executeQuery()) {
+                    if (result.next()) {
+                        found = new Change(OP_CREATE, toolUUID.getMostSignificantBits(), toolUUID.getLeastSignificantBits(),
+                                result.getInt(1), result.getLong(2), result.getLong(3), result.getLong(4));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Could not look up tool " + toolUUID, e);
+            failed = true;
+        } finally {
+            pool.release(connection);
+        }
+
+        Change result = found;
+        boolean lookupFailed = failed;
+        ToolType[] types = ToolType.values();
+        mainThread.execute(() -> {
+            lookups.remove(toolUUID);
+            if (result != null && result.type() >= 0 && result.type() < types.length && listener != null) {
+                listener.onRemoteCreate(toolUUID, types[result.type()], result.creationTime(),
+                        owner(result.ownerMost(), result.ownerLeast()));
+            } else if (result == null && !lookupFailed) {
+                missing.put(toolUUID, System.currentTimeMillis());
+            }
+        });
+    }
+
+    private void prune() {
+        long now = System.currentTimeMillis();
+        Connection connection = null;
+        try {
+            connection = pool.borrow();
+            try (PreparedStatement tombstones = connection.prepareStatement(
+                    "DELETE FROM amethysttools_tombstones WHERE retain_until <= ?");
+                 PreparedStatement changes = connection.prepareStatement(
+                         "DELETE FROM amethysttools_changes WHERE changed_at < ?")) {
+                tombstones.setLong(1, now);
+                tombstones.executeUpdate();
+                changes.setLong(1, now - CHANGE_RETENTION_MS);
+                changes.executeUpdate();
+            }
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Could not prune old tool data from the database", e);
+        } finally {
+            pool.release(connection);
+        }
+    }
+
+    private static UUID owner(long most, long least) {
+        return (most | least) != 0L ? new UUID(most, least) : null;
+    }
+
+    private record Change(byte op, long toolMost, long toolLeast, int type, long creationTime,
+                          long ownerMost, long ownerLeast) {
+
+        static Change of(byte op, UUID toolUUID, ToolType toolType, long creationTime, UUID ownerUUID) {
+            return new Change(op, toolUUID.getMostSignificantBits(), toolUUID.getLeastSignificantBits(),
+                    toolType != null ? toolType.ordinal() : 0, creationTime,
+                    ownerUUID != null ? ownerUUID.getMostSignificantBits() : 0L,
+                    ownerUUID != null ? ownerUUID.getLeastSignificantBits() : 0L);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package dev.pallux.amethysttools.storage;
+
+import dev.pallux.amethysttools.models.ToolStat;
+
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Usage counter totals of the local stores, kept in memory and rewritten whole to
+ * data/tool-stats.dat whenever increments are added.
+ */
+final class StatsFile {
+
+    private static final int FILE_VERSION = 1;
+    private static final int STAT_COUNT = ToolStat.values().length;
+
+    private final File file;
+    private final Map<UUID, long[]> byTool;
+    private final Map<UUID, long[]> byPlayer;
+    // Destroyed tools, queued so the main thread never waits for a write in progress
+    private final Queue<UUID> forgotten;
+
+    StatsFile(File storageFolder) {
+        this.file = new File(storageFolder, "tool-stats.dat");
+        this.byTool = new HashMap<>();
+        this.byPlayer = new HashMap<>();
+        this.forgotten = new ConcurrentLinkedQueue<>();
+    }
+
+    synchronized void load(Map<UUID, long[]> tools, Map<UUID, long[]> players) throws IOException {
+        if (file.exists()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                int version = in.readInt();
+                if (version != FILE_VERSION) {
+                    throw new IOException("Unknown tool stats format " + version);
+                }
+
+                int statCount = in.readInt();
+                read(in, statCount, byTool);
+                read(in, statCount, byPlayer);
+            }
+        }
+
+        byTool.forEach((uuid, values) -> tools.put(uuid, values.clone()));
+        byPlayer.forEach((uuid, values) -> players.put(uuid, values.clone()));
+    }
+
+    void forget(UUID toolUUID) {
+        forgotten.add(toolUUID);
+    }
+
+    synchronized void add(Map<UUID, long[]> toolDeltas, Map<UUID, long[]> playerDeltas) throws IOException {
+        boolean changed = merge(byTool, toolDeltas) | merge(byPlayer, playerDeltas);
+        // After the merge, so increments counted just before a destroy do not bring the tool back
+        UUID toolUUID;
+        while ((toolUUID = forgotten.poll()) != null) {
+            changed |= byTool.remove(toolUUID) != null;
+        }
+        if (changed) {
+            write();
+        }
+    }
+
+    private static boolean merge(Map<UUID, long[]> totals, Map<UUID, long[]> deltas) {
+        for (Map.Entry<UUID, long[]> delta : deltas.entrySet()) {
+            long[] values = totals.computeIfAbsent(delta.getKey(), key -> new long[STAT_COUNT]);
+            for (int stat = 0; stat < STAT_COUNT; stat++) {
+                values[stat] += delta.getValue()[stat];
+            }
+        }
+        return !deltas.isEmpty();
+    }
+
+    private void write() throws IOException {
+        File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeInt(FILE_VERSION);
+            out.writeInt(STAT_COUNT);
+            write(out, byTool);
+            write(out, byPlayer);
+        }
+
+        try {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void write(DataOutputStream out, Map<UUID, long[]> totals) throws IOException {
+        out.writeInt(totals.size());
+        for (Map.Entry<UUID, long[]> entry : totals.entrySet()) {
+            out.writeLong(entry.getKey().getMostSignificantBits());
+            out.writeLong(entry.getKey().getLeastSignificantBits());
+            for (long value : entry.getValue()) {
+                out.writeLong(value);
+            }
+        }
+    }
+
+    private static void read(DataInputStream in, int statCount, Map<UUID, long[]> totals) throws IOException {
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            UUID uuid = new UUID(in.readLong(), in.readLong());
+            long[] values = new long[STAT_COUNT];
+            for (int stat = 0; stat < statCount; stat++) {
+                long value = in.readLong();
+                // Stats from a newer version are skipped
+                if (stat < STAT_COUNT) {
+                    values[stat] = value;
+                }
+            }
+            totals.put(uuid, values);
+        }
+    }
+}
@@ -0,0 +1,551 @@
+package dev.pallux.amethysttools.storage;
+
+import dev.pallux.amethysttools.models.AmethystTool;
+import dev.pallux.amethysttools.models.ToolType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Registry of live tools laid out as columns (one slot per tool) with an open-addressing
+ * index from tool UUID to slot. Removal swaps the last slot into the hole, so slots are dense
+ * and iteration is a plain loop. Tools owned by the same player are chained through the slots,
+ * and all tools are chained from oldest to newest creation time, which with a global lifetime
+ * is also their expiry order.
+ * Subclasses decide where the columns live ({@link HeapToolRegistry}, {@link MappedToolRegistry}).
+ * Not thread-safe: the registry belongs to the main thread.
+ */
+public abstract class ToolRegistry {
+
+    public static final int NONE = -1;
+    private static final ToolType[] TYPES = ToolType.values();
+
+    // Owner -> first slot of its chain, built on first use since it is not persisted
+    private Map<UUID, OwnerChain> ownerHeads;
+    private long modCount;
+    // The creation chain is not linked while invalid, and rebuilt by a sort on first use
+    private boolean creationOrderValid;
+
+    /**
+     * @return A counter bumped by every change, copies made at the same count are still current
+     */
+    public long getModCount() {
+        return modCount;
+    }
+
+    // Column storage
+
+    public abstract int size();
+
+    public abstract long getToolMost(int slot);
+
+    public abstract long getToolLeast(int slot);
+
+    public abstract long getOwnerMost(int slot);
+
+    public abstract long getOwnerLeast(int slot);
+
+    public abstract long getCreationTime(int slot);
+
+    public abstract int getTypeOrdinal(int slot);
+
+    protected abstract void setSize(int size);
+
+    protected abstract void setTool(int slot, long most, long least);
+
+    protected abstract void setOwner(int slot, long most, long least);
+
+    protected abstract void setCreationTime(int slot, long creationTime);
+
+    protected abstract void setTypeOrdinal(int slot, int ordinal);
+
+    protected abstract int getOwnerNext(int slot);
+
+    protected abstract int getOwnerPrev(int slot);
+
+    protected abstract void setOwnerNext(int slot, int next);
+
+    protected abstract void setOwnerPrev(int slot, int prev);
+
+    protected abstract int getCreatedNext(int slot);
+
+    protected abstract int getCreatedPrev(int slot);
+
+    protected abstract void setCreatedNext(int slot, int next);
+
+    protected abstract void setCreatedPrev(int slot, int prev);
+
+    protected abstract int getOldest();
+
+    protected abstract int getNewest();
+
+    protected abstract void setOldest(int slot);
+
+    protected abstract void setNewest(int slot);
+
+    /**
+     * Makes room for at least the given number of slots. Implementations that resize the
+     * index must call {@link #rebuildIndex()} afterwards.
+     */
+    protected abstract void ensureCapacity(int needed);
+
+    // Index storage: slot + 1 per bucket, 0 marks an empty bucket
+
+    protected abstract int indexMask();
+
+    protected abstract int getIndex(int bucket);
+
+    protected abstract void setIndex(int bucket, int entry);
+
+    /**
+     * Adds a tool, or replaces the stored values if the tool is already registered
+     * @param ownerUUID The owner, or null for an unowned tool
+     * @return The tool's slot
+     */
+    public int add(UUID toolUUID, ToolType toolType, long creationTime, UUID ownerUUID) {
+        long most = toolUUID.getMostSignificantBits();
+        long least = toolUUID.getLeastSignificantBits();
+        ownerHeads();
+
+        int slot = slotOf(most, least);
+        if (slot == NONE) {
+            ensureCapacity(size() + 1);
+            slot = size();
+            setSize(slot + 1);
+            setTool(slot, most, least);
+            setOwner(slot, 0L, 0L);
+            insertIndex(most, least, slot);
+        } else {
+            unlinkOwner(slot);
+            unlinkCreated(slot);
+        }
+
+        setCreationTime(slot, creationTime);
+        setTypeOrdinal(slot, toolType.ordinal());
+        setOwnerBits(slot, ownerUUID);
+        linkOwner(slot);
+        linkCreated(slot);
+        modCount++;
+        return slot;
+    }
+
+    /**
+     * Removes a tool
+     * @return false if the tool was not registered
+     */
+    public boolean remove(UUID toolUUID) {
+        int slot = slotOf(toolUUID);
+        if (slot == NONE) return false;
+
+        // Owner heads are found by scanning, so make sure that happens before slots start moving
+        ownerHeads();
+        unlinkOwner(slot);
+        unlinkCreated(slot);
+        removeIndex(getToolMost(slot), getToolLeast(slot));
+
+        int last = size() - 1;
+        if (slot != last) {
+            moveSlot(last, slot);
+        }
+        setSize(last);
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Changes a tool's owner
+     * @param ownerUUID The new owner, or null to clear it
+     * @return false if the tool was not registered
+     */
+    public boolean setOwner(UUID toolUUID, UUID ownerUUID) {
+        int slot = slotOf(toolUUID);
+        if (slot == NONE) return false;
+
+        setOwner(slot, ownerUUID);
+        return true;
+    }
+
+    public void setOwner(int slot, UUID ownerUUID) {
+        unlinkOwner(slot);
+        setOwnerBits(slot, ownerUUID);
+        linkOwner(slot);
+        modCount++;
+    }
+
+    public boolean contains(UUID toolUUID) {
+        return slotOf(toolUUID) != NONE;
+    }
+
+    /**
+     * @return A view of the tool, or null if it is not registered
+     */
+    public AmethystTool get(UUID toolUUID) {
+        int slot = slotOf(toolUUID);
+        return slot != NONE ? view(slot) : null;
+    }
+
+    /**
+     * @return A view of the tool in the given slot
+     */
+    public AmethystTool view(int slot) {
+        return new AmethystTool(this, slot, getToolMost(slot), getToolLeast(slot));
+    }
+
+    public int slotOf(UUID toolUUID) {
+        if (toolUUID == null) return NONE;
+        return slotOf(toolUUID.getMostSignificantBits(), toolUUID.getLeastSignificantBits());
+    }
+
+    public int slotOf(long most, long least) {
+        int mask = indexMask();
+        int bucket = hash(most, least) & mask;
+        while (true) {
+            int entry = getIndex(bucket);
+            if (entry == 0) return NONE;
+
+            int slot = entry - 1;
+            if (getToolMost(slot) == most && getToolLeast(slot) == least) return slot;
+            bucket = (bucket + 1) & mask;
+        }
+    }
+
+    /**
+     * Re-resolves a slot that may have moved since it was looked up
+     * @return The current slot of the tool, or -1 if it was removed
+     */
+    public int resolve(int slot, long most, long least) {
+        if (slot >= 0 && slot < size() && getToolMost(slot) == most && getToolLeast(slot) == least) return slot;
+        return slotOf(most, least);
+    }
+
+    /**
+     * @return The slot of the tool created first, which expires first, or {@link #NONE} if empty
+     */
+    public int getOldestSlot() {
+        ensureCreationOrder();
+        return getOldest();
+    }
+
+    /**
+     * @return The slot of the next tool in creation order, or {@link #NONE} after the newest
+     */
+    public int getNewerSlot(int slot) {
+        ensureCreationOrder();
+        return getCreatedNext(slot);
+    }
+
+    /**
+     * @return The slot of the previous tool in creation order, or {@link #NONE} before the oldest
+     */
+    public int getOlderSlot(int slot) {
+        ensureCreationOrder();
+        return getCreatedPrev(slot);
+    }
+
+    // Column accessors, valid for 0 <= slot < size()
+
+    public UUID getToolUUID(int slot) {
+        return new UUID(getToolMost(slot), getToolLeast(slot));
+    }
+
+    public ToolType getToolType(int slot) {
+        return TYPES[getTypeOrdinal(slot)];
+    }
+
+    public boolean hasOwner(int slot) {
+        return (getOwnerMost(slot) | getOwnerLeast(slot)) != 0L;
+    }
+
+    public UUID getOwnerUUID(int slot) {
+        return hasOwner(slot) ? new UUID(getOwnerMost(slot), getOwnerLeast(slot)) : null;
+    }
+
+    /**
+     * @return The number of tools owned by a player
+     */
+    public int countOwnedBy(UUID ownerUUID) {
+        OwnerChain chain = ownerHeads().get(ownerUUID);
+        return chain != null ? chain.count : 0;
+    }
+
+    /**
+     * @return The UUIDs of every tool owned by a player
+     */
+    public List<UUID> getOwnedBy(UUID ownerUUID) {
+        OwnerChain chain = ownerHeads().get(ownerUUID);
+        if (chain == null) return new ArrayList<>(0);
+
+        List<UUID> owned = new ArrayList<>(chain.count);
+        for (int slot = chain.head; slot != NONE; slot = getOwnerNext(slot)) {
+            owned.add(getToolUUID(slot));
+        }
+        return owned;
+    }
+
+    /**
+     * Clears the index and owner chains and rebuilds them from the tool columns
+     */
+    protected void rebuildIndex() {
+        int mask = indexMask();
+        for (int bucket = 0; bucket <= mask; bucket++) {
+            setIndex(bucket, 0);
+        }
+
+        ownerHeads = new HashMap<>();
+        for (int slot = 0; slot < size(); slot++) {
+            insertIndex(getToolMost(slot), getToolLeast(slot), slot);
+            linkOwner(slot);
+        }
+    }
+
+    /**
+     * Drops the creation chain, it is rebuilt the next time it is needed. Bulk loads in no
+     * particular order are cheaper this way than linking every tool into place.
+     */
+    protected void invalidateCreationOrder() {
+        creationOrderValid = false;
+    }
+
+    /**
+     * Marks a creation chain restored from storage as usable
+     */
+    protected void creationOrderRestored() {
+        creationOrderValid = true;
+    }
+
+    private void ensureCreationOrder() {
+        if (creationOrderValid) return;
+
+        Integer[] slots = new Integer[size()];
+        for (int slot = 0; slot < slots.length; slot++) {
+            slots[slot] = slot;
+        }
+        Arrays.sort(slots, Comparator.comparingLong(this::getCreationTime));
+
+        int prev = NONE;
+        for (int slot : slots) {
+            setCreatedPrev(slot, prev);
+            setCreatedNext(slot, NONE);
+            if (prev != NONE) {
+                setCreatedNext(prev, slot);
+            }
+            prev = slot;
+        }
+        setOldest(slots.length > 0 ? slots[0] : NONE);
+        setNewest(prev);
+        creationOrderValid = true;
+    }
+
+    private void linkCreated(int slot) {
+        if (!creationOrderValid) return;
+
+        // New tools are the newest almost always, so search from that end
+        long creationTime = getCreationTime(slot);
+        int prev = getNewest();
+        while (prev != NONE && getCreationTime(prev) > creationTime) {
+            prev = getCreatedPrev(prev);
+        }
+        int next = prev != NONE ? getCreatedNext(prev) : getOldest();
+
+        setCreatedPrev(slot, prev);
+        setCreatedNext(slot, next);
+        if (prev != NONE) {
+            setCreatedNext(prev, slot);
+        } else {
+            setOldest(slot);
+        }
+        if (next != NONE) {
+            setCreatedPrev(next, slot);
+        } else {
+            setNewest(slot);
+        }
+    }
+
+    private void unlinkCreated(int slot) {
+        if (!creationOrderValid) return;
+
+        int prev = getCreatedPrev(slot);
+        int next = getCreatedNext(slot);
+        if (prev != NONE) {
+            setCreatedNext(prev, next);
+        } else {
+            setOldest(next);
+        }
+        if (next != NONE) {
+            setCreatedPrev(next, prev);
+        } else {
+            setNewest(prev);
+        }
+    }
+
+    private Map<UUID, OwnerChain> ownerHeads() {
+        if (ownerHeads != null) return ownerHeads;
+
+        // Chain links are stored with the columns, only the heads need finding
+        Map<UUID, OwnerChain> heads = new HashMap<>();
+        for (int slot = 0; slot < size(); slot++) {
+            if (!hasOwner(slot)) continue;
+
+            OwnerChain chain = heads.computeIfAbsent(getOwnerUUID(slot), k -> new OwnerChain());
+            chain.count++;
+            if (getOwnerPrev(slot) == NONE) {
+                chain.head = slot;
+            }
+        }
+        ownerHeads = heads;
+        return heads;
+    }
+
+    private void setOwnerBits(int slot, UUID ownerUUID) {
+        if (ownerUUID != null) {
+            setOwner(slot, ownerUUID.getMostSignificantBits(), ownerUUID.getLeastSignificantBits());
+        } else {
+            setOwner(slot, 0L, 0L);
+        }
+    }
+
+    private void linkOwner(int slot) {
+        setOwnerPrev(slot, NONE);
+        setOwnerNext(slot, NONE);
+        if (!hasOwner(slot)) return;
+
+        OwnerChain chain = ownerHeads().computeIfAbsent(getOwnerUUID(slot), k -> new OwnerChain());
+        if (chain.head != NONE) {
+            setOwnerPrev(chain.head, slot);
+            setOwnerNext(slot, chain.head);
+        }
+        chain.head = slot;
+        chain.count++;
+    }
+
+    private void unlinkOwner(int slot) {
+        if (!hasOwner(slot)) return;
+
+        UUID ownerUUID = getOwnerUUID(slot);
+        OwnerChain chain = ownerHeads().get(ownerUUID);
+        if (chain == null) return;
+
+        int prev = getOwnerPrev(slot);
+        int next = getOwnerNext(slot);
+        if (prev != NONE) {
+            setOwnerNext(prev, next);
+        } else {
+            chain.head = next;
+        }
+        if (next != NONE) {
+            setOwnerPrev(next, prev);
+        }
+
+        if (--chain.count == 0) {
+            ownerHeads.remove(ownerUUID);
+        }
+    }
+
+    /**
+     * Moves the tool in slot from into the (already unlinked) slot to, fixing index, owner and creation links
+     */
+    private void moveSlot(int from, int to) {
+        long most = getToolMost(from);
+        long least = getToolLeast(from);
+        setTool(to, most, least);
+        setOwner(to, getOwnerMost(from), getOwnerLeast(from));
+        setCreationTime(to, getCreationTime(from));
+        setTypeOrdinal(to, getTypeOrdinal(from));
+
+        int prev = getOwnerPrev(from);
+        int next = getOwnerNext(from);
+        setOwnerPrev(to, prev);
+        setOwnerNext(to, next);
+        if (prev != NONE) {
+            setOwnerNext(prev, to);
+        } else if (hasOwner(to)) {
+            ownerHeads().get(getOwnerUUID(to)).head = to;
+        }
+        if (next != NONE) {
+            setOwnerPrev(next, to);
+        }
+
+        if (creationOrderValid) {
+            int older = getCreatedPrev(from);
+            int newer = getCreatedNext(from);
+            setCreatedPrev(to, older);
+            setCreatedNext(to, newer);
+            if (older != NONE) {
+                setCreatedNext(older, to);
+            } else {
+                setOldest(to);
+            }
+            if (newer != NONE) {
+                setCreatedPrev(newer, to);
+            } else {
+                setNewest(to);
+            }
+        }
+
+        int mask = indexMask();
+        int bucket = hash(most, least) & mask;
+        while (getIndex(bucket) != from + 1) {
+            bucket = (bucket + 1) & mask;
+        }
+        setIndex(bucket, to + 1);
+    }
+
+    private void insertIndex(long most, long least, int slot) {
+        int mask = indexMask();
+        int bucket = hash(most, least) & mask;
+        while (getIndex(bucket) != 0) {
+            bucket = (bucket + 1) & mask;
+        }
+        setIndex(bucket, slot + 1);
+    }
+
+    /**
+     * Removes a key with backward-shift deletion, so lookups never need tombstones
+     */
+    private void removeIndex(long most, long least) {
+        int mask = indexMask();
+        int bucket = hash(most, least) & mask;
+        while (true) {
+            int slot = getIndex(bucket) - 1;
+            if (getToolMost(slot) == most && getToolLeast(slot) == least) break;
+            bucket = (bucket + 1) & mask;
+        }
+
+        int hole = bucket;
+        int next = (hole + 1) & mask;
+        while (getIndex(next) != 0) {
+            int slot = getIndex(next) - 1;
+            int home = hash(getToolMost(slot), getToolLeast(slot)) & mask;
+            // Shift the entry back if its home bucket is not between the hole and its position
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                setIndex(hole, getIndex(next));
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        setIndex(hole, 0);
+    }
+
+    /**
+     * @return The index size for a capacity, keeping the index at most half full
+     */
+    protected static int indexSizeFor(int capacity) {
+        return Integer.highestOneBit(Math.max(1, capacity) * 2 - 1) << 1;
+    }
+
+    // Random UUIDs are already well mixed, folding the halves is enough
+    private static int hash(long most, long least) {
+        long h = most ^ least;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static final class OwnerChain {
+        int head = NONE;
+        int count;
+    }
+}
@@ -0,0 +1,95 @@
+package dev.pallux.amethysttools.storage;
+
+import dev.pallux.amethysttools.models.AmethystTool;
+import dev.pallux.amethysttools.models.ToolStat;
+import dev.pallux.amethysttools.models.ToolType;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Persistence backend for the tool registry. The store hands out the registry on open and is
+ * told about every change afterwards; stores that persist the registry in place may ignore them.
+ */
+public interface ToolStore {
+
+    /**
+     * Loads the registry and tombstones and starts any background work
+     * @param tombstones Receives every destroyed tool that has not expired yet
+     * @param lifetimeMillis The tool lifetime, used to date tombstones
+     * @return The registry the plugin should work on
+     */
+    ToolRegistry open(ToolTombstones tombstones, long lifetimeMillis) throws IOException;
+
+    void logCreate(AmethystTool tool);
+
+    void logCreateAll(Collection<AmethystTool> tools);
+
+    void logAssign(AmethystTool tool);
+
+    /**
+     * Logs a destroyed tool, which also drops its usage counters
+     */
+    void logDestroy(UUID toolUUID, ToolType toolType, long creationTime);
+
+    /**
+     * Loads the saved usage counters, indexed by {@link ToolStat} ordinal
+     */
+    void loadStats(Map<UUID, long[]> byTool, Map<UUID, long[]> byPlayer) throws IOException;
+
+    /**
+     * Adds usage counter increments, indexed by {@link ToolStat} ordinal. Called off the main thread
+     * by the periodic stats flush. Increments rather than totals, so servers sharing a store add up
+     * instead of overwriting each other.
+     */
+    void addStats(Map<UUID, long[]> toolDeltas, Map<UUID, long[]> playerDeltas) throws IOException;
+
+    /**
+     * Makes the current state durable
+     * @return A future completed once everything is on disk
+     */
+    CompletableFuture<Void> snapshot(ToolRegistry tools, ToolTombstones tombstones);
+
+    /**
+     * Persists the final state and releases all resources (called on disable)
+     */
+    void close(ToolRegistry tools, ToolTombstones tombstones);
+
+    /**
+     * Registers the receiver for changes made by other servers. Only shared stores call it.
+     */
+    default void setRemoteListener(RemoteListener listener) {
+    }
+
+    /**
+     * Asks whether a tool missing from the local registry may still exist in the store.
+     * Shared stores answer true while they look the tool up in the background, and report
+     * it through {@link RemoteListener#onRemoteCreate} if it is found.
+     */
+    default boolean mayExist(UUID toolUUID) {
+        return false;
+    }
+
+    /**
+     * @return true if other servers write to the same store, so a tool missing from the local
+     * registry is not necessarily unknown
+     */
+    default boolean isShared() {
+        return false;
+    }
+
+    /**
+     * Receives changes made by other servers, always on the main thread
+     */
+    interface RemoteListener {
+
+        void onRemoteCreate(UUID toolUUID, ToolType toolType, long creationTime, UUID ownerUUID);
+
+        void onRemoteAssign(UUID toolUUID, UUID ownerUUID);
+
+        void onRemoteDestroy(UUID toolUUID, long creationTime);
+    }
+}
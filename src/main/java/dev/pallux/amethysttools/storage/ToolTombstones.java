@@ -0,0 +1,113 @@
+package dev.pallux.amethysttools.storage;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Set of destroyed or expired tool UUIDs, fronted by a Bloom filter so that the
+ * common case (a live tool) is answered with a few array reads and no allocation.
+ * A tombstone is kept until the tool would have expired anyway, after which the
+ * creation time stored on the item is enough to reject it.
+ */
+public class ToolTombstones {
+
+    private static final int HASHES = 4;
+    private static final int BITS_PER_ENTRY = 16; // ~0.2% false positives at capacity
+    private static final int MIN_BITS = 1 << 16;
+
+    // Tool UUID -> time (ms) after which the tombstone can be dropped
+    private final Map<UUID, Long> entries;
+    private volatile long[] bloom;
+
+    public ToolTombstones() {
+        this.entries = new ConcurrentHashMap<>();
+        rebuild();
+    }
+
+    /**
+     * Records a tool as revoked
+     * @param toolUUID The tool
+     * @param retainUntil When the tombstone may be pruned, normally the tool's natural expiry
+     */
+    public void add(UUID toolUUID, long retainUntil) {
+        entries.put(toolUUID, retainUntil);
+        if ((long) entries.size() * BITS_PER_ENTRY > bloom.length * 64L) {
+            rebuild();
+        } else {
+            setBits(bloom, toolUUID.getMostSignificantBits(), toolUUID.getLeastSignificantBits());
+        }
+    }
+
+    /**
+     * Constant time membership check that allocates nothing
+     */
+    public boolean contains(UUID toolUUID) {
+        if (toolUUID == null) return false;
+
+        long[] bits = bloom;
+        int mask = (bits.length << 6) - 1;
+        long h1 = mix(toolUUID.getMostSignificantBits() ^ Long.rotateLeft(toolUUID.getLeastSignificantBits(), 32));
+        long h2 = mix(toolUUID.getLeastSignificantBits()) | 1L;
+
+        for (int i = 0; i < HASHES; i++) {
+            int bit = (int) ((h1 + i * h2) & mask);
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+
+        // Bloom filters have false positives, confirm against the exact set
+        return entries.containsKey(toolUUID);
+    }
+
+    /**
+     * Drops tombstones whose tools would have expired by now and rebuilds the filter
+     * @return The number of tombstones removed
+     */
+    public int prune(long now) {
+        int before = entries.size();
+        entries.values().removeIf(retainUntil -> retainUntil <= now);
+        int removed = before - entries.size();
+        if (removed > 0) {
+            rebuild();
+        }
+        return removed;
+    }
+
+    public Map<UUID, Long> getEntries() {
+        return entries;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void rebuild() {
+        long needed = Math.max(MIN_BITS, (long) entries.size() * BITS_PER_ENTRY * 2);
+        int size = (int) Math.min(Long.highestOneBit(needed - 1) << 1, 1 << 30);
+
+        long[] bits = new long[size >>> 6];
+        for (UUID toolUUID : entries.keySet()) {
+            setBits(bits, toolUUID.getMostSignificantBits(), toolUUID.getLeastSignificantBits());
+        }
+        bloom = bits;
+    }
+
+    private static void setBits(long[] bits, long msb, long lsb) {
+        int mask = (bits.length << 6) - 1;
+        long h1 = mix(msb ^ Long.rotateLeft(lsb, 32));
+        long h2 = mix(lsb) | 1L;
+        for (int i = 0; i < HASHES; i++) {
+            int bit = (int) ((h1 + i * h2) & mask);
+            bits[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -1,11 +1,15 @@
 package dev.pallux.amethysttools.utils;
 
+import dev.pallux.amethysttools.models.ToolStat;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.TextDecoration;
 import net.kyori.adventure.text.minimessage.MiniMessage;
 import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
 import org.bukkit.ChatColor;
 
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -139,6 +143,31 @@ public class MessageUtil {
         return result.toString();
     }
 
+    /**
+     * Builds the placeholders for a set of tool stats, money is shown with two decimals
+     * @param stats Stats indexed by {@link ToolStat} ordinal
+     */
+    public static Map<String, String> statPlaceholders(long[] stats) {
+        Map<String, String> placeholders = new HashMap<>();
+        for (ToolStat stat : ToolStat.values()) {
+            long value = stat.ordinal() < stats.length ? stats[stat.ordinal()] : 0;
+            placeholders.put(stat.getPlaceholder(), stat == ToolStat.MONEY_EARNED
+                    ? String.format(Locale.ROOT, "%,.2f", value / 100.0)
+                    : String.format(Locale.ROOT, "%,d", value));
+        }
+        return placeholders;
+    }
+
+    /**
+     * Fills the {stat} placeholders of a text
+     */
+    public static String formatStats(String text, long[] stats) {
+        for (Map.Entry<String, String> entry : statPlaceholders(stats).entrySet()) {
+            text = text.replace("{" + entry.getKey() + "}", entry.getValue());
+        }
+        return text;
+    }
+
     /**
      * Creates a progress bar
      */
@@ -0,0 +1,280 @@
+package dev.pallux.amethysttools.utils;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Minimal reader and writer for the gzipped NBT format of player data files.
+ * Compounds are read as ordered maps, lists as {@link ListTag}, arrays as primitive arrays
+ * and every other tag as its boxed value, so a file written back keeps all its tag types.
+ */
+public final class NbtIo {
+
+    public static final byte TAG_END = 0;
+    public static final byte TAG_BYTE = 1;
+    public static final byte TAG_SHORT = 2;
+    public static final byte TAG_INT = 3;
+    public static final byte TAG_LONG = 4;
+    public static final byte TAG_FLOAT = 5;
+    public static final byte TAG_DOUBLE = 6;
+    public static final byte TAG_BYTE_ARRAY = 7;
+    public static final byte TAG_STRING = 8;
+    public static final byte TAG_LIST = 9;
+    public static final byte TAG_COMPOUND = 10;
+    public static final byte TAG_INT_ARRAY = 11;
+    public static final byte TAG_LONG_ARRAY = 12;
+
+    // Vanilla refuses deeper trees too, it also stops a corrupt file from overflowing the stack
+    private static final int MAX_DEPTH = 512;
+
+    /**
+     * A list tag. The element type is kept so empty lists are written back unchanged.
+     */
+    public record ListTag(byte elementType, List<Object> values) {
+    }
+
+    private NbtIo() {
+    }
+
+    /**
+     * Reads a gzipped NBT file into memory
+     * @return The root compound
+     */
+    public static Map<String, Object> readCompressed(InputStream input) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(input)));
+        if (in.readByte() != TAG_COMPOUND) {
+            throw new IOException("Root tag is not a compound");
+        }
+        in.readUTF();
+        return readCompound(in, 0);
+    }
+
+    /**
+     * Writes a root compound as a gzipped NBT file
+     */
+    public static void writeCompressed(Map<String, Object> root, OutputStream output) throws IOException {
+        GZIPOutputStream gzip = new GZIPOutputStream(output);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(gzip));
+        out.writeByte(TAG_COMPOUND);
+        out.writeUTF("");
+        writeCompound(out, root);
+        out.flush();
+        gzip.finish();
+    }
+
+    /**
+     * Streams through a gzipped NBT file without building it in memory. Only compounds with the
+     * given name are materialised and handed to the predicate, everything else is skipped.
+     * @return true as soon as the predicate accepts one of them
+     */
+    public static boolean scanCompressed(InputStream input, String compoundName,
+                                         Predicate<Map<String, Object>> predicate) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(input)));
+        if (in.readByte() != TAG_COMPOUND) {
+            throw new IOException("Root tag is not a compound");
+        }
+        in.readUTF();
+        return scanCompound(in, compoundName, predicate, 0);
+    }
+
+    private static boolean scanCompound(DataInput in, String compoundName,
+                                        Predicate<Map<String, Object>> predicate, int depth) throws IOException {
+        checkDepth(depth);
+        byte type;
+        while ((type = in.readByte()) != TAG_END) {
+            String name = in.readUTF();
+            if (type == TAG_COMPOUND && name.equals(compoundName)) {
+                if (predicate.test(readCompound(in, depth + 1))) return true;
+            } else if (scanPayload(in, type, compoundName, predicate, depth + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean scanPayload(DataInput in, byte type, String compoundName,
+                                       Predicate<Map<String, Object>> predicate, int depth) throws IOException {
+        switch (type) {
+            case TAG_COMPOUND -> {
+                return scanCompound(in, compoundName, predicate, depth);
+            }
+            case TAG_LIST -> {
+                checkDepth(depth);
+                byte elementType = in.readByte();
+                int length = in.readInt();
+                for (int i = 0; i < length; i++) {
+                    if (scanPayload(in, elementType, compoundName, predicate, depth + 1)) return true;
+                }
+                return false;
+            }
+            default -> {
+                skipPayload(in, type);
+                return false;
+            }
+        }
+    }
+
+    private static void skipPayload(DataInput in, byte type) throws IOException {
+        switch (type) {
+            case TAG_BYTE -> skip(in, 1);
+            case TAG_SHORT -> skip(in, 2);
+            case TAG_INT, TAG_FLOAT -> skip(in, 4);
+            case TAG_LONG, TAG_DOUBLE -> skip(in, 8);
+            case TAG_BYTE_ARRAY -> skip(in, in.readInt());
+            case TAG_STRING -> skip(in, in.readUnsignedShort());
+            case TAG_INT_ARRAY -> skip(in, in.readInt() * 4L);
+            case TAG_LONG_ARRAY -> skip(in, in.readInt() * 8L);
+            default -> throw new IOException("Unknown tag type " + type);
+        }
+    }
+
+    private static void skip(DataInput in, long bytes) throws IOException {
+        if (bytes < 0) throw new IOException("Negative length");
+        while (bytes > 0) {
+            int skipped = in.skipBytes((int) Math.min(bytes, Integer.MAX_VALUE));
+            if (skipped <= 0) {
+                // skipBytes may stop early on a compressed stream, a read tells EOF apart
+                in.readByte();
+                skipped = 1;
+            }
+            bytes -= skipped;
+        }
+    }
+
+    private static Map<String, Object> readCompound(DataInput in, int depth) throws IOException {
+        checkDepth(depth);
+        Map<String, Object> compound = new LinkedHashMap<>();
+        byte type;
+        while ((type = in.readByte()) != TAG_END) {
+            String name = in.readUTF();
+            compound.put(name, readPayload(in, type, depth + 1));
+        }
+        return compound;
+    }
+
+    private static Object readPayload(DataInput in, byte type, int depth) throws IOException {
+        return switch (type) {
+            case TAG_BYTE -> in.readByte();
+            case TAG_SHORT -> in.readShort();
+            case TAG_INT -> in.readInt();
+            case TAG_LONG -> in.readLong();
+            case TAG_FLOAT -> in.readFloat();
+            case TAG_DOUBLE -> in.readDouble();
+            case TAG_BYTE_ARRAY -> {
+                byte[] array = new byte[checkLength(in.readInt())];
+                in.readFully(array);
+                yield array;
+            }
+            case TAG_STRING -> in.readUTF();
+            case TAG_LIST -> {
+                checkDepth(depth);
+                byte elementType = in.readByte();
+                int length = checkLength(in.readInt());
+                List<Object> values = new ArrayList<>(Math.min(length, 1024));
+                for (int i = 0; i < length; i++) {
+                    values.add(readPayload(in, elementType, depth + 1));
+                }
+                yield new ListTag(elementType, values);
+            }
+            case TAG_COMPOUND -> readCompound(in, depth);
+            case TAG_INT_ARRAY -> {
+                int[] array = new int[checkLength(in.readInt())];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = in.readInt();
+                }
+                yield array;
+            }
+            case TAG_LONG_ARRAY -> {
+                long[] array = new long[checkLength(in.readInt())];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = in.readLong();
+                }
+                yield array;
+            }
+            default -> throw new IOException("Unknown tag type " + type);
+        };
+    }
+
+    private static void writeCompound(DataOutput out, Map<String, Object> compound) throws IOException {
+        for (Map.Entry<String, Object> entry : compound.entrySet()) {
+            Object value = entry.getValue();
+            out.writeByte(typeOf(value));
+            out.writeUTF(entry.getKey());
+            writePayload(out, value);
+        }
+        out.writeByte(TAG_END);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void writePayload(DataOutput out, Object value) throws IOException {
+        if (value instanceof Byte b) {
+            out.writeByte(b);
+        } else if (value instanceof Short s) {
+            out.writeShort(s);
+        } else if (value instanceof Integer i) {
+            out.writeInt(i);
+        } else if (value instanceof Long l) {
+            out.writeLong(l);
+        } else if (value instanceof Float f) {
+            out.writeFloat(f);
+        } else if (value instanceof Double d) {
+            out.writeDouble(d);
+        } else if (value instanceof byte[] array) {
+            out.writeInt(array.length);
+            out.write(array);
+        } else if (value instanceof String s) {
+            out.writeUTF(s);
+        } else if (value instanceof ListTag list) {
+            out.writeByte(list.values().isEmpty() ? list.elementType() : typeOf(list.values().get(0)));
+            out.writeInt(list.values().size());
+            for (Object element : list.values()) {
+                writePayload(out, element);
+            }
+        } else if (value instanceof Map<?, ?> map) {
+            writeCompound(out, (Map<String, Object>) map);
+        } else if (value instanceof int[] array) {
+            out.writeInt(array.length);
+            for (int element : array) {
+                out.writeInt(element);
+            }
+        } else if (value instanceof long[] array) {
+            out.writeInt(array.length);
+            for (long element : array) {
+                out.writeLong(element);
+            }
+        } else {
+            throw new IOException("Cannot write " + value.getClass().getName() + " as NBT");
+        }
+    }
+
+    private static byte typeOf(Object value) throws IOException {
+        if (value instanceof Byte) return TAG_BYTE;
+        if (value instanceof Short) return TAG_SHORT;
+        if (value instanceof Integer) return TAG_INT;
+        if (value instanceof Long) return TAG_LONG;
+        if (value instanceof Float) return TAG_FLOAT;
+        if (value instanceof Double) return TAG_DOUBLE;
+        if (value instanceof byte[]) return TAG_BYTE_ARRAY;
+        if (value instanceof String) return TAG_STRING;
+        if (value instanceof ListTag) return TAG_LIST;
+        if (value instanceof Map) return TAG_COMPOUND;
+        if (value instanceof int[]) return TAG_INT_ARRAY;
+        if (value instanceof long[]) return TAG_LONG_ARRAY;
+        throw new IOException("Cannot write " + value.getClass().getName() + " as NBT");
+    }
+
+    private static void checkDepth(int depth) throws IOException {
+        if (depth > MAX_DEPTH) throw new IOException("NBT nested deeper than " + MAX_DEPTH);
+    }
+
+    private static int checkLength(int length) throws IOException {
+        if (length < 0) throw new IOException("Negative length");
+        return length;
+    }
+}
@@ -0,0 +1,294 @@
+package dev.pallux.amethysttools.storage;
+
+import dev.pallux.amethysttools.models.AmethystTool;
+import dev.pallux.amethysttools.models.ToolStat;
+import dev.pallux.amethysttools.models.ToolType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the SQL store against an in-memory H2 database. Polling is left to the tests, the
+ * background flush only ever writes what the tests queued.
+ */
+class SqlToolStoreTest {
+
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+    private static final Logger LOGGER = Logger.getLogger(SqlToolStoreTest.class.getName());
+    private static final long NEVER_POLL = 3_600_000L;
+
+    private String url;
+    private final List<SqlToolStore> stores = new ArrayList<>();
+    private final HeapToolRegistry local = new HeapToolRegistry();
+
+    @BeforeEach
+    void createDatabase() {
+        url = "jdbc:h2:mem:tools" + DATABASES.incrementAndGet() + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+    }
+
+    @AfterEach
+    void closeStores() {
+        for (SqlToolStore store : stores) {
+            store.close(null, null);
+        }
+    }
+
+    @Test
+    void flushedToolsAreLoadedByAnotherServer() throws Exception {
+        SqlToolStore store = open(new RecordingListener());
+        UUID owner = UUID.randomUUID();
+        AmethystTool tool = tool(ToolType.PICKAXE, 1000L, owner);
+        store.logCreate(tool);
+        flush(store);
+
+        ToolRegistry loaded = open(new RecordingListener(), new ToolTombstones());
+        assertEquals(1, loaded.size());
+        assertEquals(ToolType.PICKAXE, loaded.getToolType(0));
+        assertEquals(1000L, loaded.getCreationTime(0));
+        assertEquals(owner, loaded.getOwnerUUID(0));
+    }
+
+    @Test
+    void pollAppliesRemoteChangesOnce() throws Exception {
+        SqlToolStore writer = open(new RecordingListener());
+        RecordingListener events = new RecordingListener();
+        SqlToolStore reader = open(events);
+
+        UUID owner = UUID.randomUUID();
+        AmethystTool tool = tool(ToolType.TORCH, 2000L, null);
+        writer.logCreate(tool);
+        local.setOwner(tool.getToolUUID(), owner);
+        writer.logAssign(tool);
+        flush(writer);
+
+        reader.poll();
+        assertEquals(List.of("create " + tool.getToolUUID(), "assign " + tool.getToolUUID() + " " + owner), events.events);
+
+        // The overlap window is read again, nothing in it may be applied twice
+        reader.poll();
+        assertEquals(2, events.events.size());
+    }
+
+    @Test
+    void pollSkipsOwnChanges() throws Exception {
+        RecordingListener events = new RecordingListener();
+        SqlToolStore store = open(events);
+        store.logCreate(tool(ToolType.BUCKET, 3000L, null));
+        flush(store);
+
+        store.poll();
+        assertTrue(events.events.isEmpty());
+    }
+
+    @Test
+    void pollPicksUpChangesCommittedBehindNewerIds() throws Exception {
+        RecordingListener events = new RecordingListener();
+        SqlToolStore reader = open(events);
+        UUID first = insertChange(1);
+        UUID second = insertChange(2);
+        UUID fourth = insertChange(4);
+
+        reader.poll();
+        assertEquals(List.of("create " + first, "create " + second, "create " + fourth), events.events);
+
+        // A transaction that allocated id 3 commits after 4 was read
+        UUID third = insertChange(3);
+        reader.poll();
+        assertEquals(List.of("create " + first, "create " + second, "create " + fourth, "create " + third), events.events);
+
+        reader.poll();
+        assertEquals(4, events.events.size());
+    }
+
+    @Test
+    void duplicateCreateFromAnotherServerDoesNotBlockWrites() throws Exception {
+        SqlToolStore first = open(new RecordingListener());
+        SqlToolStore second = open(new RecordingListener());
+        AmethystTool tool = tool(ToolType.ROCKET, 4000L, null);
+        first.logCreate(tool);
+        flush(first);
+
+        second.logCreate(tool);
+        AmethystTool next = tool(ToolType.ROCKET, 5000L, null);
+        second.logCreate(next);
+        flush(second);
+
+        assertEquals(1, count("amethysttools_tools WHERE tool_most = " + tool.getToolUUID().getMostSignificantBits()));
+        assertEquals(1, count("amethysttools_tools WHERE tool_most = " + next.getToolUUID().getMostSignificantBits()));
+    }
+
+    @Test
+    void retryAfterLostAcknowledgementIsIdempotent() throws Exception {
+        SqlToolStore store = open(new RecordingListener());
+        AmethystTool tool = tool(ToolType.SELL_AXE, 6000L, null);
+        store.logCreate(tool);
+        flush(store);
+
+        // The commit landed but the store never heard back, so the same change is written again
+        store.logCreate(tool);
+        flush(store);
+        AmethystTool next = tool(ToolType.SELL_AXE, 7000L, null);
+        store.logCreate(next);
+        flush(store);
+
+        assertEquals(2, count("amethysttools_tools"));
+    }
+
+    @Test
+    void rowRejectedOnItsOwnIsDropped() throws Exception {
+        SqlToolStore store = open(new RecordingListener());
+        execute("ALTER TABLE amethysttools_tools ADD CONSTRAINT positive_created CHECK (created_at > 0)");
+
+        AmethystTool rejected = tool(ToolType.PICKAXE, 0L, null);
+        AmethystTool accepted = tool(ToolType.PICKAXE, 8000L, null);
+        store.logCreate(rejected);
+        store.logCreate(accepted);
+        flush(store);
+
+        AmethystTool later = tool(ToolType.PICKAXE, 9000L, null);
+        store.logCreate(later);
+        flush(store);
+
+        assertEquals(2, count("amethysttools_tools"));
+        assertEquals(0, count("amethysttools_tools WHERE created_at = 0"));
+    }
+
+    @Test
+    void statsFromSeveralServersAddUp() throws Exception {
+        SqlToolStore first = open(new RecordingListener());
+        SqlToolStore second = open(new RecordingListener());
+        UUID toolUUID = UUID.randomUUID();
+        UUID playerUUID = UUID.randomUUID();
+
+        first.addStats(Map.of(toolUUID, stats(1, 10)), Map.of(playerUUID, stats(1, 10)));
+        second.addStats(Map.of(toolUUID, stats(2, 5)), Map.of(playerUUID, stats(2, 5)));
+
+        Map<UUID, long[]> tools = new HashMap<>();
+        Map<UUID, long[]> players = new HashMap<>();
+        open(new RecordingListener()).loadStats(tools, players);
+        assertArrayEquals(stats(3, 15), tools.get(toolUUID));
+        assertArrayEquals(stats(3, 15), players.get(playerUUID));
+    }
+
+    @Test
+    void destroyDropsToolStatsOnly() throws Exception {
+        SqlToolStore store = open(new RecordingListener());
+        AmethystTool tool = tool(ToolType.PICKAXE, 10000L, null);
+        UUID playerUUID = UUID.randomUUID();
+        store.logCreate(tool);
+        flush(store);
+        store.addStats(Map.of(tool.getToolUUID(), stats(1, 1)), Map.of(playerUUID, stats(1, 1)));
+
+        store.logDestroy(tool.getToolUUID(), tool.getToolType(), tool.getCreationTime());
+        flush(store);
+
+        Map<UUID, long[]> tools = new HashMap<>();
+        Map<UUID, long[]> players = new HashMap<>();
+        store.loadStats(tools, players);
+        assertTrue(tools.isEmpty());
+        assertArrayEquals(stats(1, 1), players.get(playerUUID));
+    }
+
+    private SqlToolStore open(RecordingListener listener) throws Exception {
+        SqlToolStore store = new SqlToolStore(LOGGER, url, "", "", 2, NEVER_POLL, Runnable::run);
+        store.open(new ToolTombstones(), 86_400_000L);
+        store.setRemoteListener(listener);
+        stores.add(store);
+        return store;
+    }
+
+    private ToolRegistry open(RecordingListener listener, ToolTombstones tombstones) throws Exception {
+        SqlToolStore store = new SqlToolStore(LOGGER, url, "", "", 2, NEVER_POLL, Runnable::run);
+        ToolRegistry registry = store.open(tombstones, 86_400_000L);
+        store.setRemoteListener(listener);
+        stores.add(store);
+        return registry;
+    }
+
+    private AmethystTool tool(ToolType type, long creationTime, UUID owner) {
+        return local.view(local.add(UUID.randomUUID(), type, creationTime, owner));
+    }
+
+    /**
+     * @return Counters with some uses and blocks broken
+     */
+    private static long[] stats(long uses, long blocks) {
+        long[] values = new long[ToolStat.values().length];
+        values[ToolStat.USES.ordinal()] = uses;
+        values[ToolStat.BLOCKS_BROKEN.ordinal()] = blocks;
+        return values;
+    }
+
+    private static void flush(SqlToolStore store) {
+        store.snapshot(null, null).join();
+    }
+
+    private UUID insertChange(long id) throws SQLException {
+        UUID toolUUID = UUID.randomUUID();
+        try (Connection connection = DriverManager.getConnection(url);
+             PreparedStatement statement = connection.prepareStatement("INSERT INTO amethysttools_changes "
+                     + "(id, server_id, op, tool_most, tool_least, tool_type, created_at, owner_most, owner_least, changed_at) "
+                     + "VALUES (?, 'other', 1, ?, ?, 0, 1, 0, 0, ?)")) {
+            statement.setLong(1, id);
+            statement.setLong(2, toolUUID.getMostSignificantBits());
+            statement.setLong(3, toolUUID.getLeastSignificantBits());
+            statement.setLong(4, System.currentTimeMillis());
+            statement.executeUpdate();
+        }
+        return toolUUID;
+    }
+
+    private int count(String from) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url);
+             Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT COUNT(*) FROM " + from)) {
+            result.next();
+            return result.getInt(1);
+        }
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url);
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate(sql);
+        }
+    }
+
+    private static class RecordingListener implements ToolStore.RemoteListener {
+
+        private final List<String> events = new ArrayList<>();
+
+        @Override
+        public void onRemoteCreate(UUID toolUUID, ToolType toolType, long creationTime, UUID ownerUUID) {
+            events.add("create " + toolUUID);
+        }
+
+        @Override
+        public void onRemoteAssign(UUID toolUUID, UUID ownerUUID) {
+            events.add("assign " + toolUUID + " " + ownerUUID);
+        }
+
+        @Override
+        public void onRemoteDestroy(UUID toolUUID, long creationTime) {
+            events.add("destroy " + toolUUID);
+        }
+    }
+}